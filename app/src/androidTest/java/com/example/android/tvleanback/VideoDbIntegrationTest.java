@@ -4,14 +4,13 @@ import static com.google.common.truth.Truth.assertThat;
 
 import android.content.ContentValues;
 import android.content.Context;
-import android.content.Intent;
 import android.database.Cursor;
 
-import com.example.android.tvleanback.data.FetchVideoService;
 import com.example.android.tvleanback.data.VideoContract;
 import com.example.android.tvleanback.data.VideoContract.VideoEntry;
 import com.example.android.tvleanback.data.VideoDbBuilder;
 import com.example.android.tvleanback.data.VideoDbHelper;
+import com.example.android.tvleanback.job.BackgroundJobs;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -52,7 +51,7 @@ public class VideoDbIntegrationTest {
                 VideoContract.VideoEntry.COLUMN_STUDIO,
         };
         Cursor mCursor = mVideoDbHelper.getReadableDatabase().query(
-                VideoContract.VideoEntry.TABLE_NAME,
+                mVideoDbHelper.getVideoTable(),
                 queryColumns,
                 null,
                 null,
@@ -64,10 +63,10 @@ public class VideoDbIntegrationTest {
         assertThat(mCursor.getCount()).isEqualTo(0); // Confirm database is empty
         mCursor.close();
         try {
-            mContext.startService(new Intent(mContext, FetchVideoService.class));
+            BackgroundJobs.schedule(mContext, BackgroundJobs.CATALOG_SYNC);
             Thread.sleep(1000*30);
             mCursor = mVideoDbHelper.getReadableDatabase().query(
-                    VideoContract.VideoEntry.TABLE_NAME,
+                    mVideoDbHelper.getVideoTable(),
                     queryColumns,
                     null,
                     null,
@@ -97,7 +96,7 @@ public class VideoDbIntegrationTest {
                 VideoContract.VideoEntry.COLUMN_STUDIO,
         };
         Cursor mCursor = mVideoDbHelper.getReadableDatabase().query(
-                VideoContract.VideoEntry.TABLE_NAME,
+                mVideoDbHelper.getVideoTable(),
                 queryColumns,
                 null,
                 null,
@@ -141,7 +140,7 @@ public class VideoDbIntegrationTest {
 
         // Test our makeshift database
         mCursor = mVideoDbHelper.getReadableDatabase().query(
-                VideoContract.VideoEntry.TABLE_NAME,
+                mVideoDbHelper.getVideoTable(),
                 queryColumns,
                 null,
                 null,
@@ -153,7 +152,7 @@ public class VideoDbIntegrationTest {
         mCursor.close();
 
         mCursor = mVideoDbHelper.getReadableDatabase().query(
-                VideoContract.VideoEntry.TABLE_NAME,
+                mVideoDbHelper.getVideoTable(),
                 queryColumns,
                 VideoContract.VideoEntry.COLUMN_NAME+" = ?",
                 new String[] {"New Dad"},
@@ -181,7 +180,7 @@ public class VideoDbIntegrationTest {
                 VideoContract.VideoEntry.COLUMN_STUDIO,
         };
         Cursor mCursor = mVideoDbHelper.getReadableDatabase().query(
-                VideoContract.VideoEntry.TABLE_NAME,
+                mVideoDbHelper.getVideoTable(),
                 queryColumns,
                 null,
                 null,
@@ -204,7 +203,7 @@ public class VideoDbIntegrationTest {
 
         // Test our makeshift database
         mCursor = mVideoDbHelper.getReadableDatabase().query(
-                VideoContract.VideoEntry.TABLE_NAME,
+                mVideoDbHelper.getVideoTable(),
                 queryColumns,
                 null,
                 null,
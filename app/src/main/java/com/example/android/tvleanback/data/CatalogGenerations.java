@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.android.tvleanback.data.VideoContract.DictionaryEntry;
+import com.example.android.tvleanback.data.VideoContract.VideoEntry;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The generations of the catalog of videos, each a database file of its own next to the main
+ * database, which attaches the live one.
+ * <p>
+ * A sync builds a complete new generation in a new file, on a connection of its own, so readers
+ * of the live generation never wait on it. It is validated once built, and only then made live.
+ * Which generation is live, and the one before it, are kept in preferences, and in memory once
+ * read; the files of any other generation are deleted. Going back to the generation before is a
+ * matter of making it live again. Generation numbers are never used twice, so a generation can
+ * be told apart by its number wherever it is attached.
+ */
+final class CatalogGenerations {
+    private static final String TAG = "CatalogGenerations";
+
+    private static final String PREFERENCES_NAME = "catalog_generations";
+    private static final String KEY_LIVE = "live";
+    private static final String KEY_PREVIOUS = "previous";
+    private static final String KEY_NEWEST = "newest";
+
+    private static final String FILE_PREFIX = "catalog-";
+    private static final String FILE_SUFFIX = ".db";
+
+    // Counts the changes made through any instance, so the others know to read them again.
+    private static final AtomicLong sChanges = new AtomicLong();
+
+    private final Context mContext;
+    private final SharedPreferences mSharedPreferences;
+
+    // The generations as read from the preferences, with the count of changes then.
+    private long mLive;
+    private long mPrevious;
+    private long mChanges = -1;
+
+    CatalogGenerations(Context context) {
+        mContext = context.getApplicationContext();
+        mSharedPreferences = mContext.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Returns the live generation. It is only read again after a change, and its file is only
+     * looked for then: if it is gone, the generation before is made live, and an empty one if
+     * that is gone too.
+     */
+    synchronized long getLive() {
+        if (mChanges == sChanges.get()) {
+            return mLive;
+        }
+        mChanges = sChanges.get();
+        long live = mSharedPreferences.getLong(KEY_LIVE, 0);
+        mPrevious = mSharedPreferences.getLong(KEY_PREVIOUS, 0);
+        if (live != 0 && getFile(live).exists()) {
+            mLive = live;
+        } else if (mPrevious != 0 && getFile(mPrevious).exists()) {
+            Log.w(TAG, "Catalog " + live + " is missing, going back to " + mPrevious);
+            save(mPrevious, 0);
+        } else {
+            if (live != 0) {
+                Log.w(TAG, "Catalog " + live + " is missing, starting from an empty one");
+            }
+            reset();
+        }
+        return mLive;
+    }
+
+    /** Returns the generation that was live before the live one, or 0 if it is gone. */
+    synchronized long getPrevious() {
+        getLive();
+        return mPrevious != 0 && getFile(mPrevious).exists() ? mPrevious : 0;
+    }
+
+    File getFile(long generation) {
+        return mContext.getDatabasePath(FILE_PREFIX + generation + FILE_SUFFIX);
+    }
+
+    /** Makes a new empty generation live, forgetting all the ones before. */
+    synchronized long reset() {
+        return replace(new ContentValues[0]);
+    }
+
+    /**
+     * Makes a new generation of videos that keep the ids they have live, forgetting all the ones
+     * before. For videos that were kept elsewhere before there was a catalog.
+     *
+     * @throws SQLException If the videos are not a valid catalog, the live one is left then.
+     */
+    synchronized long replace(ContentValues[] videos) {
+        Map<String, long[]> ids = new HashMap<>();
+        long nextId = 1;
+        long now = System.currentTimeMillis();
+        for (ContentValues video : videos) {
+            long id = video.getAsLong(VideoEntry._ID);
+            Long addedAt = video.getAsLong(VideoEntry.COLUMN_ADDED_AT);
+            ids.put(video.getAsString(VideoEntry.COLUMN_VIDEO_URL),
+                    new long[]{id, addedAt != null ? addedAt : now});
+            nextId = Math.max(nextId, id + 1);
+        }
+        long generation = create(videos, ids, nextId);
+        save(generation, 0);
+        deleteStale();
+        return generation;
+    }
+
+    /**
+     * Builds a new generation from a complete catalog, without touching the live one. Videos that
+     * are live already keep their id and when they were added, so the rows that refer to them stay
+     * right; new videos get ids never used by the live generation. The new generation is only
+     * made live by {@link #commit}, or deleted by {@link #discard}. Builds must not run at the
+     * same time, and writes to the live generation must wait until it is committed, see
+     * {@link VideoDbHelper#getCatalogWriteLock}.
+     *
+     * @throws SQLException If the new generation is not a valid catalog, its file is deleted then.
+     */
+    long build(ContentValues[] videos) {
+        if (videos.length == 0) {
+            // Most likely a failed download, keep the catalog there is.
+            throw new SQLException("Empty catalog");
+        }
+
+        Map<String, long[]> liveVideos = new HashMap<>();
+        long nextId = 1;
+        SQLiteDatabase live = SQLiteDatabase.openDatabase(getFile(getLive()).getPath(), null,
+                SQLiteDatabase.OPEN_READONLY);
+        try {
+            Cursor cursor = live.query(VideoEntry.DATA_TABLE_NAME, new String[]{
+                    VideoEntry.COLUMN_VIDEO_URL, VideoEntry._ID, VideoEntry.COLUMN_ADDED_AT
+            }, null, null, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    long id = cursor.getLong(1);
+                    liveVideos.put(cursor.getString(0), new long[]{id, cursor.getLong(2)});
+                    nextId = Math.max(nextId, id + 1);
+                }
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            live.close();
+        }
+
+        return create(videos, liveVideos, nextId);
+    }
+
+    /** Makes a generation built by {@link #build} live, the live one becomes the previous one. */
+    synchronized void commit(long generation) {
+        save(generation, getLive());
+        deleteStale();
+    }
+
+    /** Deletes a generation built by {@link #build} that is not to be made live. */
+    void discard(long generation) {
+        SQLiteDatabase.deleteDatabase(getFile(generation));
+    }
+
+    /** Makes the previous generation live again, returns false if there is none. */
+    synchronized boolean rollback() {
+        long previous = getPrevious();
+        if (previous == 0) {
+            return false;
+        }
+        // The generation rolled back from is deleted with the next sync.
+        save(previous, 0);
+        return true;
+    }
+
+    private void save(long live, long previous) {
+        mSharedPreferences.edit()
+                .putLong(KEY_LIVE, live)
+                .putLong(KEY_PREVIOUS, previous)
+                .commit();
+        mLive = live;
+        mPrevious = previous;
+        sChanges.incrementAndGet();
+    }
+
+    // Deletes the files of the generations that are neither live nor previous.
+    private void deleteStale() {
+        long live = mLive;
+        long previous = mPrevious;
+        File[] files = getFile(live).getParentFile().listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)
+                    && !file.equals(getFile(live)) && !file.equals(getFile(previous))) {
+                SQLiteDatabase.deleteDatabase(file);
+            }
+        }
+    }
+
+    // Writes a generation after the newest one there was, with its indexes built once it is full.
+    private long create(ContentValues[] videos, Map<String, long[]> liveVideos, long nextId) {
+        long generation;
+        synchronized (this) {
+            generation = Math.max(mSharedPreferences.getLong(KEY_NEWEST, 0),
+                    Math.max(mLive, mPrevious)) + 1;
+            mSharedPreferences.edit().putLong(KEY_NEWEST, generation).commit();
+        }
+        File file = getFile(generation);
+        file.getParentFile().mkdirs();
+        SQLiteDatabase.deleteDatabase(file);
+
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        try {
+            VideoDbHelper.createCatalog(db);
+            Set<String> urls = new HashSet<>();
+            Map<String, Long> newIds = new HashMap<>();
+            long now = System.currentTimeMillis();
+
+            db.beginTransaction();
+            try {
+                VideoDictionary dictionary = new VideoDictionary(db, "main");
+                for (ContentValues video : videos) {
+                    ContentValues row = dictionary.encode(video);
+                    if (row == video) {
+                        row = new ContentValues(video);
+                    }
+                    String url = row.getAsString(VideoEntry.COLUMN_VIDEO_URL);
+                    long[] liveVideo = liveVideos.get(url);
+                    if (liveVideo != null) {
+                        row.put(VideoEntry._ID, liveVideo[0]);
+                        row.put(VideoEntry.COLUMN_ADDED_AT, liveVideo[1]);
+                    } else {
+                        // A video listed twice is replaced by the last, with the same id.
+                        Long id = newIds.get(url);
+                        if (id == null) {
+                            id = nextId++;
+                            newIds.put(url, id);
+                        }
+                        row.put(VideoEntry._ID, id);
+                        if (!row.containsKey(VideoEntry.COLUMN_ADDED_AT)) {
+                            row.put(VideoEntry.COLUMN_ADDED_AT, now);
+                        }
+                    }
+                    urls.add(url);
+                    if (db.insertWithOnConflict(VideoEntry.DATA_TABLE_NAME, null, row,
+                            SQLiteDatabase.CONFLICT_REPLACE) == -1) {
+                        throw new SQLException("Invalid video " + url);
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            VideoDbHelper.createSortIndexes(db);
+            validate(db, urls.size());
+        } catch (RuntimeException e) {
+            db.close();
+            SQLiteDatabase.deleteDatabase(file);
+            throw e;
+        }
+        db.close();
+        return generation;
+    }
+
+    // Checks a generation before it can be made live: the file is sound, every video made it in,
+    // and every string a video refers to is in the dictionary.
+    private static void validate(SQLiteDatabase db, long videos) {
+        String check = DatabaseUtils.stringForQuery(db, "PRAGMA quick_check", null);
+        if (!"ok".equals(check)) {
+            throw new SQLException("Corrupt catalog: " + check);
+        }
+
+        long rows = DatabaseUtils.queryNumEntries(db, VideoEntry.DATA_TABLE_NAME);
+        if (rows != videos) {
+            throw new SQLException("Catalog has " + rows + " videos instead of " + videos);
+        }
+
+        StringBuilder dangling = new StringBuilder();
+        for (String column : VideoDictionary.ENCODED_COLUMNS) {
+            if (dangling.length() > 0) {
+                dangling.append(" OR ");
+            }
+            dangling.append(column).append(" NOT IN (SELECT ").append(DictionaryEntry._ID)
+                    .append(" FROM ").append(DictionaryEntry.TABLE_NAME).append(')');
+        }
+        if (DatabaseUtils.queryNumEntries(db, VideoEntry.DATA_TABLE_NAME,
+                dangling.toString()) > 0) {
+            throw new SQLException("Catalog refers to strings missing from its dictionary");
+        }
+    }
+}
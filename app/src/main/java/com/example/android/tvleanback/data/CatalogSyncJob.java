@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.database.SQLException;
+import android.util.Log;
+
+import com.example.android.tvleanback.R;
+import com.example.android.tvleanback.job.BackgroundJob;
+import com.example.android.tvleanback.job.BackgroundJobs;
+import com.example.android.tvleanback.recommendation.UpdateRecommendationsJob;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * CatalogSyncJob is responsible for fetching the videos from the Internet and inserting the
+ * results into a local SQLite database. The indexes built from the videos are rebuilt after.
+ */
+public class CatalogSyncJob extends ContextWrapper implements BackgroundJob {
+    private static final String TAG = "CatalogSyncJob";
+
+    public CatalogSyncJob(Context context) {
+        super(context.getApplicationContext());
+    }
+
+    @Override
+    public boolean run(String reason) {
+        VideoDbBuilder builder = new VideoDbBuilder(getApplicationContext());
+
+        try {
+            List<ContentValues> contentValuesList =
+                    builder.fetch(getResources().getString(R.string.catalog_url));
+            ContentValues[] downloadedVideoContentValues =
+                    contentValuesList.toArray(new ContentValues[contentValuesList.size()]);
+            // Swapped in as a whole once written, the videos keep being read meanwhile.
+            getContentResolver().bulkInsert(VideoContract.VideoEntry.CATALOG_URI,
+                    downloadedVideoContentValues);
+
+            // Rebuild the related videos of the new catalog in the background.
+            BackgroundJobs.schedule(this, BackgroundJobs.RELATED_INDEX);
+            // Rank the new catalog, then publish recommendations from it.
+            BackgroundJobs.schedule(this, BackgroundJobs.RANKING,
+                    UpdateRecommendationsJob.REASON_CATALOG_CHANGED);
+            return true;
+        } catch (IOException | JSONException e) {
+            // Retried later, with backoff.
+            Log.e(TAG, "Error occurred in downloading videos", e);
+            return false;
+        } catch (SQLException e) {
+            // Not a valid catalog, the one before stays. Retried later, with backoff.
+            Log.e(TAG, "Downloaded catalog was rejected", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.android.tvleanback.data.VideoContract.RatingEntry;
+import com.example.android.tvleanback.job.BackgroundJobs;
+import com.example.android.tvleanback.recommendation.UpdateRecommendationsJob;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ratings remembers the thumbs up and down given to videos, which the recommendations are ranked
+ * from. Writes and reads happen off the main thread, one at a time and in order.
+ * <p>
+ * All methods must be called, and all callbacks are run, on the main thread.
+ */
+public final class Ratings {
+
+    /** Receives the rating of a video. */
+    public interface Callback {
+        /** Called with one of the ratings of {@link RatingEntry}. */
+        void onRating(int rating);
+    }
+
+    private static Ratings sInstance;
+
+    private final Context mContext;
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    public static synchronized Ratings getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new Ratings(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private Ratings(Context context) {
+        mContext = context;
+        mContentResolver = context.getContentResolver();
+    }
+
+    /**
+     * Rates a video, with one of the ratings of {@link RatingEntry}. Rating it
+     * {@link RatingEntry#RATING_NONE} forgets its rating.
+     */
+    public void rate(String videoUrl, final int rating) {
+        final ContentValues values = new ContentValues();
+        values.put(RatingEntry.COLUMN_VIDEO_URL, videoUrl);
+        values.put(RatingEntry.COLUMN_RATING, rating);
+        values.put(RatingEntry.COLUMN_RATED_AT, System.currentTimeMillis());
+        final String[] selectionArgs = new String[]{videoUrl};
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (rating == RatingEntry.RATING_NONE) {
+                    // Without a row, the video can be recommended again.
+                    mContentResolver.delete(RatingEntry.CONTENT_URI,
+                            RatingEntry.COLUMN_VIDEO_URL + " = ?", selectionArgs);
+                } else {
+                    mContentResolver.insert(RatingEntry.CONTENT_URI, values);
+                }
+                BackgroundJobs.schedule(mContext, BackgroundJobs.RANKING,
+                        UpdateRecommendationsJob.REASON_WATCH_ACTIVITY);
+            }
+        });
+    }
+
+    /** Looks up the rating of a video. */
+    public void getRating(String videoUrl, final Callback callback) {
+        final String[] selectionArgs = new String[]{videoUrl};
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int rating = queryRating(selectionArgs);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onRating(rating);
+                    }
+                });
+            }
+        });
+    }
+
+    private int queryRating(String[] selectionArgs) {
+        Cursor cursor = mContentResolver.query(
+                RatingEntry.CONTENT_URI,
+                new String[]{RatingEntry.COLUMN_RATING},
+                RatingEntry.COLUMN_VIDEO_URL + " = ?",
+                selectionArgs,
+                null);
+        if (cursor == null) {
+            return RatingEntry.RATING_NONE;
+        }
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : RatingEntry.RATING_NONE;
+        } finally {
+            cursor.close();
+        }
+    }
+}
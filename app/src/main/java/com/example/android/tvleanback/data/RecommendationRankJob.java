@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.database.Cursor;
+import android.util.Log;
+
+import com.example.android.tvleanback.job.BackgroundJob;
+import com.example.android.tvleanback.job.BackgroundJobs;
+
+import java.util.List;
+
+/**
+ * RecommendationRankJob scores the videos of the local database for the user and stores the
+ * best ones, so that recommendations and the "For you" row only read the top of the recommended
+ * table. It runs after each sync and whenever videos are watched or rated, then publishes the
+ * recommendations for the same reason.
+ */
+public class RecommendationRankJob extends ContextWrapper implements BackgroundJob {
+    private static final String TAG = "RecommendationRankJob";
+
+    public RecommendationRankJob(Context context) {
+        super(context.getApplicationContext());
+    }
+
+    @Override
+    public boolean run(String reason) {
+        RecommendationRanker ranker = new RecommendationRanker(System.currentTimeMillis());
+
+        Cursor cursor = getContentResolver().query(
+                VideoContract.VideoEntry.CONTENT_URI,
+                RecommendationRanker.VIDEO_PROJECTION,
+                null,
+                null,
+                null);
+        if (cursor == null) {
+            Log.e(TAG, "Could not query videos to rank.");
+            return false;
+        }
+        try {
+            ranker.addVideos(cursor);
+        } finally {
+            cursor.close();
+        }
+
+        cursor = getContentResolver().query(
+                VideoContract.WatchHistoryEntry.CONTENT_URI,
+                RecommendationRanker.WATCH_HISTORY_PROJECTION,
+                null,
+                null,
+                null);
+        if (cursor != null) {
+            try {
+                ranker.addWatchHistory(cursor);
+            } finally {
+                cursor.close();
+            }
+        }
+
+        cursor = getContentResolver().query(
+                VideoContract.RatingEntry.CONTENT_URI,
+                RecommendationRanker.RATING_PROJECTION,
+                null,
+                null,
+                null);
+        if (cursor != null) {
+            try {
+                ranker.addRatings(cursor);
+            } finally {
+                cursor.close();
+            }
+        }
+
+        List<ContentValues> contentValuesList = ranker.build();
+        ContentValues[] recommendedContentValues =
+                contentValuesList.toArray(new ContentValues[contentValuesList.size()]);
+        getContentResolver().bulkInsert(VideoContract.RecommendedEntry.CONTENT_URI,
+                recommendedContentValues);
+
+        BackgroundJobs.schedule(this, BackgroundJobs.RECOMMENDATIONS, reason);
+        return true;
+    }
+}
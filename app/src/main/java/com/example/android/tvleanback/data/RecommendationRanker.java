@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The RecommendationRanker scores the videos of the catalog for the user, from what they watched
+ * and rated, and keeps the best ones to be placed into the recommended table.
+ * <p>
+ * Every watched or rated video tells how much the user likes its category: watching counts as
+ * much as the part of the video that was watched, thumbs up and down count for or against, and
+ * everything counts less as it gets older. Videos that were never watched or rated are then scored
+ * by how much their category is liked. Each further video of a category scores a little less than
+ * the one before, so the best videos are not all from the same category.
+ * <p>
+ * Scoring takes one pass over the signals and one over the videos, with a hash lookup each.
+ */
+public class RecommendationRanker {
+    // The number of videos kept, best first.
+    public static final int MAX_RANKED = 100;
+
+    // How long it takes for a signal to count half as much.
+    private static final long HALF_LIFE_MS = TimeUnit.DAYS.toMillis(14);
+
+    private static final float WATCH_WEIGHT = 1.0f;
+    private static final float RATING_WEIGHT = 2.0f;
+
+    // Each further video of a category is worth this much of the one before.
+    private static final float CATEGORY_DECAY = 0.8f;
+
+    // Disliked categories keep this much of their weight, so they still come up now and then.
+    private static final float MIN_CATEGORY_WEIGHT = 0.1f;
+
+    static final String[] VIDEO_PROJECTION = {
+            VideoContract.VideoEntry._ID,
+            VideoContract.VideoEntry.COLUMN_VIDEO_URL,
+            VideoContract.VideoEntry.COLUMN_CATEGORY
+    };
+
+    static final String[] WATCH_HISTORY_PROJECTION = {
+            VideoContract.WatchHistoryEntry.COLUMN_VIDEO_URL,
+            VideoContract.WatchHistoryEntry.COLUMN_PROGRESS,
+            VideoContract.WatchHistoryEntry.COLUMN_LAST_WATCHED
+    };
+
+    static final String[] RATING_PROJECTION = {
+            VideoContract.RatingEntry.COLUMN_VIDEO_URL,
+            VideoContract.RatingEntry.COLUMN_RATING,
+            VideoContract.RatingEntry.COLUMN_RATED_AT
+    };
+
+    private final long mNowMs;
+    private final List<Candidate> mCandidates = new ArrayList<>();
+    // What the user did with each video, by video url.
+    private final Map<String, Signal> mSignals = new HashMap<>();
+
+    /**
+     * @param nowMs The current time, in milliseconds since the epoch, to age the signals from.
+     */
+    public RecommendationRanker(long nowMs) {
+        mNowMs = nowMs;
+    }
+
+    /**
+     * Adds a video of the catalog.
+     */
+    public void addVideo(long id, String videoUrl, String category) {
+        mCandidates.add(new Candidate(id, videoUrl, category));
+    }
+
+    /**
+     * Adds that a video was watched, and how much of it, from 0 to 1.
+     */
+    public void addWatched(String videoUrl, float progress, long lastWatchedMs) {
+        Signal signal = getSignal(videoUrl);
+        signal.watched = true;
+        signal.progress = progress;
+        signal.lastWatchedMs = lastWatchedMs;
+    }
+
+    /**
+     * Adds the rating of a video, as one of the ratings of {@link VideoContract.RatingEntry}.
+     * {@link VideoContract.RatingEntry#RATING_NONE} is no signal.
+     */
+    public void addRating(String videoUrl, int rating, long ratedAtMs) {
+        if (rating == VideoContract.RatingEntry.RATING_NONE) {
+            return;
+        }
+        Signal signal = getSignal(videoUrl);
+        signal.rating = rating;
+        signal.ratedAtMs = ratedAtMs;
+    }
+
+    /**
+     * Adds every video of a cursor queried with {@link #VIDEO_PROJECTION}.
+     */
+    public void addVideos(Cursor cursor) {
+        while (cursor.moveToNext()) {
+            addVideo(cursor.getLong(0), cursor.getString(1), cursor.getString(2));
+        }
+    }
+
+    /**
+     * Adds every entry of a cursor queried with {@link #WATCH_HISTORY_PROJECTION}.
+     */
+    public void addWatchHistory(Cursor cursor) {
+        while (cursor.moveToNext()) {
+            addWatched(cursor.getString(0), cursor.getFloat(1), cursor.getLong(2));
+        }
+    }
+
+    /**
+     * Adds every rating of a cursor queried with {@link #RATING_PROJECTION}.
+     */
+    public void addRatings(Cursor cursor) {
+        while (cursor.moveToNext()) {
+            addRating(cursor.getString(0), cursor.getInt(1), cursor.getLong(2));
+        }
+    }
+
+    /**
+     * Scores the added videos.
+     *
+     * @return the rows of the recommended table, at most {@link #MAX_RANKED}.
+     */
+    public @NonNull List<ContentValues> build() {
+        // How much each category is liked.
+        Map<String, Category> categories = new HashMap<>();
+        for (Candidate candidate : mCandidates) {
+            Category category = categories.get(candidate.category);
+            if (category == null) {
+                category = new Category();
+                categories.put(candidate.category, category);
+            }
+            Signal signal = mSignals.get(candidate.videoUrl);
+            if (signal == null) {
+                continue;
+            }
+            if (signal.watched) {
+                category.affinity += WATCH_WEIGHT * signal.progress * decay(signal.lastWatchedMs);
+            }
+            if (signal.rating != VideoContract.RatingEntry.RATING_NONE) {
+                category.affinity += RATING_WEIGHT * signal.rating * decay(signal.ratedAtMs);
+            }
+        }
+        for (Category category : categories.values()) {
+            category.weight = Math.max(MIN_CATEGORY_WEIGHT, 1 + category.affinity);
+        }
+
+        // Keep the best videos in a min-heap, so the worst one is evicted first.
+        PriorityQueue<Candidate> best = new PriorityQueue<>(MAX_RANKED + 1);
+        for (Candidate candidate : mCandidates) {
+            Signal signal = mSignals.get(candidate.videoUrl);
+            if (signal != null) {
+                // Already watched or rated, so not worth recommending.
+                continue;
+            }
+            Category category = categories.get(candidate.category);
+            candidate.score = category.weight;
+            category.weight *= CATEGORY_DECAY;
+
+            if (best.size() < MAX_RANKED) {
+                best.add(candidate);
+            } else if (candidate.score > best.peek().score) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+
+        List<ContentValues> recommended = new ArrayList<>(best.size());
+        for (Candidate candidate : best) {
+            ContentValues values = new ContentValues();
+            values.put(VideoContract.RecommendedEntry.COLUMN_VIDEO_ID, candidate.id);
+            values.put(VideoContract.RecommendedEntry.COLUMN_SCORE, candidate.score);
+            recommended.add(values);
+        }
+        return recommended;
+    }
+
+    // Returns how much a signal of the given time still counts, from 1 for now down to 0.
+    private float decay(long timeMs) {
+        long ageMs = Math.max(0, mNowMs - timeMs);
+        return (float) Math.pow(0.5, (double) ageMs / HALF_LIFE_MS);
+    }
+
+    private Signal getSignal(String videoUrl) {
+        Signal signal = mSignals.get(videoUrl);
+        if (signal == null) {
+            signal = new Signal();
+            mSignals.put(videoUrl, signal);
+        }
+        return signal;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final long id;
+        final String videoUrl;
+        final String category;
+        float score;
+
+        Candidate(long id, String videoUrl, String category) {
+            this.id = id;
+            this.videoUrl = videoUrl;
+            this.category = category;
+        }
+
+        @Override
+        public int compareTo(@NonNull Candidate other) {
+            return Float.compare(score, other.score);
+        }
+    }
+
+    private static final class Signal {
+        boolean watched;
+        float progress;
+        long lastWatchedMs;
+        int rating = VideoContract.RatingEntry.RATING_NONE;
+        long ratedAtMs;
+    }
+
+    private static final class Category {
+        float affinity;
+        // The score of the next video of the category.
+        float weight;
+    }
+}
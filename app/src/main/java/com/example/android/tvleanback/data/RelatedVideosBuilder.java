@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.tvleanback.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The RelatedVideosBuilder scores every video in the catalog against the others and keeps the
+ * best matches of each video, to be placed into the related table.
+ * <p>
+ * Two videos are similar when they share a category, a studio or words in their titles. Only
+ * videos sharing at least one of those are ever compared, so the cost is bounded by the size of
+ * the largest category rather than by the size of the whole catalog.
+ */
+public class RelatedVideosBuilder {
+    // The number of related videos kept for each video.
+    public static final int MAX_RELATED = 10;
+
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float STUDIO_WEIGHT = 1.0f;
+    private static final float TITLE_WEIGHT = 3.0f;
+
+    // Title words shorter than this are too common to say anything about similarity.
+    private static final int MIN_TOKEN_LENGTH = 3;
+
+    static final String[] PROJECTION = {
+            VideoContract.VideoEntry._ID,
+            VideoContract.VideoEntry.COLUMN_CATEGORY,
+            VideoContract.VideoEntry.COLUMN_STUDIO,
+            VideoContract.VideoEntry.COLUMN_NAME
+    };
+
+    private final List<Entry> mEntries = new ArrayList<>();
+
+    /**
+     * Adds a video to be scored.
+     */
+    public void add(long id, String category, String studio, String title) {
+        mEntries.add(new Entry(id, category, studio, tokenize(title)));
+    }
+
+    /**
+     * Adds every video of a cursor queried with {@link #PROJECTION}.
+     */
+    public void addAll(Cursor cursor) {
+        int idIndex = cursor.getColumnIndex(VideoContract.VideoEntry._ID);
+        int categoryIndex = cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_CATEGORY);
+        int studioIndex = cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_STUDIO);
+        int nameIndex = cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_NAME);
+        while (cursor.moveToNext()) {
+            add(cursor.getLong(idIndex), cursor.getString(categoryIndex),
+                    cursor.getString(studioIndex), cursor.getString(nameIndex));
+        }
+    }
+
+    /**
+     * Scores the added videos against each other.
+     *
+     * @return the rows of the related table, at most {@link #MAX_RELATED} per video.
+     */
+    public @NonNull List<ContentValues> build() {
+        // Inverted indexes from each feature to the videos that have it.
+        Map<String, List<Entry>> byCategory = new HashMap<>();
+        Map<String, List<Entry>> byStudio = new HashMap<>();
+        Map<String, List<Entry>> byToken = new HashMap<>();
+        for (Entry entry : mEntries) {
+            index(byCategory, entry.category, entry);
+            index(byStudio, entry.studio, entry);
+            for (String token : entry.tokens) {
+                index(byToken, token, entry);
+            }
+        }
+
+        List<ContentValues> related = new ArrayList<>();
+        Set<Entry> candidates = new HashSet<>();
+        for (Entry entry : mEntries) {
+            candidates.clear();
+            addCandidates(candidates, byCategory, entry.category);
+            addCandidates(candidates, byStudio, entry.studio);
+            for (String token : entry.tokens) {
+                addCandidates(candidates, byToken, token);
+            }
+            candidates.remove(entry);
+
+            // Keep the best matches in a min-heap, so the worst one is evicted first.
+            PriorityQueue<Match> best = new PriorityQueue<>(MAX_RELATED + 1);
+            for (Entry candidate : candidates) {
+                float score = score(entry, candidate);
+                if (score <= 0) {
+                    continue;
+                }
+                best.add(new Match(candidate.id, score));
+                if (best.size() > MAX_RELATED) {
+                    best.poll();
+                }
+            }
+
+            for (Match match : best) {
+                ContentValues values = new ContentValues();
+                values.put(VideoContract.RelatedEntry.COLUMN_VIDEO_ID, entry.id);
+                values.put(VideoContract.RelatedEntry.COLUMN_RELATED_ID, match.id);
+                values.put(VideoContract.RelatedEntry.COLUMN_SCORE, match.score);
+                related.add(values);
+            }
+        }
+        return related;
+    }
+
+    private static float score(Entry a, Entry b) {
+        float score = 0;
+        if (a.category != null && a.category.equals(b.category)) {
+            score += CATEGORY_WEIGHT;
+        }
+        if (a.studio != null && a.studio.equals(b.studio)) {
+            score += STUDIO_WEIGHT;
+        }
+        if (!a.tokens.isEmpty() && !b.tokens.isEmpty()) {
+            int shared = 0;
+            for (String token : a.tokens) {
+                if (b.tokens.contains(token)) {
+                    shared++;
+                }
+            }
+            // Jaccard similarity of the two titles.
+            score += TITLE_WEIGHT * shared / (a.tokens.size() + b.tokens.size() - shared);
+        }
+        return score;
+    }
+
+    private static void index(Map<String, List<Entry>> index, String key, Entry entry) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = index.get(key);
+        if (entries == null) {
+            entries = new ArrayList<>();
+            index.put(key, entries);
+        }
+        entries.add(entry);
+    }
+
+    private static void addCandidates(Set<Entry> candidates, Map<String, List<Entry>> index,
+            String key) {
+        if (key == null) {
+            return;
+        }
+        List<Entry> entries = index.get(key);
+        if (entries != null) {
+            candidates.addAll(entries);
+        }
+    }
+
+    private static Set<String> tokenize(String title) {
+        Set<String> tokens = new HashSet<>();
+        if (title == null) {
+            return tokens;
+        }
+        for (String token : title.toLowerCase(Locale.US).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Entry {
+        final long id;
+        final String category;
+        final String studio;
+        final Set<String> tokens;
+
+        Entry(long id, String category, String studio, Set<String> tokens) {
+            this.id = id;
+            this.category = category;
+            this.studio = studio;
+            this.tokens = tokens;
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        final long id;
+        final float score;
+
+        Match(long id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(@NonNull Match other) {
+            return Float.compare(score, other.score);
+        }
+    }
+}
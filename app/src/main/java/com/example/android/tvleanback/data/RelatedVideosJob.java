@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.database.Cursor;
+import android.util.Log;
+
+import com.example.android.tvleanback.job.BackgroundJob;
+
+import java.util.List;
+
+/**
+ * RelatedVideosJob rebuilds the related videos index from the videos in the local database.
+ * It runs after each sync, so that the details and playback screens only read a short list.
+ */
+public class RelatedVideosJob extends ContextWrapper implements BackgroundJob {
+    private static final String TAG = "RelatedVideosJob";
+
+    public RelatedVideosJob(Context context) {
+        super(context.getApplicationContext());
+    }
+
+    @Override
+    public boolean run(String reason) {
+        RelatedVideosBuilder builder = new RelatedVideosBuilder();
+
+        Cursor cursor = getContentResolver().query(
+                VideoContract.VideoEntry.CONTENT_URI,
+                RelatedVideosBuilder.PROJECTION,
+                null,
+                null,
+                null);
+        if (cursor == null) {
+            Log.e(TAG, "Could not query videos to relate.");
+            return false;
+        }
+        try {
+            builder.addAll(cursor);
+        } finally {
+            cursor.close();
+        }
+
+        List<ContentValues> contentValuesList = builder.build();
+        ContentValues[] relatedContentValues =
+                contentValuesList.toArray(new ContentValues[contentValuesList.size()]);
+        getContentResolver().bulkInsert(VideoContract.RelatedEntry.CONTENT_URI,
+                relatedContentValues);
+        return true;
+    }
+}
@@ -35,6 +35,20 @@ public final class VideoContract {
 
     // The content paths.
     public static final String PATH_VIDEO = "video";
+    public static final String PATH_RELATED = "related";
+    public static final String PATH_BATCH = "batch";
+    public static final String PATH_SAMPLE = "sample";
+    public static final String PATH_PAGE = "page";
+    public static final String PATH_CATALOG = "catalog";
+    public static final String PATH_WATCH_HISTORY = "watch_history";
+    public static final String PATH_CONTINUE_WATCHING = "continue_watching";
+    public static final String PATH_RATING = "rating";
+    public static final String PATH_RECOMMENDED = "recommended";
+
+    // Method of the content provider that swaps the catalog before the last sync back in. Its
+    // result has EXTRA_ROLLED_BACK, false if there was no catalog to go back to.
+    public static final String METHOD_ROLLBACK_CATALOG = "rollback_catalog";
+    public static final String EXTRA_ROLLED_BACK = "rolled_back";
 
     public static final class VideoEntry implements BaseColumns {
 
@@ -44,9 +58,56 @@ public final class VideoContract {
         public static final String CONTENT_TYPE =
                 ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "." + PATH_VIDEO;
 
-        // Name of the video table.
+        public static final String CONTENT_ITEM_TYPE =
+                ContentResolver.CURSOR_ITEM_BASE_TYPE + "/" + CONTENT_AUTHORITY + "." + PATH_VIDEO;
+
+        // Inserting into it replaces the whole catalog with the videos inserted, all at once once
+        // they are all written. Until then, the videos read are those of the catalog before.
+        public static final Uri CATALOG_URI =
+                CONTENT_URI.buildUpon().appendPath(PATH_CATALOG).build();
+
+        // Query parameter holding the comma separated ids of a batch Uri.
+        public static final String QUERY_PARAMETER_IDS = "ids";
+
+        // Query parameter holding the number of videos of a sample Uri.
+        public static final String QUERY_PARAMETER_COUNT = "count";
+
+        // Query parameter of a sample Uri, true if the videos should be from different categories.
+        public static final String QUERY_PARAMETER_BY_CATEGORY = "by_category";
+
+        // Query parameter holding the id a page Uri starts after.
+        public static final String QUERY_PARAMETER_AFTER = "after";
+
+        // Query parameter holding the most videos a page Uri returns.
+        public static final String QUERY_PARAMETER_LIMIT = "limit";
+
+        // Query parameter holding the sort order of a page Uri, one of the SORT_ values.
+        public static final String QUERY_PARAMETER_SORT = "sort";
+
+        // Query parameter holding the column a page Uri is filtered on, one of the FILTER_ values.
+        public static final String QUERY_PARAMETER_FILTER = "filter";
+
+        // Query parameter holding the value the filter column of a page Uri must have.
+        public static final String QUERY_PARAMETER_FILTER_VALUE = "filter_value";
+
+        // Sort orders of a page Uri, each served by an index.
+        public static final String SORT_TITLE = "title";
+        public static final String SORT_YEAR = "year";
+        public static final String SORT_RATING = "rating";
+        public static final String SORT_ADDED = "added";
+
+        // Columns a page Uri can be filtered on. Live videos are filtered with the value 1.
+        public static final String FILTER_CATEGORY = COLUMN_CATEGORY;
+        public static final String FILTER_STUDIO = COLUMN_STUDIO;
+        public static final String FILTER_LIVE = COLUMN_IS_LIVE;
+
+        // Name of the view the videos are read from, with every column as it was written.
         public static final String TABLE_NAME = "video";
 
+        // Name of the table the videos are stored in, which they are written to. Its columns are
+        // those of the view, with the ones in VideoDictionary stored as ids into the dictionary.
+        public static final String DATA_TABLE_NAME = "video_data";
+
         // Column with the foreign key into the category table.
         public static final String COLUMN_CATEGORY = "category";
 
@@ -71,6 +132,11 @@ public final class VideoContract {
         // The content type of the video.
         public static final String COLUMN_CONTENT_TYPE = SearchManager.SUGGEST_COLUMN_CONTENT_TYPE;
 
+        // Content types of the videos.
+        public static final String CONTENT_TYPE_DASH = "application/dash+xml";
+        public static final String CONTENT_TYPE_HLS = "application/x-mpegURL";
+        public static final String CONTENT_TYPE_PROGRESSIVE = "video/mp4";
+
         // Whether the video is live or not.
         public static final String COLUMN_IS_LIVE = SearchManager.SUGGEST_COLUMN_IS_LIVE;
 
@@ -104,9 +170,188 @@ public final class VideoContract {
         // The action intent for the result.
         public static final String COLUMN_ACTION = SearchManager.SUGGEST_COLUMN_INTENT_ACTION;
 
+        // When the video was first added to the catalog, in milliseconds since the epoch.
+        public static final String COLUMN_ADDED_AT = "added_at";
+
         // Returns the Uri referencing a video with the specified id.
         public static Uri buildVideoUri(long id) {
             return ContentUris.withAppendedId(CONTENT_URI, id);
         }
+
+        // Returns the Uri referencing all videos with the specified ids, fetched in one query.
+        public static Uri buildVideosUri(long[] ids) {
+            StringBuilder idList = new StringBuilder();
+            for (long id : ids) {
+                if (idList.length() > 0) {
+                    idList.append(',');
+                }
+                idList.append(id);
+            }
+            return CONTENT_URI.buildUpon()
+                    .appendPath(PATH_BATCH)
+                    .appendQueryParameter(QUERY_PARAMETER_IDS, idList.toString())
+                    .build();
+        }
+
+        // Returns the Uri referencing random videos, optionally from as many different categories
+        // as possible.
+        public static Uri buildSampleUri(int count, boolean byCategory) {
+            return CONTENT_URI.buildUpon()
+                    .appendPath(PATH_SAMPLE)
+                    .appendQueryParameter(QUERY_PARAMETER_COUNT, Integer.toString(count))
+                    .appendQueryParameter(QUERY_PARAMETER_BY_CATEGORY, Boolean.toString(byCategory))
+                    .build();
+        }
+
+        // Returns the Uri referencing the videos right after the specified id, in id order. Pass
+        // the id of the last video of a page to get the next one, or 0 to get the first one.
+        public static Uri buildPageUri(long afterId, int limit) {
+            return buildPageUri(CONTENT_URI.buildUpon().appendPath(PATH_PAGE).build(),
+                    afterId, limit);
+        }
+
+        // Returns the Uri referencing all videos in a sort order, optionally only those with the
+        // specified value in a filter column. It is read a page at a time with buildPageUri.
+        public static Uri buildSortedUri(String sort, String filter, String filterValue) {
+            Uri.Builder builder = CONTENT_URI.buildUpon()
+                    .appendPath(PATH_PAGE)
+                    .appendQueryParameter(QUERY_PARAMETER_SORT, sort);
+            if (filter != null) {
+                builder.appendQueryParameter(QUERY_PARAMETER_FILTER, filter)
+                        .appendQueryParameter(QUERY_PARAMETER_FILTER_VALUE, filterValue);
+            }
+            return builder.build();
+        }
+
+        // Returns the Uri referencing the videos of a sorted Uri right after the specified id.
+        // Pass the id of the last video of a page to get the next one, or 0 to get the first one.
+        public static Uri buildPageUri(Uri sortedUri, long afterId, int limit) {
+            return sortedUri.buildUpon()
+                    .appendQueryParameter(QUERY_PARAMETER_AFTER, Long.toString(afterId))
+                    .appendQueryParameter(QUERY_PARAMETER_LIMIT, Integer.toString(limit))
+                    .build();
+        }
+    }
+
+    public static final class DictionaryEntry implements BaseColumns {
+
+        // Name of the table of the strings repeated across videos, each stored once.
+        public static final String TABLE_NAME = "dictionary";
+
+        // The string an id stands for.
+        public static final String COLUMN_VALUE = "value";
+    }
+
+    public static final class RelatedEntry {
+
+        public static final Uri CONTENT_URI =
+                BASE_CONTENT_URI.buildUpon().appendPath(PATH_RELATED).build();
+
+        public static final String CONTENT_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "." + PATH_RELATED;
+
+        // Name of the related videos table. Inserting into it replaces the whole index.
+        public static final String TABLE_NAME = "related";
+
+        // Column with the foreign key of the video the entry belongs to.
+        public static final String COLUMN_VIDEO_ID = "video_id";
+
+        // Column with the foreign key of the related video.
+        public static final String COLUMN_RELATED_ID = "related_id";
+
+        // How similar the related video is, higher is more similar.
+        public static final String COLUMN_SCORE = "score";
+
+        // Returns the Uri referencing the videos related to the video with the specified id.
+        public static Uri buildRelatedUri(long videoId) {
+            return ContentUris.withAppendedId(CONTENT_URI, videoId);
+        }
+    }
+
+    public static final class WatchHistoryEntry {
+
+        public static final Uri CONTENT_URI =
+                BASE_CONTENT_URI.buildUpon().appendPath(PATH_WATCH_HISTORY).build();
+
+        // The videos left unfinished, most recently watched first, as full video rows.
+        public static final Uri CONTINUE_WATCHING_URI =
+                CONTENT_URI.buildUpon().appendPath(PATH_CONTINUE_WATCHING).build();
+
+        public static final String CONTENT_TYPE = ContentResolver.CURSOR_DIR_BASE_TYPE + "/"
+                + CONTENT_AUTHORITY + "." + PATH_WATCH_HISTORY;
+
+        // Name of the watch history table. Inserting into it replaces the entry of the video.
+        public static final String TABLE_NAME = "watch_history";
+
+        // Column with the url of the video, which unlike its id survives the catalog being
+        // fetched again.
+        public static final String COLUMN_VIDEO_URL = "video_url";
+
+        // Where to resume the video from, in milliseconds, or 0 to start over.
+        public static final String COLUMN_POSITION = "position";
+
+        // The duration of the video, in milliseconds.
+        public static final String COLUMN_DURATION = "duration";
+
+        // When the video was last watched, in milliseconds since the epoch.
+        public static final String COLUMN_LAST_WATCHED = "last_watched";
+
+        // How much of the video was watched the last time, from 0 to 1.
+        public static final String COLUMN_PROGRESS = "progress";
+    }
+
+    public static final class RatingEntry {
+
+        public static final Uri CONTENT_URI =
+                BASE_CONTENT_URI.buildUpon().appendPath(PATH_RATING).build();
+
+        public static final String CONTENT_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "." + PATH_RATING;
+
+        // Name of the ratings table. Inserting into it replaces the rating of the video.
+        public static final String TABLE_NAME = "rating";
+
+        // Column with the url of the rated video.
+        public static final String COLUMN_VIDEO_URL = "video_url";
+
+        // The rating, one of the values below.
+        public static final String COLUMN_RATING = "rating";
+
+        // When the video was rated, in milliseconds since the epoch.
+        public static final String COLUMN_RATED_AT = "rated_at";
+
+        // Ratings of the videos.
+        public static final int RATING_NONE = 0;
+        public static final int RATING_THUMBS_UP = 1;
+        public static final int RATING_THUMBS_DOWN = -1;
+    }
+
+    public static final class RecommendedEntry {
+
+        public static final Uri CONTENT_URI =
+                BASE_CONTENT_URI.buildUpon().appendPath(PATH_RECOMMENDED).build();
+
+        public static final String CONTENT_TYPE = ContentResolver.CURSOR_DIR_BASE_TYPE + "/"
+                + CONTENT_AUTHORITY + "." + PATH_RECOMMENDED;
+
+        // Query parameter holding the number of videos of a recommended Uri.
+        public static final String QUERY_PARAMETER_LIMIT = "limit";
+
+        // Name of the table of precomputed recommendation scores. Inserting into it replaces all
+        // the scores.
+        public static final String TABLE_NAME = "recommended";
+
+        // Column with the foreign key of the recommended video.
+        public static final String COLUMN_VIDEO_ID = "video_id";
+
+        // How much the video is recommended, higher is better.
+        public static final String COLUMN_SCORE = "score";
+
+        // Returns the Uri referencing the best recommended videos, best first, as full video rows.
+        public static Uri buildRecommendedUri(int limit) {
+            return CONTENT_URI.buildUpon()
+                    .appendQueryParameter(QUERY_PARAMETER_LIMIT, Integer.toString(limit))
+                    .build();
+        }
     }
 }
@@ -18,6 +18,7 @@ package com.example.android.tvleanback.data;
 import android.content.ContentValues;
 import android.content.Context;
 import android.media.Rating;
+import android.net.Uri;
 import androidx.annotation.NonNull;
 import android.util.Log;
 
@@ -33,6 +34,7 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -50,6 +52,7 @@ public class VideoDbBuilder {
     public static final String TAG_CARD_THUMB = "card";
     public static final String TAG_BACKGROUND = "background";
     public static final String TAG_TITLE = "title";
+    public static final String TAG_CONTENT_TYPE = "content-type";
 
     private static final String TAG = "VideoDbBuilder";
 
@@ -108,6 +111,10 @@ public class VideoDbBuilder {
                 String bgImageUrl = video.optString(TAG_BACKGROUND);
                 String cardImageUrl = video.optString(TAG_CARD_THUMB);
                 String studio = video.optString(TAG_STUDIO);
+                String contentType = video.optString(TAG_CONTENT_TYPE, null);
+                if (contentType == null) {
+                    contentType = inferContentType(videoUrl);
+                }
 
                 ContentValues videoValues = new ContentValues();
                 videoValues.put(VideoContract.VideoEntry.COLUMN_CATEGORY, categoryName);
@@ -117,9 +124,9 @@ public class VideoDbBuilder {
                 videoValues.put(VideoContract.VideoEntry.COLUMN_CARD_IMG, cardImageUrl);
                 videoValues.put(VideoContract.VideoEntry.COLUMN_BG_IMAGE_URL, bgImageUrl);
                 videoValues.put(VideoContract.VideoEntry.COLUMN_STUDIO, studio);
+                videoValues.put(VideoContract.VideoEntry.COLUMN_CONTENT_TYPE, contentType);
 
                 // Fixed defaults.
-                videoValues.put(VideoContract.VideoEntry.COLUMN_CONTENT_TYPE, "video/mp4");
                 videoValues.put(VideoContract.VideoEntry.COLUMN_IS_LIVE, false);
                 videoValues.put(VideoContract.VideoEntry.COLUMN_AUDIO_CHANNEL_CONFIG, "2.0");
                 videoValues.put(VideoContract.VideoEntry.COLUMN_PRODUCTION_YEAR, 2014);
@@ -146,6 +153,23 @@ public class VideoDbBuilder {
         return videosToInsert;
     }
 
+    /**
+     * Guesses the content type of a video from its URL, for feeds that do not give it.
+     *
+     * @param videoUrl The URL of the video
+     * @return The content type of the video, progressive if it cannot be told
+     */
+    public static String inferContentType(String videoUrl) {
+        String path = Uri.parse(videoUrl).getLastPathSegment();
+        path = path == null ? "" : path.toLowerCase(Locale.US);
+        if (path.endsWith(".mpd")) {
+            return VideoContract.VideoEntry.CONTENT_TYPE_DASH;
+        } else if (path.endsWith(".m3u8")) {
+            return VideoContract.VideoEntry.CONTENT_TYPE_HLS;
+        }
+        return VideoContract.VideoEntry.CONTENT_TYPE_PROGRESSIVE;
+    }
+
     /**
      * Fetch JSON object from a given URL.
      *
@@ -16,11 +16,27 @@
 
 package com.example.android.tvleanback.data;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
 
+import com.example.android.tvleanback.data.VideoContract.DictionaryEntry;
+import com.example.android.tvleanback.data.VideoContract.RatingEntry;
+import com.example.android.tvleanback.data.VideoContract.RecommendedEntry;
+import com.example.android.tvleanback.data.VideoContract.RelatedEntry;
 import com.example.android.tvleanback.data.VideoContract.VideoEntry;
+import com.example.android.tvleanback.data.VideoContract.WatchHistoryEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * VideoDbHelper manages the creation and upgrade of the database used in this sample.
@@ -28,19 +44,261 @@ import com.example.android.tvleanback.data.VideoContract.VideoEntry;
 public class VideoDbHelper extends SQLiteOpenHelper {
 
     // Change this when you change the database schema.
-    private static final int DATABASE_VERSION = 4;
+    private static final int DATABASE_VERSION = 10;
 
     // The name of our database.
     private static final String DATABASE_NAME = "leanback.db";
 
+    private static final String TAG = "VideoDbHelper";
+
+    // An attached catalog, and its video view, are named after its generation, so the next one
+    // can be attached while the live one is still read.
+    private static final String CATALOG_SCHEMA_PREFIX = "catalog_";
+    private static final String VIDEO_VIEW_PREFIX = "video_";
+
+    private final CatalogGenerations mCatalog;
+    // Serializes swapping in new catalogs, and writes to the live catalog with them, without
+    // holding up opening the database.
+    private final Object mSwapLock = new Object();
+    // The generation of the catalog queries are pointed at, 0 until it is attached.
+    private volatile long mGeneration;
+
     public VideoDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        mCatalog = new CatalogGenerations(context);
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
-        // Create a table to hold videos.
-        final String SQL_CREATE_VIDEO_TABLE = "CREATE TABLE " + VideoEntry.TABLE_NAME + " (" +
+        // The videos are in the catalog, see createCatalog(). The tables that are there already
+        // are kept, see onUpgrade().
+
+        // Create a table to hold the precomputed related videos of each video.
+        final String SQL_CREATE_RELATED_TABLE = "CREATE TABLE IF NOT EXISTS " +
+                RelatedEntry.TABLE_NAME + " (" +
+                RelatedEntry.COLUMN_VIDEO_ID + " INTEGER NOT NULL, " +
+                RelatedEntry.COLUMN_RELATED_ID + " INTEGER NOT NULL, " +
+                RelatedEntry.COLUMN_SCORE + " REAL NOT NULL, " +
+                "PRIMARY KEY (" + RelatedEntry.COLUMN_VIDEO_ID + ", " +
+                RelatedEntry.COLUMN_RELATED_ID + ")" +
+                " );";
+
+        // Related videos are always read for one video, best match first.
+        final String SQL_CREATE_RELATED_INDEX =
+                "CREATE INDEX IF NOT EXISTS related_video_score ON " + RelatedEntry.TABLE_NAME +
+                " (" + RelatedEntry.COLUMN_VIDEO_ID + ", " + RelatedEntry.COLUMN_SCORE + " DESC);";
+
+        // Create a table to hold how far each video has been watched.
+        final String SQL_CREATE_WATCH_HISTORY_TABLE = "CREATE TABLE IF NOT EXISTS " +
+                WatchHistoryEntry.TABLE_NAME + " (" +
+                WatchHistoryEntry.COLUMN_VIDEO_URL + " TEXT PRIMARY KEY, " +
+                WatchHistoryEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                WatchHistoryEntry.COLUMN_DURATION + " INTEGER NOT NULL, " +
+                WatchHistoryEntry.COLUMN_LAST_WATCHED + " INTEGER NOT NULL, " +
+                WatchHistoryEntry.COLUMN_PROGRESS + " REAL NOT NULL DEFAULT 0" +
+                " );";
+
+        // Continue watching is read most recently watched first.
+        final String SQL_CREATE_WATCH_HISTORY_INDEX =
+                "CREATE INDEX IF NOT EXISTS watch_history_last_watched ON " +
+                WatchHistoryEntry.TABLE_NAME + " (" + WatchHistoryEntry.COLUMN_LAST_WATCHED +
+                " DESC);";
+
+        // Create a table to hold the thumbs up and down given to videos.
+        final String SQL_CREATE_RATING_TABLE = "CREATE TABLE IF NOT EXISTS " +
+                RatingEntry.TABLE_NAME + " (" +
+                RatingEntry.COLUMN_VIDEO_URL + " TEXT PRIMARY KEY, " +
+                RatingEntry.COLUMN_RATING + " INTEGER NOT NULL, " +
+                RatingEntry.COLUMN_RATED_AT + " INTEGER NOT NULL" +
+                " );";
+
+        // Create a table to hold the precomputed recommendation score of each video.
+        final String SQL_CREATE_RECOMMENDED_TABLE = "CREATE TABLE IF NOT EXISTS " +
+                RecommendedEntry.TABLE_NAME + " (" +
+                RecommendedEntry.COLUMN_VIDEO_ID + " INTEGER PRIMARY KEY, " +
+                RecommendedEntry.COLUMN_SCORE + " REAL NOT NULL" +
+                " );";
+
+        // Recommendations are always read best first, a few at a time.
+        final String SQL_CREATE_RECOMMENDED_INDEX =
+                "CREATE INDEX IF NOT EXISTS recommended_score ON " + RecommendedEntry.TABLE_NAME +
+                " (" + RecommendedEntry.COLUMN_SCORE + " DESC);";
+
+        // Do the creating of the databases.
+        db.execSQL(SQL_CREATE_RELATED_TABLE);
+        db.execSQL(SQL_CREATE_RELATED_INDEX);
+        db.execSQL(SQL_CREATE_WATCH_HISTORY_TABLE);
+        db.execSQL(SQL_CREATE_WATCH_HISTORY_INDEX);
+        db.execSQL(SQL_CREATE_RATING_TABLE);
+        db.execSQL(SQL_CREATE_RECOMMENDED_TABLE);
+        db.execSQL(SQL_CREATE_RECOMMENDED_INDEX);
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        // A database opened again has nothing attached.
+        mGeneration = 0;
+        attachCatalog(db, mCatalog.getLive());
+    }
+
+    // Another helper may have swapped the catalog since. The live generation is kept in memory,
+    // so telling is cheap.
+    @Override
+    public SQLiteDatabase getWritableDatabase() {
+        return attachLiveCatalog(super.getWritableDatabase());
+    }
+
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        return attachLiveCatalog(super.getReadableDatabase());
+    }
+
+    private SQLiteDatabase attachLiveCatalog(SQLiteDatabase db) {
+        // A database cannot be attached in a transaction, the caller's stays on the one it has.
+        if (mCatalog.getLive() != mGeneration && !db.inTransaction()) {
+            synchronized (mSwapLock) {
+                attachCatalog(db, mCatalog.getLive());
+            }
+        }
+        return db;
+    }
+
+    /**
+     * Returns the video view of the live catalog, to query in place of
+     * {@link VideoEntry#TABLE_NAME}, which it takes as its alias. A cursor of a query naming it
+     * reads the same catalog while it is read, even when a new one is swapped in meanwhile.
+     */
+    public String getVideoTable() {
+        getReadableDatabase();
+        return "temp." + VIDEO_VIEW_PREFIX + mGeneration + " AS " + VideoEntry.TABLE_NAME;
+    }
+
+    /** Returns the schema the live catalog is attached as, to write its tables through. */
+    public String getCatalogSchema() {
+        getReadableDatabase();
+        return CATALOG_SCHEMA_PREFIX + mGeneration;
+    }
+
+    /**
+     * Returns the lock to hold while writing to the live catalog, through
+     * {@link #getCatalogSchema}, asked for with the lock held. A new catalog is built from the live
+     * one as it was when the build started, so a write made meanwhile would be lost with the swap;
+     * holding the lock, writes wait for the build and then go to the new catalog.
+     */
+    public Object getCatalogWriteLock() {
+        return mSwapLock;
+    }
+
+    /**
+     * Builds a new catalog from all the videos there are and swaps it in for the live one, which
+     * readers keep using meanwhile. The catalog before is kept for {@link #rollbackCatalog}.
+     *
+     * @throws android.database.SQLException If the videos do not make a valid catalog, the live
+     *                                       one is left as it is then.
+     */
+    public void swapCatalog(ContentValues[] videos) {
+        SQLiteDatabase db = getWritableDatabase();
+        synchronized (mSwapLock) {
+            long generation = mCatalog.build(videos);
+            // Only made live once queries can read it.
+            try {
+                attachCatalog(db, generation);
+            } catch (RuntimeException e) {
+                mCatalog.discard(generation);
+                throw e;
+            }
+            mCatalog.commit(generation);
+        }
+    }
+
+    /** Swaps the catalog before the last swap back in, returns false if there is none. */
+    public boolean rollbackCatalog() {
+        SQLiteDatabase db = getWritableDatabase();
+        synchronized (mSwapLock) {
+            long previous = mCatalog.getPrevious();
+            if (previous == 0) {
+                return false;
+            }
+            attachCatalog(db, previous);
+            return mCatalog.rollback();
+        }
+    }
+
+    // Attaches a generation of the catalog with a video view of its own, and points queries at
+    // it. The generation queries were pointed at before stays attached, since cursors over its
+    // view are filled again as they are read; the ones before it are detached. A generation
+    // rolled back to may still be attached. Only called while the database is opened, or with
+    // the swap lock held.
+    private void attachCatalog(SQLiteDatabase db, long generation) {
+        if (generation == mGeneration) {
+            return;
+        }
+        String schema = CATALOG_SCHEMA_PREFIX + generation;
+        List<String> attached = getAttachedCatalogs(db);
+        boolean attaching = !attached.contains(schema);
+        if (attaching) {
+            db.execSQL("ATTACH DATABASE ? AS " + schema,
+                    new Object[]{mCatalog.getFile(generation).getPath()});
+        }
+        // Also when it is attached already, in case its view went with a failed detach.
+        try {
+            db.execSQL(buildVideoView(generation));
+        } catch (RuntimeException e) {
+            if (attaching) {
+                detachCatalog(db, schema);
+            }
+            throw e;
+        }
+        String current = CATALOG_SCHEMA_PREFIX + mGeneration;
+        for (String old : attached) {
+            if (!old.equals(schema) && !old.equals(current)) {
+                detachCatalog(db, old);
+            }
+        }
+        mGeneration = generation;
+    }
+
+    private static List<String> getAttachedCatalogs(SQLiteDatabase db) {
+        List<String> schemas = new ArrayList<>();
+        Cursor cursor = db.rawQuery("PRAGMA database_list", null);
+        try {
+            int name = cursor.getColumnIndexOrThrow("name");
+            while (cursor.moveToNext()) {
+                if (cursor.getString(name).startsWith(CATALOG_SCHEMA_PREFIX)) {
+                    schemas.add(cursor.getString(name));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return schemas;
+    }
+
+    private static void detachCatalog(SQLiteDatabase db, String schema) {
+        String generation = schema.substring(CATALOG_SCHEMA_PREFIX.length());
+        try {
+            db.execSQL("DETACH DATABASE " + schema);
+        } catch (SQLiteException e) {
+            // Still being read, it is detached with the next swap, and keeps its view until then.
+            Log.w(TAG, "Could not detach " + schema, e);
+            return;
+        }
+        db.execSQL("DROP VIEW IF EXISTS temp." + VIDEO_VIEW_PREFIX + generation);
+    }
+
+    /** Creates the tables of a catalog, whose indexes are created once it is filled. */
+    static void createCatalog(SQLiteDatabase db) {
+        // Create a table of the strings repeated across videos, so each is stored once.
+        final String SQL_CREATE_DICTIONARY_TABLE = "CREATE TABLE " +
+                DictionaryEntry.TABLE_NAME + " (" +
+                DictionaryEntry._ID + " INTEGER PRIMARY KEY," +
+                DictionaryEntry.COLUMN_VALUE + " TEXT UNIQUE NOT NULL" +
+                " );";
+
+        // Create a table to hold videos. Numbers are stored as numbers, so they take a few bytes
+        // and sort by value, and the columns in VideoDictionary as ids into the dictionary.
+        final String SQL_CREATE_VIDEO_TABLE = "CREATE TABLE " + VideoEntry.DATA_TABLE_NAME + " (" +
                 VideoEntry._ID + " INTEGER PRIMARY KEY," +
                 VideoEntry.COLUMN_CATEGORY + " TEXT NOT NULL, " +
                 VideoEntry.COLUMN_VIDEO_URL + " TEXT UNIQUE NOT NULL, " + // Make the URL unique.
@@ -49,34 +307,173 @@ public class VideoDbHelper extends SQLiteOpenHelper {
                 VideoEntry.COLUMN_BG_IMAGE_URL + " TEXT NOT NULL, " +
                 VideoEntry.COLUMN_STUDIO + " TEXT NOT NULL, " +
                 VideoEntry.COLUMN_CARD_IMG + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_CONTENT_TYPE + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_IS_LIVE + " INTEGER DEFAULT 0, " +
+                VideoEntry.COLUMN_CONTENT_TYPE + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_IS_LIVE + " INTEGER NOT NULL DEFAULT 0, " +
                 VideoEntry.COLUMN_VIDEO_WIDTH + " INTEGER NOT NULL, " +
                 VideoEntry.COLUMN_VIDEO_HEIGHT + " INTEGER NOT NULL, " +
-                VideoEntry.COLUMN_AUDIO_CHANNEL_CONFIG + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_PURCHASE_PRICE + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_RENTAL_PRICE + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_RATING_STYLE + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_RATING_SCORE + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_PRODUCTION_YEAR + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_DURATION + " TEXT NOT NULL, " +
-                VideoEntry.COLUMN_ACTION + " TEXT NOT NULL " +
+                VideoEntry.COLUMN_AUDIO_CHANNEL_CONFIG + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_PURCHASE_PRICE + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_RENTAL_PRICE + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_RATING_STYLE + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_RATING_SCORE + " REAL NOT NULL, " +
+                VideoEntry.COLUMN_PRODUCTION_YEAR + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_DURATION + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_ACTION + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_ADDED_AT + " INTEGER NOT NULL DEFAULT 0" +
                 " );";
 
-        // Do the creating of the databases.
+        db.execSQL(SQL_CREATE_DICTIONARY_TABLE);
         db.execSQL(SQL_CREATE_VIDEO_TABLE);
     }
 
+    // Videos are read from a view of the video table with the dictionary joined back in, so every
+    // column reads as it was written. The view is flattened into the queries on it, so they still
+    // use the indexes of the table, and a join is skipped when its column is not read. It is a
+    // temporary view, since only those can read from an attached database.
+    private static String buildVideoView(long generation) {
+        String schema = CATALOG_SCHEMA_PREFIX + generation;
+        String[] columns = {
+                VideoEntry._ID,
+                VideoEntry.COLUMN_CATEGORY,
+                VideoEntry.COLUMN_VIDEO_URL,
+                VideoEntry.COLUMN_NAME,
+                VideoEntry.COLUMN_DESC,
+                VideoEntry.COLUMN_BG_IMAGE_URL,
+                VideoEntry.COLUMN_STUDIO,
+                VideoEntry.COLUMN_CARD_IMG,
+                VideoEntry.COLUMN_CONTENT_TYPE,
+                VideoEntry.COLUMN_IS_LIVE,
+                VideoEntry.COLUMN_VIDEO_WIDTH,
+                VideoEntry.COLUMN_VIDEO_HEIGHT,
+                VideoEntry.COLUMN_AUDIO_CHANNEL_CONFIG,
+                VideoEntry.COLUMN_PURCHASE_PRICE,
+                VideoEntry.COLUMN_RENTAL_PRICE,
+                VideoEntry.COLUMN_RATING_STYLE,
+                VideoEntry.COLUMN_RATING_SCORE,
+                VideoEntry.COLUMN_PRODUCTION_YEAR,
+                VideoEntry.COLUMN_DURATION,
+                VideoEntry.COLUMN_ACTION,
+                VideoEntry.COLUMN_ADDED_AT
+        };
+        List<String> encoded = Arrays.asList(VideoDictionary.ENCODED_COLUMNS);
+
+        StringBuilder select = new StringBuilder();
+        StringBuilder from = new StringBuilder(schema).append('.')
+                .append(VideoEntry.DATA_TABLE_NAME).append(" AS ")
+                .append(VideoEntry.DATA_TABLE_NAME);
+        for (String column : columns) {
+            if (select.length() > 0) {
+                select.append(", ");
+            }
+            if (encoded.contains(column)) {
+                String alias = "dictionary_" + column;
+                select.append(alias).append('.').append(DictionaryEntry.COLUMN_VALUE);
+                from.append(" LEFT JOIN ").append(schema).append('.')
+                        .append(DictionaryEntry.TABLE_NAME).append(" AS ")
+                        .append(alias).append(" ON ").append(alias).append('.')
+                        .append(DictionaryEntry._ID).append(" = ")
+                        .append(VideoEntry.DATA_TABLE_NAME).append('.').append(column);
+            } else {
+                select.append(VideoEntry.DATA_TABLE_NAME).append('.').append(column);
+            }
+            select.append(" AS ").append(column);
+        }
+        return "CREATE TEMP VIEW IF NOT EXISTS " + VIDEO_VIEW_PREFIX + generation + " AS SELECT "
+                + select + " FROM " + from + ";";
+    }
+
+    // The grid pages through the videos in each sort order, of all videos, of one category or
+    // studio, or of the live videos. Every order has an index on its key for each, ending with the
+    // id that breaks ties, so that a page is a range of an index and never needs sorting. Live
+    // videos are few, and their index holds only them.
+    static void createSortIndexes(SQLiteDatabase db) {
+        String[][] sortKeys = {
+                {VideoEntry.SORT_TITLE, VideoEntry.COLUMN_NAME + " COLLATE NOCASE"},
+                {VideoEntry.SORT_YEAR, VideoEntry.COLUMN_PRODUCTION_YEAR},
+                {VideoEntry.SORT_RATING, VideoEntry.COLUMN_RATING_SCORE},
+                {VideoEntry.SORT_ADDED, VideoEntry.COLUMN_ADDED_AT}
+        };
+        for (String[] sortKey : sortKeys) {
+            db.execSQL("CREATE INDEX video_" + sortKey[0] + " ON " + VideoEntry.DATA_TABLE_NAME +
+                    " (" + sortKey[1] + ", " + VideoEntry._ID + ");");
+            db.execSQL("CREATE INDEX video_category_" + sortKey[0] + " ON " +
+                    VideoEntry.DATA_TABLE_NAME + " (" + VideoEntry.COLUMN_CATEGORY + ", " +
+                    sortKey[1] + ", " + VideoEntry._ID + ");");
+            db.execSQL("CREATE INDEX video_studio_" + sortKey[0] + " ON " +
+                    VideoEntry.DATA_TABLE_NAME + " (" + VideoEntry.COLUMN_STUDIO + ", " +
+                    sortKey[1] + ", " + VideoEntry._ID + ");");
+            db.execSQL("CREATE INDEX video_live_" + sortKey[0] + " ON " +
+                    VideoEntry.DATA_TABLE_NAME + " (" + sortKey[1] + ", " + VideoEntry._ID +
+                    ") WHERE " + VideoEntry.COLUMN_IS_LIVE + " = 1;");
+        }
+    }
+
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Simply discard all old data and start over when upgrading.
-        db.execSQL("DROP TABLE IF EXISTS " + VideoEntry.TABLE_NAME);
+        // The watch history and the ratings are kept, and are keyed by url so they hold across
+        // catalogs. The videos move to a catalog of their own with the ids they had. The tables
+        // computed from the videos are dropped, and computed again with the next sync.
+        ContentValues[] videos = dropMainVideos(db);
+        db.execSQL("DROP TABLE IF EXISTS " + RelatedEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + RecommendedEntry.TABLE_NAME);
+        if (oldVersion == 6) {
+            // How much was watched came with version 7.
+            db.execSQL("ALTER TABLE " + WatchHistoryEntry.TABLE_NAME + " ADD COLUMN " +
+                    WatchHistoryEntry.COLUMN_PROGRESS + " REAL NOT NULL DEFAULT 0");
+        }
         onCreate(db);
+
+        try {
+            mCatalog.replace(videos);
+        } catch (SQLException e) {
+            // The next sync brings the videos back, with new ids.
+            Log.w(TAG, "Could not migrate the catalog, starting from an empty one", e);
+            mCatalog.reset();
+        }
     }
 
     @Override
     public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Do the same thing as upgrading...
-        onUpgrade(db, oldVersion, newVersion);
+        // Simply discard all data and start over, the tables of a newer version are unknown.
+        dropMainVideos(db);
+        db.execSQL("DROP TABLE IF EXISTS " + RelatedEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + WatchHistoryEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + RatingEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + RecommendedEntry.TABLE_NAME);
+        onCreate(db);
+        mCatalog.reset();
+    }
+
+    // Drops the videos of the versions before the catalog from the main database, and returns
+    // them. The videos were a table and then a view, and dropping one as the other fails.
+    private static ContentValues[] dropMainVideos(SQLiteDatabase db) {
+        String type = null;
+        Cursor cursor = db.rawQuery("SELECT type FROM main.sqlite_master WHERE name = ?",
+                new String[]{VideoEntry.TABLE_NAME});
+        try {
+            if (cursor.moveToFirst()) {
+                type = cursor.getString(0).toUpperCase(Locale.US);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        List<ContentValues> videos = new ArrayList<>();
+        if (type != null) {
+            cursor = db.rawQuery("SELECT * FROM main." + VideoEntry.TABLE_NAME, null);
+            try {
+                while (cursor.moveToNext()) {
+                    ContentValues video = new ContentValues();
+                    DatabaseUtils.cursorRowToContentValues(cursor, video);
+                    videos.add(video);
+                }
+            } finally {
+                cursor.close();
+            }
+            db.execSQL("DROP " + type + " main." + VideoEntry.TABLE_NAME);
+        }
+        db.execSQL("DROP TABLE IF EXISTS main." + VideoEntry.DATA_TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS main." + DictionaryEntry.TABLE_NAME);
+        return videos.toArray(new ContentValues[videos.size()]);
     }
 }
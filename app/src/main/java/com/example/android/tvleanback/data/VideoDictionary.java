@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+
+import com.example.android.tvleanback.data.VideoContract.DictionaryEntry;
+import com.example.android.tvleanback.data.VideoContract.VideoEntry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns the values of a video into the row stored in {@link VideoEntry#DATA_TABLE_NAME}, where
+ * the strings that only take a handful of values across the catalog are stored as ids into the
+ * dictionary table. The video view joins them back, so they read as they were written.
+ * <p>
+ * An instance remembers the ids it looked up, and should only be used within one transaction:
+ * the strings it added are gone if the transaction is rolled back.
+ */
+final class VideoDictionary {
+
+    // The columns stored as ids into the dictionary. The category and the studio are not, since
+    // the grid filters on them with indexes led by them.
+    static final String[] ENCODED_COLUMNS = {
+            VideoEntry.COLUMN_CONTENT_TYPE,
+            VideoEntry.COLUMN_AUDIO_CHANNEL_CONFIG,
+            VideoEntry.COLUMN_PURCHASE_PRICE,
+            VideoEntry.COLUMN_RENTAL_PRICE,
+            VideoEntry.COLUMN_ACTION
+    };
+
+    private final SQLiteDatabase mDb;
+    private final String mTable;
+    private final Map<String, Long> mIds = new HashMap<>();
+
+    /** Creates a dictionary of the catalog attached to the database as the schema given. */
+    VideoDictionary(SQLiteDatabase db, String schema) {
+        mDb = db;
+        mTable = schema + "." + DictionaryEntry.TABLE_NAME;
+    }
+
+    /** Returns the values to write to the data table, adding the strings that are new. */
+    ContentValues encode(ContentValues video) {
+        ContentValues encoded = null;
+        for (String column : ENCODED_COLUMNS) {
+            if (!video.containsKey(column)) {
+                continue;
+            }
+            if (encoded == null) {
+                encoded = new ContentValues(video);
+            }
+            String value = video.getAsString(column);
+            if (value == null) {
+                encoded.putNull(column);
+            } else {
+                encoded.put(column, getId(value));
+            }
+        }
+        return encoded != null ? encoded : video;
+    }
+
+    private long getId(String value) {
+        Long id = mIds.get(value);
+        if (id == null) {
+            try {
+                id = DatabaseUtils.longForQuery(mDb, "SELECT " + DictionaryEntry._ID + " FROM "
+                        + mTable + " WHERE " + DictionaryEntry.COLUMN_VALUE
+                        + " = ?", new String[]{value});
+            } catch (SQLiteDoneException e) {
+                ContentValues entry = new ContentValues();
+                entry.put(DictionaryEntry.COLUMN_VALUE, value);
+                id = mDb.insertOrThrow(mTable, null, entry);
+            }
+            mIds.put(value, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.net.Uri;
+
+import com.example.android.tvleanback.data.VideoContract.VideoEntry;
+
+/**
+ * Builds the query of a page of videos, as referenced by {@link VideoEntry#buildPageUri}.
+ * <p>
+ * Pages are found by keyset: a page starts right after the sort key and id of the last video of
+ * the page before, which is looked up by its id. Every sort order has an index on its key and the
+ * id, one led by the category and one led by the studio for filtering on either, and one of the
+ * live videos only, so a page is a range of an index read in order and never needs sorting. Few
+ * videos match a filter, and walking the index of all videos to find them would read most of it.
+ */
+public final class VideoPageQuery {
+
+    private VideoPageQuery() {
+    }
+
+    /**
+     * Returns the SQL of a page Uri.
+     *
+     * @param table The videos to page through, see {@link VideoDbHelper#getVideoTable}.
+     * @throws IllegalArgumentException If the Uri has an unknown sort order or filter, or no
+     *                                  valid limit.
+     */
+    public static String buildSql(Uri uri, String[] projection, String table) {
+        long afterId;
+        String limit;
+        try {
+            afterId = Long.parseLong(uri.getQueryParameter(VideoEntry.QUERY_PARAMETER_AFTER));
+            limit = Integer.toString(Integer.parseInt(
+                    uri.getQueryParameter(VideoEntry.QUERY_PARAMETER_LIMIT)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page in uri: " + uri);
+        }
+
+        String sort = uri.getQueryParameter(VideoEntry.QUERY_PARAMETER_SORT);
+        String column = getSortColumn(sort);
+        String key = getSortKey(sort);
+        boolean descending = !VideoEntry.SORT_TITLE.equals(sort);
+        String id = VideoEntry._ID;
+
+        StringBuilder where = new StringBuilder();
+        String filter = uri.getQueryParameter(VideoEntry.QUERY_PARAMETER_FILTER);
+        if (filter != null) {
+            if (!VideoEntry.FILTER_CATEGORY.equals(filter)
+                    && !VideoEntry.FILTER_STUDIO.equals(filter)
+                    && !VideoEntry.FILTER_LIVE.equals(filter)) {
+                throw new IllegalArgumentException("Invalid filter in uri: " + uri);
+            }
+            if (key == null) {
+                // In id order, the index of a category would need sorting.
+                throw new IllegalArgumentException("Filtered page without a sort in uri: " + uri);
+            }
+            String value = uri.getQueryParameter(VideoEntry.QUERY_PARAMETER_FILTER_VALUE);
+            where.append(filter).append(" = ");
+            if (VideoEntry.FILTER_LIVE.equals(filter)) {
+                // Compared as a number, or the index of live videos does not apply.
+                try {
+                    where.append(Long.parseLong(value));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid filter value in uri: " + uri);
+                }
+            } else {
+                where.append(DatabaseUtils.sqlEscapeString(value != null ? value : ""));
+            }
+        }
+
+        String orderBy;
+        if (key == null) {
+            if (afterId > 0) {
+                where.append(id).append(" > ").append(afterId);
+            }
+            orderBy = id;
+        } else {
+            String direction = descending ? " DESC" : " ASC";
+            if (afterId > 0) {
+                String op = descending ? "<" : ">";
+                String afterKey = "(SELECT " + column + " FROM " + table
+                        + " WHERE " + id + " = " + afterId + ")";
+                if (where.length() > 0) {
+                    where.append(" AND ");
+                }
+                // The first term is the range of the index. The id is compared with a unary plus,
+                // so that the second term is only checked and not turned into a second range.
+                where.append(key).append(' ').append(op).append("= ").append(afterKey)
+                        .append(" AND (").append(key).append(' ').append(op).append(' ')
+                        .append(afterKey).append(" OR +").append(id).append(' ').append(op)
+                        .append(' ').append(afterId).append(')');
+            }
+            orderBy = key + direction + ", " + id + direction;
+        }
+
+        return SQLiteQueryBuilder.buildQueryString(false, table, projection,
+                where.length() > 0 ? where.toString() : null, null, null, orderBy, limit);
+    }
+
+    // Returns the column a sort order is by, or null for id order.
+    private static String getSortColumn(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        switch (sort) {
+            case VideoEntry.SORT_TITLE:
+                return VideoEntry.COLUMN_NAME;
+            case VideoEntry.SORT_YEAR:
+                return VideoEntry.COLUMN_PRODUCTION_YEAR;
+            case VideoEntry.SORT_RATING:
+                return VideoEntry.COLUMN_RATING_SCORE;
+            case VideoEntry.SORT_ADDED:
+                return VideoEntry.COLUMN_ADDED_AT;
+            default:
+                throw new IllegalArgumentException("Invalid sort: " + sort);
+        }
+    }
+
+    // Returns the expression a sort order compares, which its indexes are on.
+    private static String getSortKey(String sort) {
+        String column = getSortColumn(sort);
+        if (VideoEntry.SORT_TITLE.equals(sort)) {
+            return column + " COLLATE NOCASE";
+        }
+        return column;
+    }
+}
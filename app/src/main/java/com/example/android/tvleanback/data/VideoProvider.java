@@ -19,6 +19,7 @@ package com.example.android.tvleanback.data;
 import android.app.SearchManager;
 import android.content.ContentProvider;
 import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.UriMatcher;
@@ -27,9 +28,16 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
+import android.os.Bundle;
+import android.text.TextUtils;
 import androidx.annotation.NonNull;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 /**
  * VideoProvider is a ContentProvider that provides videos for the rest of applications.
@@ -43,11 +51,36 @@ public class VideoProvider extends ContentProvider {
     private static final int VIDEO_WITH_CATEGORY = 2;
     private static final int SEARCH_SUGGEST = 3;
     private static final int REFRESH_SHORTCUT = 4;
+    private static final int RELATED = 5;
+    private static final int RELATED_WITH_VIDEO_ID = 6;
+    private static final int VIDEO_WITH_ID = 7;
+    private static final int VIDEO_BATCH = 8;
+    private static final int WATCH_HISTORY = 9;
+    private static final int CONTINUE_WATCHING = 10;
+    private static final int VIDEO_SAMPLE = 11;
+    private static final int RATING = 12;
+    private static final int RECOMMENDED = 13;
+    private static final int VIDEO_PAGE = 14;
+    private static final int CATALOG = 15;
+
+    // The permission the provider is declared with, prefixed by the package name. It does not
+    // guard call(), which checks it itself.
+    private static final String ACCESS_VIDEO_DATA_PERMISSION = ".ACCESS_VIDEO_DATA";
+
+    // How many random rows in a row may turn up no video to sample before giving up on variety.
+    private static final int SAMPLE_ATTEMPTS = 16;
+
+    // The number of videos in continue watching.
+    private static final String CONTINUE_WATCHING_LIMIT = "20";
 
-    private static final SQLiteQueryBuilder sVideosContainingQueryBuilder;
     private static final String[] sVideosContainingQueryColumns;
     private static final HashMap<String, String> sColumnMap = buildColumnMap();
+    private static final String sRelatedVideosJoin;
+    private static final String sContinueWatchingJoin;
+    private static final String sRecommendedVideosJoin;
+    private static final String[] sContinueWatchingColumns;
     private ContentResolver mContentResolver;
+    private final Random mRandom = new Random();
 
     @Override
     public boolean onCreate() {
@@ -58,9 +91,6 @@ public class VideoProvider extends ContentProvider {
     }
 
     static {
-        sVideosContainingQueryBuilder = new SQLiteQueryBuilder();
-        sVideosContainingQueryBuilder.setTables(VideoContract.VideoEntry.TABLE_NAME);
-        sVideosContainingQueryBuilder.setProjectionMap(sColumnMap);
         sVideosContainingQueryColumns = new String[]{
                 VideoContract.VideoEntry._ID,
                 VideoContract.VideoEntry.COLUMN_NAME,
@@ -84,6 +114,34 @@ public class VideoProvider extends ContentProvider {
                 VideoContract.VideoEntry.COLUMN_ACTION,
                 SearchManager.SUGGEST_COLUMN_INTENT_DATA_ID
         };
+
+        // The videos are joined from the view of the live catalog, see getVideoTable(), under the
+        // name of the video table.
+
+        // Related videos are returned as full video rows, joined through the related index.
+        sRelatedVideosJoin = VideoContract.RelatedEntry.TABLE_NAME + " INNER JOIN %s ON "
+                + VideoContract.RelatedEntry.TABLE_NAME + "."
+                + VideoContract.RelatedEntry.COLUMN_RELATED_ID + " = "
+                + VideoContract.VideoEntry.TABLE_NAME + "." + VideoContract.VideoEntry._ID;
+
+        // Continue watching returns full video rows, joined through the watch history. Both tables
+        // have a video url column, so only the one of the video is returned.
+        sContinueWatchingJoin = VideoContract.WatchHistoryEntry.TABLE_NAME + " INNER JOIN %s ON "
+                + VideoContract.WatchHistoryEntry.TABLE_NAME + "."
+                + VideoContract.WatchHistoryEntry.COLUMN_VIDEO_URL + " = "
+                + VideoContract.VideoEntry.TABLE_NAME + "."
+                + VideoContract.VideoEntry.COLUMN_VIDEO_URL;
+        // Recommended videos are returned as full video rows, joined through the scores.
+        sRecommendedVideosJoin = VideoContract.RecommendedEntry.TABLE_NAME + " INNER JOIN %s ON "
+                + VideoContract.RecommendedEntry.TABLE_NAME + "."
+                + VideoContract.RecommendedEntry.COLUMN_VIDEO_ID + " = "
+                + VideoContract.VideoEntry.TABLE_NAME + "." + VideoContract.VideoEntry._ID;
+
+        sContinueWatchingColumns = new String[]{
+                VideoContract.VideoEntry.TABLE_NAME + ".*",
+                VideoContract.WatchHistoryEntry.COLUMN_POSITION,
+                VideoContract.WatchHistoryEntry.COLUMN_DURATION
+        };
     }
 
     static UriMatcher buildUriMatcher() {
@@ -91,8 +149,25 @@ public class VideoProvider extends ContentProvider {
         final String authority = VideoContract.CONTENT_AUTHORITY;
 
         // For each type of URI to add, create a corresponding code.
+        // Order matters, the first pattern matching a path segment wins.
         matcher.addURI(authority, VideoContract.PATH_VIDEO, VIDEO);
+        matcher.addURI(authority, VideoContract.PATH_VIDEO + "/" + VideoContract.PATH_BATCH,
+                VIDEO_BATCH);
+        matcher.addURI(authority, VideoContract.PATH_VIDEO + "/" + VideoContract.PATH_SAMPLE,
+                VIDEO_SAMPLE);
+        matcher.addURI(authority, VideoContract.PATH_VIDEO + "/" + VideoContract.PATH_PAGE,
+                VIDEO_PAGE);
+        matcher.addURI(authority, VideoContract.PATH_VIDEO + "/" + VideoContract.PATH_CATALOG,
+                CATALOG);
+        matcher.addURI(authority, VideoContract.PATH_VIDEO + "/#", VIDEO_WITH_ID);
         matcher.addURI(authority, VideoContract.PATH_VIDEO + "/*", VIDEO_WITH_CATEGORY);
+        matcher.addURI(authority, VideoContract.PATH_RELATED, RELATED);
+        matcher.addURI(authority, VideoContract.PATH_RELATED + "/#", RELATED_WITH_VIDEO_ID);
+        matcher.addURI(authority, VideoContract.PATH_WATCH_HISTORY, WATCH_HISTORY);
+        matcher.addURI(authority, VideoContract.PATH_WATCH_HISTORY + "/"
+                + VideoContract.PATH_CONTINUE_WATCHING, CONTINUE_WATCHING);
+        matcher.addURI(authority, VideoContract.PATH_RATING, RATING);
+        matcher.addURI(authority, VideoContract.PATH_RECOMMENDED, RECOMMENDED);
 
         // Search related URIs.
         matcher.addURI(authority, "search/" + SearchManager.SUGGEST_URI_PATH_QUERY, SEARCH_SUGGEST);
@@ -100,9 +175,17 @@ public class VideoProvider extends ContentProvider {
         return matcher;
     }
 
+    // Returns the view of the videos of the live catalog, to query in place of the video table.
+    private String getVideoTable() {
+        return mOpenHelper.getVideoTable();
+    }
+
     private Cursor getSuggestions(String query) {
         query = query.toLowerCase();
-        return sVideosContainingQueryBuilder.query(
+        SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
+        queryBuilder.setTables(getVideoTable());
+        queryBuilder.setProjectionMap(sColumnMap);
+        return queryBuilder.query(
                 mOpenHelper.getReadableDatabase(),
                 sVideosContainingQueryColumns,
                 VideoContract.VideoEntry.COLUMN_NAME + " LIKE ? OR " +
@@ -154,6 +237,117 @@ public class VideoProvider extends ContentProvider {
         return map;
     }
 
+    // Returns the ids of a batch Uri as a list that is safe to put into SQL.
+    private static String parseIds(Uri uri) {
+        String ids = uri.getQueryParameter(VideoContract.VideoEntry.QUERY_PARAMETER_IDS);
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("No ids in uri: " + uri);
+        }
+
+        StringBuilder idList = new StringBuilder();
+        for (String id : ids.split(",")) {
+            if (idList.length() > 0) {
+                idList.append(',');
+            }
+            try {
+                idList.append(Long.parseLong(id.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id " + id + " in uri: " + uri);
+            }
+        }
+        return idList.toString();
+    }
+
+    /**
+     * Picks random videos without sorting or scanning the table. Each video is the first one with
+     * an id at or after a random id between the smallest and the largest, found through the
+     * primary key, so a video after a gap in the ids is a little more likely to be picked. When
+     * by category, a video of a category already picked is tried again; once a run of tries
+     * turns up no new category, any video not picked yet will do. If the tries still come up
+     * short, which only happens when nearly the whole table is asked for, the rest are read on in
+     * id order from a random id.
+     *
+     * @return The ids of the videos, as a list that is safe to put into SQL.
+     */
+    private String sampleIds(Uri uri) {
+        int count;
+        try {
+            count = Integer.parseInt(
+                    uri.getQueryParameter(VideoContract.VideoEntry.QUERY_PARAMETER_COUNT));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid count in uri: " + uri);
+        }
+        boolean byCategory = Boolean.parseBoolean(
+                uri.getQueryParameter(VideoContract.VideoEntry.QUERY_PARAMETER_BY_CATEGORY));
+
+        SQLiteDatabase db = mOpenHelper.getReadableDatabase();
+        // Only the stored columns are read, straight from the table.
+        String table = mOpenHelper.getCatalogSchema() + "."
+                + VideoContract.VideoEntry.DATA_TABLE_NAME;
+        String id = VideoContract.VideoEntry._ID;
+        long minId;
+        long maxId;
+        // Both read from the ends of the primary key.
+        Cursor range = db.rawQuery("SELECT MIN(" + id + "), MAX(" + id + ") FROM " + table, null);
+        try {
+            if (!range.moveToFirst() || range.isNull(0)) {
+                return "";
+            }
+            minId = range.getLong(0);
+            maxId = range.getLong(1);
+        } finally {
+            range.close();
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Set<String> categories = new HashSet<>();
+        String probe = "SELECT " + id + ", " + VideoContract.VideoEntry.COLUMN_CATEGORY
+                + " FROM " + table + " WHERE " + id + " >= ? ORDER BY " + id + " LIMIT 1";
+        boolean distinctCategories = byCategory;
+        int misses = 0;
+        while (ids.size() < count && misses < SAMPLE_ATTEMPTS) {
+            long from = minId + (long) (mRandom.nextDouble() * (maxId - minId + 1));
+            Cursor cursor = db.rawQuery(probe, new String[]{Long.toString(from)});
+            try {
+                if (!cursor.moveToFirst() || ids.contains(cursor.getLong(0))
+                        || (distinctCategories && categories.contains(cursor.getString(1)))) {
+                    misses++;
+                    if (misses == SAMPLE_ATTEMPTS && distinctCategories) {
+                        // Out of categories, any video not picked yet will do.
+                        distinctCategories = false;
+                        misses = 0;
+                    }
+                    continue;
+                }
+                misses = 0;
+                ids.add(cursor.getLong(0));
+                categories.add(cursor.getString(1));
+            } finally {
+                cursor.close();
+            }
+        }
+
+        if (ids.size() < count) {
+            // Read on from a random id, then from the start, skipping the videos picked already.
+            long from = minId + (long) (mRandom.nextDouble() * (maxId - minId + 1));
+            for (String bound : new String[]{" >= ?", " < ?"}) {
+                Cursor cursor = db.rawQuery("SELECT " + id + " FROM " + table + " WHERE " + id
+                        + bound + " AND " + id + " NOT IN (" + TextUtils.join(",", ids)
+                        + ") ORDER BY " + id + " LIMIT " + (count - ids.size()),
+                        new String[]{Long.toString(from)});
+                try {
+                    while (cursor.moveToNext()) {
+                        ids.add(cursor.getLong(0));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+        }
+
+        return TextUtils.join(",", ids);
+    }
+
     @Override
     public Cursor query(@NonNull Uri uri, String[] projection, String selection,
             String[] selectionArgs, String sortOrder) {
@@ -169,7 +363,133 @@ public class VideoProvider extends ContentProvider {
             }
             case VIDEO: {
                 retCursor = mOpenHelper.getReadableDatabase().query(
-                        VideoContract.VideoEntry.TABLE_NAME,
+                        getVideoTable(),
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder
+                );
+                break;
+            }
+            case VIDEO_WITH_ID: {
+                // Primary key lookup.
+                SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
+                queryBuilder.setTables(getVideoTable());
+                queryBuilder.appendWhere(VideoContract.VideoEntry._ID + " = "
+                        + ContentUris.parseId(uri));
+                retCursor = queryBuilder.query(
+                        mOpenHelper.getReadableDatabase(),
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder
+                );
+                break;
+            }
+            case VIDEO_BATCH: {
+                // Primary key lookup of many videos at once, returned in id order.
+                if (sortOrder == null) {
+                    sortOrder = VideoContract.VideoEntry._ID;
+                }
+                SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
+                queryBuilder.setTables(getVideoTable());
+                queryBuilder.appendWhere(VideoContract.VideoEntry._ID + " IN ("
+                        + parseIds(uri) + ")");
+                retCursor = queryBuilder.query(
+                        mOpenHelper.getReadableDatabase(),
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder
+                );
+                break;
+            }
+            case VIDEO_SAMPLE: {
+                SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
+                queryBuilder.setTables(getVideoTable());
+                queryBuilder.appendWhere(VideoContract.VideoEntry._ID + " IN ("
+                        + sampleIds(uri) + ")");
+                retCursor = queryBuilder.query(
+                        mOpenHelper.getReadableDatabase(),
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder
+                );
+                break;
+            }
+            case VIDEO_PAGE: {
+                // Paged by keyset, every page is a range of an index. Pages are only narrowed
+                // through the uri, the selection is not used.
+                retCursor = mOpenHelper.getReadableDatabase().rawQuery(
+                        VideoPageQuery.buildSql(uri, projection, getVideoTable()), null);
+                break;
+            }
+            case RELATED_WITH_VIDEO_ID: {
+                if (sortOrder == null) {
+                    sortOrder = VideoContract.RelatedEntry.COLUMN_SCORE + " DESC";
+                }
+                SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
+                queryBuilder.setTables(String.format(sRelatedVideosJoin, getVideoTable()));
+                queryBuilder.appendWhere(VideoContract.RelatedEntry.COLUMN_VIDEO_ID + " = "
+                        + ContentUris.parseId(uri));
+                retCursor = queryBuilder.query(
+                        mOpenHelper.getReadableDatabase(),
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder
+                );
+                break;
+            }
+            case WATCH_HISTORY: {
+                retCursor = mOpenHelper.getReadableDatabase().query(
+                        VideoContract.WatchHistoryEntry.TABLE_NAME,
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder
+                );
+                break;
+            }
+            case CONTINUE_WATCHING: {
+                // Served from the index on the last watched time, finished videos are skipped.
+                if (projection == null) {
+                    projection = sContinueWatchingColumns;
+                }
+                if (sortOrder == null) {
+                    sortOrder = VideoContract.WatchHistoryEntry.COLUMN_LAST_WATCHED + " DESC";
+                }
+                SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
+                queryBuilder.setTables(String.format(sContinueWatchingJoin, getVideoTable()));
+                queryBuilder.appendWhere(VideoContract.WatchHistoryEntry.COLUMN_POSITION + " > 0");
+                retCursor = queryBuilder.query(
+                        mOpenHelper.getReadableDatabase(),
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder,
+                        CONTINUE_WATCHING_LIMIT
+                );
+                break;
+            }
+            case RATING: {
+                retCursor = mOpenHelper.getReadableDatabase().query(
+                        VideoContract.RatingEntry.TABLE_NAME,
                         projection,
                         selection,
                         selectionArgs,
@@ -179,6 +499,34 @@ public class VideoProvider extends ContentProvider {
                 );
                 break;
             }
+            case RECOMMENDED: {
+                // Served from the index on the score, so only the rows returned are read.
+                if (sortOrder == null) {
+                    sortOrder = VideoContract.RecommendedEntry.COLUMN_SCORE + " DESC";
+                }
+                String limit = uri.getQueryParameter(
+                        VideoContract.RecommendedEntry.QUERY_PARAMETER_LIMIT);
+                if (limit != null) {
+                    try {
+                        limit = Integer.toString(Integer.parseInt(limit));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid limit in uri: " + uri);
+                    }
+                }
+                SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
+                queryBuilder.setTables(String.format(sRecommendedVideosJoin, getVideoTable()));
+                retCursor = queryBuilder.query(
+                        mOpenHelper.getReadableDatabase(),
+                        projection,
+                        selection,
+                        selectionArgs,
+                        null,
+                        null,
+                        sortOrder,
+                        limit
+                );
+                break;
+            }
             default: {
                 throw new UnsupportedOperationException("Unknown uri: " + uri);
             }
@@ -196,6 +544,28 @@ public class VideoProvider extends ContentProvider {
                 return VideoContract.VideoEntry.CONTENT_TYPE;
             case VIDEO:
                 return VideoContract.VideoEntry.CONTENT_TYPE;
+            case VIDEO_WITH_ID:
+                return VideoContract.VideoEntry.CONTENT_ITEM_TYPE;
+            case VIDEO_BATCH:
+                return VideoContract.VideoEntry.CONTENT_TYPE;
+            case VIDEO_SAMPLE:
+                return VideoContract.VideoEntry.CONTENT_TYPE;
+            case VIDEO_PAGE:
+                return VideoContract.VideoEntry.CONTENT_TYPE;
+            case CATALOG:
+                return VideoContract.VideoEntry.CONTENT_TYPE;
+            case RELATED:
+                return VideoContract.RelatedEntry.CONTENT_TYPE;
+            case RELATED_WITH_VIDEO_ID:
+                return VideoContract.VideoEntry.CONTENT_TYPE;
+            case WATCH_HISTORY:
+                return VideoContract.WatchHistoryEntry.CONTENT_TYPE;
+            case CONTINUE_WATCHING:
+                return VideoContract.VideoEntry.CONTENT_TYPE;
+            case RATING:
+                return VideoContract.RatingEntry.CONTENT_TYPE;
+            case RECOMMENDED:
+                return VideoContract.VideoEntry.CONTENT_TYPE;
 
             // The Android TV global search is querying our app for relevant content.
             case SEARCH_SUGGEST:
@@ -216,8 +586,25 @@ public class VideoProvider extends ContentProvider {
 
         switch (match) {
             case VIDEO: {
-                long _id = mOpenHelper.getWritableDatabase().insert(
-                        VideoContract.VideoEntry.TABLE_NAME, null, values);
+                if (!values.containsKey(VideoContract.VideoEntry.COLUMN_ADDED_AT)) {
+                    values = new ContentValues(values);
+                    values.put(VideoContract.VideoEntry.COLUMN_ADDED_AT,
+                            System.currentTimeMillis());
+                }
+                SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+                long _id;
+                // Waits for a catalog being built, see VideoDbHelper#getCatalogWriteLock().
+                synchronized (mOpenHelper.getCatalogWriteLock()) {
+                    String catalog = mOpenHelper.getCatalogSchema();
+                    db.beginTransaction();
+                    try {
+                        _id = db.insert(catalog + "." + VideoContract.VideoEntry.DATA_TABLE_NAME,
+                                null, new VideoDictionary(db, catalog).encode(values));
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                }
                 if (_id > 0) {
                     returnUri = VideoContract.VideoEntry.buildVideoUri(_id);
                 } else {
@@ -225,6 +612,18 @@ public class VideoProvider extends ContentProvider {
                 }
                 break;
             }
+            case RATING: {
+                // A new rating of a video replaces the old one.
+                long _id = mOpenHelper.getWritableDatabase().insertWithOnConflict(
+                        VideoContract.RatingEntry.TABLE_NAME, null, values,
+                        SQLiteDatabase.CONFLICT_REPLACE);
+                if (_id > 0) {
+                    returnUri = ContentUris.withAppendedId(uri, _id);
+                } else {
+                    throw new SQLException("Failed to insert row into " + uri);
+                }
+                break;
+            }
             default: {
                 throw new UnsupportedOperationException("Unknown uri: " + uri);
             }
@@ -244,8 +643,20 @@ public class VideoProvider extends ContentProvider {
 
         switch (sUriMatcher.match(uri)) {
             case VIDEO: {
+                // The selection is on the stored columns, the strings in the dictionary are not
+                // removed with the last video using them. Waits for a catalog being built, see
+                // insert().
+                SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+                synchronized (mOpenHelper.getCatalogWriteLock()) {
+                    rowsDeleted = db.delete(mOpenHelper.getCatalogSchema() + "."
+                                    + VideoContract.VideoEntry.DATA_TABLE_NAME,
+                            selection, selectionArgs);
+                }
+                break;
+            }
+            case RATING: {
                 rowsDeleted = mOpenHelper.getWritableDatabase().delete(
-                        VideoContract.VideoEntry.TABLE_NAME, selection, selectionArgs);
+                        VideoContract.RatingEntry.TABLE_NAME, selection, selectionArgs);
                 break;
             }
             default: {
@@ -267,8 +678,22 @@ public class VideoProvider extends ContentProvider {
 
         switch (sUriMatcher.match(uri)) {
             case VIDEO: {
-                rowsUpdated = mOpenHelper.getWritableDatabase().update(
-                        VideoContract.VideoEntry.TABLE_NAME, values, selection, selectionArgs);
+                // The selection is on the stored columns, see delete(). Waits for a catalog being
+                // built, see insert().
+                SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+                synchronized (mOpenHelper.getCatalogWriteLock()) {
+                    String catalog = mOpenHelper.getCatalogSchema();
+                    db.beginTransaction();
+                    try {
+                        rowsUpdated = db.update(
+                                catalog + "." + VideoContract.VideoEntry.DATA_TABLE_NAME,
+                                new VideoDictionary(db, catalog).encode(values), selection,
+                                selectionArgs);
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                }
                 break;
             }
             default: {
@@ -283,18 +708,133 @@ public class VideoProvider extends ContentProvider {
         return rowsUpdated;
     }
 
+    @Override
+    public Bundle call(@NonNull String method, String arg, Bundle extras) {
+        if (!VideoContract.METHOD_ROLLBACK_CATALOG.equals(method)) {
+            return super.call(method, arg, extras);
+        }
+        getContext().enforceCallingOrSelfPermission(
+                getContext().getPackageName() + ACCESS_VIDEO_DATA_PERMISSION,
+                "Rolling back the catalog");
+        boolean rolledBack = mOpenHelper.rollbackCatalog();
+        if (rolledBack) {
+            mContentResolver.notifyChange(VideoContract.VideoEntry.CONTENT_URI, null);
+        }
+        Bundle result = new Bundle();
+        result.putBoolean(VideoContract.EXTRA_ROLLED_BACK, rolledBack);
+        return result;
+    }
+
     @Override
     public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
         switch (sUriMatcher.match(uri)) {
             case VIDEO: {
                 final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
                 int returnCount = 0;
+                // Waits for a catalog being built, see insert().
+                synchronized (mOpenHelper.getCatalogWriteLock()) {
+                    String catalog = mOpenHelper.getCatalogSchema();
+                    String table = catalog + "." + VideoContract.VideoEntry.DATA_TABLE_NAME;
+                    long now = System.currentTimeMillis();
+                    String[] selectionArgs = new String[1];
+
+                    db.beginTransaction();
+                    try {
+                        VideoDictionary dictionary = new VideoDictionary(db, catalog);
+                        for (ContentValues video : values) {
+                            ContentValues value = dictionary.encode(video);
+                            // Videos already there are updated in place, so they keep their id
+                            // and when they were added.
+                            selectionArgs[0] =
+                                    value.getAsString(VideoContract.VideoEntry.COLUMN_VIDEO_URL);
+                            if (db.update(table, value,
+                                    VideoContract.VideoEntry.COLUMN_VIDEO_URL + " = ?",
+                                    selectionArgs) > 0) {
+                                returnCount++;
+                                continue;
+                            }
+                            ContentValues row = value;
+                            if (!row.containsKey(VideoContract.VideoEntry.COLUMN_ADDED_AT)) {
+                                row = new ContentValues(value);
+                                row.put(VideoContract.VideoEntry.COLUMN_ADDED_AT, now);
+                            }
+                            long _id = db.insert(table, null, row);
+                            if (_id != -1) {
+                                returnCount++;
+                            }
+                        }
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                }
+
+                mContentResolver.notifyChange(uri, null);
+                return returnCount;
+            }
+            case CATALOG: {
+                // The new catalog is built in a database of its own while the live one is read as
+                // before, and swapped in once it is complete and valid.
+                mOpenHelper.swapCatalog(values);
+                mContentResolver.notifyChange(VideoContract.VideoEntry.CONTENT_URI, null);
+                return values.length;
+            }
+            case RELATED: {
+                // The related index is always rebuilt as a whole, so replace it in one transaction.
+                final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+                int returnCount = 0;
+
+                db.beginTransaction();
+                try {
+                    db.delete(VideoContract.RelatedEntry.TABLE_NAME, null, null);
+                    for (ContentValues value : values) {
+                        long _id = db.insert(VideoContract.RelatedEntry.TABLE_NAME, null, value);
+                        if (_id != -1) {
+                            returnCount++;
+                        }
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+
+                mContentResolver.notifyChange(uri, null);
+                return returnCount;
+            }
+            case WATCH_HISTORY: {
+                // Positions are written behind in batches, each replacing the entry of its video.
+                final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+                int returnCount = 0;
+
+                db.beginTransaction();
+                try {
+                    for (ContentValues value : values) {
+                        long _id = db.insertWithOnConflict(
+                                VideoContract.WatchHistoryEntry.TABLE_NAME, null, value,
+                                SQLiteDatabase.CONFLICT_REPLACE);
+                        if (_id != -1) {
+                            returnCount++;
+                        }
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+
+                mContentResolver.notifyChange(uri, null);
+                return returnCount;
+            }
+            case RECOMMENDED: {
+                // The scores are always recomputed as a whole, so replace them in one transaction.
+                final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+                int returnCount = 0;
 
                 db.beginTransaction();
                 try {
+                    db.delete(VideoContract.RecommendedEntry.TABLE_NAME, null, null);
                     for (ContentValues value : values) {
-                        long _id = db.insertWithOnConflict(VideoContract.VideoEntry.TABLE_NAME,
-                                null, value, SQLiteDatabase.CONFLICT_REPLACE);
+                        long _id = db.insert(VideoContract.RecommendedEntry.TABLE_NAME, null,
+                                value);
                         if (_id != -1) {
                             returnCount++;
                         }
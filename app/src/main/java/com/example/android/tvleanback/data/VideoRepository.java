@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.example.android.tvleanback.BuildConfig;
+import com.example.android.tvleanback.model.Video;
+import com.example.android.tvleanback.model.VideoCursorMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * VideoRepository serves the results of queries against {@link VideoProvider} to every screen that
+ * asks for them.
+ * <p>
+ * Results are immutable snapshots shared between all observers of the same query. A query is run
+ * at most once at a time no matter how many observers ask for it, and is re-run when the provider
+ * notifies a change. Results nobody observes any more are kept for a while, so a screen opened
+ * shortly after is served without touching the database.
+ * <p>
+ * All methods must be called, and all observers are notified, on the main thread.
+ */
+public final class VideoRepository {
+    private static final String TAG = "VideoRepository";
+
+    // The number of unobserved results kept around.
+    private static final int MAX_RETAINED = 8;
+    private static final int LOADER_THREADS = 2;
+
+    /** Maps a whole cursor to the snapshot handed to observers. */
+    public interface Mapper<T> {
+        T map(Cursor cursor);
+    }
+
+    /** Receives the result of a query every time it is loaded. */
+    public interface Observer<T> {
+        void onChanged(T result);
+    }
+
+    /** Keeps the result of a query alive until released. */
+    public interface Subscription {
+        void release();
+    }
+
+    /** Maps every row of a cursor to a {@link Video}. */
+    public static final Mapper<List<Video>> VIDEO_LIST_MAPPER = new Mapper<List<Video>>() {
+        @Override
+        public List<Video> map(Cursor cursor) {
+            VideoCursorMapper mapper = new VideoCursorMapper();
+            List<Video> videos = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                videos.add((Video) mapper.convert(cursor));
+            }
+            return Collections.unmodifiableList(videos);
+        }
+    };
+
+    /** Maps the first column of every row of a cursor to an id. */
+    public static final Mapper<long[]> ID_ARRAY_MAPPER = new Mapper<long[]>() {
+        @Override
+        public long[] map(Cursor cursor) {
+            long[] ids = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+            }
+            return ids;
+        }
+    };
+
+    private static VideoRepository sInstance;
+
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(LOADER_THREADS);
+    private final Map<Query<?>, Entry<?>> mObserved = new HashMap<>();
+    private final LruCache<Query<?>, Entry<?>> mRetained =
+            new LruCache<Query<?>, Entry<?>>(MAX_RETAINED) {
+                @Override
+                protected void entryRemoved(boolean evicted, Query<?> key, Entry<?> oldValue,
+                        Entry<?> newValue) {
+                    if (evicted) {
+                        oldValue.stopObservingChanges();
+                    }
+                }
+            };
+
+    private int mHitCount;
+    private int mMissCount;
+
+    public static synchronized VideoRepository getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new VideoRepository(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private VideoRepository(Context context) {
+        mContentResolver = context.getContentResolver();
+    }
+
+    /** Returns the query of the precomputed related videos of a video. */
+    public static Query<List<Video>> relatedVideos(long videoId) {
+        return new Query<>(VideoContract.RelatedEntry.buildRelatedUri(videoId), null, null, null,
+                null, VIDEO_LIST_MAPPER);
+    }
+
+    /** Returns the query of the ids of all videos in a category, in the same order as the videos. */
+    public static Query<long[]> videoIdsInCategory(String category) {
+        return new Query<>(VideoContract.VideoEntry.CONTENT_URI,
+                new String[]{VideoContract.VideoEntry._ID},
+                VideoContract.VideoEntry.COLUMN_CATEGORY + " = ?", new String[]{category}, null,
+                ID_ARRAY_MAPPER);
+    }
+
+    /** Returns the query of the videos with the specified ids, fetched in one query. */
+    public static Query<List<Video>> videos(long[] ids) {
+        return new Query<>(VideoContract.VideoEntry.buildVideosUri(ids), null, null, null, null,
+                VIDEO_LIST_MAPPER);
+    }
+
+    /**
+     * Starts observing a query. The observer is notified as soon as a result is available, which
+     * may be immediately, and then every time the result changes.
+     */
+    public <T> Subscription observe(Query<T> query, final Observer<T> observer) {
+        final Entry<T> entry = acquire(query);
+        entry.observers.add(observer);
+        if (entry.hasResult) {
+            observer.onChanged(entry.result);
+        }
+
+        return new Subscription() {
+            private boolean mReleased;
+
+            @Override
+            public void release() {
+                if (!mReleased) {
+                    mReleased = true;
+                    entry.observers.remove(observer);
+                    releaseEntry(entry);
+                }
+            }
+        };
+    }
+
+    /**
+     * Loads a query nobody observes yet, so that it can be served from memory when it is.
+     */
+    public void prefetch(Query<?> query) {
+        releaseEntry(acquire(query));
+    }
+
+    /** Returns how many queries were served from a result that was loaded or being loaded. */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /** Returns how many queries had to be run against the provider. */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> acquire(Query<T> query) {
+        Entry<T> entry = (Entry<T>) mObserved.get(query);
+        if (entry == null) {
+            entry = (Entry<T>) mRetained.remove(query);
+            if (entry != null) {
+                mObserved.put(query, entry);
+            }
+        }
+
+        if (entry != null && !entry.stale) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+            if (entry == null) {
+                entry = new Entry<>(query);
+                entry.startObservingChanges();
+                mObserved.put(query, entry);
+            }
+            entry.stale = false;
+            load(entry);
+        }
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "Hits: " + mHitCount + ", misses: " + mMissCount + ", " + query.uri);
+        }
+
+        entry.refCount++;
+        return entry;
+    }
+
+    private void releaseEntry(Entry<?> entry) {
+        if (--entry.refCount == 0) {
+            mObserved.remove(entry.query);
+            mRetained.put(entry.query, entry);
+        }
+    }
+
+    private <T> void load(final Entry<T> entry) {
+        if (entry.loading) {
+            // Single-flight: run once more when the load in progress is done.
+            entry.reloadPending = true;
+            return;
+        }
+        entry.loading = true;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final T result = entry.query.run(mContentResolver);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(entry, result);
+                    }
+                });
+            }
+        });
+    }
+
+    private <T> void deliver(Entry<T> entry, T result) {
+        entry.loading = false;
+        if (result != null) {
+            entry.result = result;
+            entry.hasResult = true;
+            for (Observer<T> observer : new ArrayList<>(entry.observers)) {
+                observer.onChanged(result);
+            }
+        }
+        if (entry.reloadPending) {
+            entry.reloadPending = false;
+            load(entry);
+        }
+    }
+
+    /**
+     * Describes a query against {@link VideoProvider}. Queries with the same arguments share their
+     * results.
+     */
+    public static final class Query<T> {
+        final Uri uri;
+        final String[] projection;
+        final String selection;
+        final String[] selectionArgs;
+        final String sortOrder;
+        final Mapper<T> mapper;
+
+        public Query(Uri uri, String[] projection, String selection, String[] selectionArgs,
+                String sortOrder, Mapper<T> mapper) {
+            this.uri = uri;
+            this.projection = projection;
+            this.selection = selection;
+            this.selectionArgs = selectionArgs;
+            this.sortOrder = sortOrder;
+            this.mapper = mapper;
+        }
+
+        T run(ContentResolver contentResolver) {
+            Cursor cursor = contentResolver.query(uri, projection, selection, selectionArgs,
+                    sortOrder);
+            if (cursor == null) {
+                Log.e(TAG, "Could not query " + uri);
+                return null;
+            }
+            try {
+                return mapper.map(cursor);
+            } finally {
+                cursor.close();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Query)) {
+                return false;
+            }
+            Query<?> other = (Query<?>) o;
+            return uri.equals(other.uri)
+                    && Arrays.equals(projection, other.projection)
+                    && equal(selection, other.selection)
+                    && Arrays.equals(selectionArgs, other.selectionArgs)
+                    && equal(sortOrder, other.sortOrder)
+                    && mapper == other.mapper;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(new Object[]{uri, Arrays.hashCode(projection), selection,
+                    Arrays.hashCode(selectionArgs), sortOrder, mapper});
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private final class Entry<T> {
+        final Query<T> query;
+        final List<Observer<T>> observers = new ArrayList<>();
+        int refCount;
+        T result;
+        boolean hasResult;
+        boolean loading;
+        boolean reloadPending;
+        boolean stale;
+
+        private final ContentObserver mContentObserver = new ContentObserver(mHandler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                if (refCount > 0) {
+                    load(Entry.this);
+                } else {
+                    // Nobody is looking, reload when somebody asks again.
+                    stale = true;
+                }
+            }
+        };
+
+        Entry(Query<T> query) {
+            this.query = query;
+        }
+
+        void startObservingChanges() {
+            mContentResolver.registerContentObserver(query.uri, true, mContentObserver);
+        }
+
+        void stopObservingChanges() {
+            mContentResolver.unregisterContentObserver(mContentObserver);
+        }
+    }
+}
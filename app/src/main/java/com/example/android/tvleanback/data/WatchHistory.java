@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.data;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.example.android.tvleanback.data.VideoContract.WatchHistoryEntry;
+import com.example.android.tvleanback.job.BackgroundJobs;
+import com.example.android.tvleanback.recommendation.UpdateRecommendationsJob;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * WatchHistory remembers how far each video has been watched, so that playback resumes where it
+ * stopped and unfinished videos can be continued.
+ * <p>
+ * Positions are written behind. They are held in memory, where a newer position of a video
+ * replaces the older one, and written to {@link VideoProvider} in one transaction a while after
+ * the first one was recorded, or when asked to. Writes and reads happen off the main thread, one
+ * at a time and in order, so a read always sees the writes before it.
+ * <p>
+ * Writing a video for the first time ranks the recommendations again, since watched videos are not
+ * recommended. Further progress only shifts the ranking a little, and ranks again at most every
+ * few minutes.
+ * <p>
+ * All methods must be called, and all callbacks are run, on the main thread.
+ */
+public final class WatchHistory {
+
+    // How long recorded positions are held before being written.
+    private static final long WRITE_DELAY_MS = 30 * 1000;
+    // Positions closer to the start than this start over.
+    private static final long MIN_RESUME_POSITION_MS = 5 * 1000;
+    // Videos watched further than this fraction of their duration are finished and start over.
+    private static final float FINISHED_FRACTION = 0.95f;
+    // How often progress alone ranks the recommendations again, which reads the whole history.
+    private static final long MIN_RANKING_INTERVAL_MS = 10 * 60 * 1000;
+
+    /** Receives the position to resume a video from. */
+    public interface Callback {
+        /** Called with the position, or 0 if the video should start from the beginning. */
+        void onResumePosition(long positionMs);
+    }
+
+    private static WatchHistory sInstance;
+
+    private final Context mContext;
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    // Positions not written yet, by video url.
+    private final Map<String, ContentValues> mPending = new LinkedHashMap<>();
+    private boolean mWriteScheduled;
+    // Videos written since the app started, which ranking already knows are watched.
+    private final Set<String> mWrittenUrls = new HashSet<>();
+    private long mLastRankingMs;
+
+    private final Runnable mWrite = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public static synchronized WatchHistory getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new WatchHistory(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private WatchHistory(Context context) {
+        mContext = context;
+        mContentResolver = context.getContentResolver();
+    }
+
+    /**
+     * Records how far a video has been watched. Videos of unknown duration, such as live streams,
+     * are not recorded.
+     */
+    public void record(String videoUrl, long positionMs, long durationMs) {
+        if (durationMs <= 0) {
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put(WatchHistoryEntry.COLUMN_VIDEO_URL, videoUrl);
+        values.put(WatchHistoryEntry.COLUMN_POSITION, getResumePosition(positionMs, durationMs));
+        values.put(WatchHistoryEntry.COLUMN_DURATION, durationMs);
+        values.put(WatchHistoryEntry.COLUMN_LAST_WATCHED, System.currentTimeMillis());
+        values.put(WatchHistoryEntry.COLUMN_PROGRESS,
+                Math.min(1f, Math.max(0f, (float) positionMs / durationMs)));
+        mPending.put(videoUrl, values);
+
+        if (!mWriteScheduled) {
+            mWriteScheduled = true;
+            mHandler.postDelayed(mWrite, WRITE_DELAY_MS);
+        }
+    }
+
+    /** Writes the positions recorded so far right away, for when playback stops. */
+    public void flush() {
+        mHandler.removeCallbacks(mWrite);
+        mWriteScheduled = false;
+        if (mPending.isEmpty()) {
+            return;
+        }
+
+        final ContentValues[] values =
+                mPending.values().toArray(new ContentValues[mPending.size()]);
+        long nowMs = SystemClock.elapsedRealtime();
+        final boolean rank = !mWrittenUrls.containsAll(mPending.keySet())
+                || nowMs - mLastRankingMs >= MIN_RANKING_INTERVAL_MS;
+        if (rank) {
+            mLastRankingMs = nowMs;
+        }
+        mWrittenUrls.addAll(mPending.keySet());
+        mPending.clear();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mContentResolver.bulkInsert(WatchHistoryEntry.CONTENT_URI, values);
+                if (rank) {
+                    // Watched videos are not recommended any more, and change what else is.
+                    BackgroundJobs.schedule(mContext, BackgroundJobs.RANKING,
+                            UpdateRecommendationsJob.REASON_WATCH_ACTIVITY);
+                }
+            }
+        });
+    }
+
+    /** Looks up the position to resume a video from. */
+    public void getResumePosition(String videoUrl, final Callback callback) {
+        ContentValues pending = mPending.get(videoUrl);
+        if (pending != null) {
+            final long positionMs = pending.getAsLong(WatchHistoryEntry.COLUMN_POSITION);
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onResumePosition(positionMs);
+                }
+            });
+            return;
+        }
+
+        final String[] selectionArgs = new String[]{videoUrl};
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long positionMs = queryPosition(selectionArgs);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onResumePosition(positionMs);
+                    }
+                });
+            }
+        });
+    }
+
+    private long queryPosition(String[] selectionArgs) {
+        Cursor cursor = mContentResolver.query(
+                WatchHistoryEntry.CONTENT_URI,
+                new String[]{WatchHistoryEntry.COLUMN_POSITION},
+                WatchHistoryEntry.COLUMN_VIDEO_URL + " = ?",
+                selectionArgs,
+                null);
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Returns where to resume from, starting over near either end of the video.
+    static long getResumePosition(long positionMs, long durationMs) {
+        if (positionMs < MIN_RESUME_POSITION_MS || positionMs > durationMs * FINISHED_FRACTION) {
+            return 0;
+        }
+        return positionMs;
+    }
+}
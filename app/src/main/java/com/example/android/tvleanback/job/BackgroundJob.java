@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.job;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Work run in the background by {@link BackgroundJobService}, one job at a time.
+ */
+public interface BackgroundJob {
+
+    /**
+     * Does the work, on a background thread.
+     *
+     * @param reason Why the job was scheduled, as given to {@link BackgroundJobs#schedule}, or
+     *               null.
+     * @return False if the work failed and should be retried later, with backoff.
+     */
+    boolean run(@Nullable String reason);
+}
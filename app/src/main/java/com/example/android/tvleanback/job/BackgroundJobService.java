@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.job;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.example.android.tvleanback.BuildConfig;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the jobs scheduled by {@link BackgroundJobs}.
+ * <p>
+ * Jobs run on a single background thread, so they never compete with each other for the
+ * database, and the ones waiting to run are taken by priority. How long each run takes and how it
+ * ends is recorded in {@link JobMetrics}.
+ */
+public class BackgroundJobService extends JobService {
+    private static final String TAG = "BackgroundJobService";
+
+    private static final Object sLock = new Object();
+    // The jobs started and not finished yet, by id.
+    private static final SparseArray<JobRun> sRunning = new SparseArray<>();
+    // The jobs to schedule again once they finish, with the reason to run for.
+    private static final SparseArray<String> sReruns = new SparseArray<>();
+
+    private static final AtomicLong sSequence = new AtomicLong();
+    private static final ThreadPoolExecutor sExecutor = new ThreadPoolExecutor(1, 1,
+            0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>());
+
+    /**
+     * Asks for a job that is running to be scheduled again once it finishes, since what it works
+     * on changed after it started. Returns false if the job is not running.
+     */
+    static boolean requestRerun(int jobId, String reason) {
+        synchronized (sLock) {
+            if (sRunning.get(jobId) == null) {
+                return false;
+            }
+            if (reason != null || sReruns.indexOfKey(jobId) < 0) {
+                sReruns.put(jobId, reason);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        JobRun run = new JobRun(this, params);
+        synchronized (sLock) {
+            sRunning.put(params.getJobId(), run);
+        }
+        sExecutor.execute(run);
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        JobRun run;
+        synchronized (sLock) {
+            run = sRunning.get(params.getJobId());
+        }
+        if (run != null) {
+            run.stop();
+        }
+        // Run the job again once its constraints are met again.
+        return true;
+    }
+
+    // Called once a job is done with, whether it ran or was stopped before it could.
+    private void finish(JobRun run, long durationMs, String outcome, boolean reschedule) {
+        int jobId = run.mParams.getJobId();
+        String name = BackgroundJobs.name(jobId);
+        JobMetrics metrics = new JobMetrics(this);
+        metrics.record(name, durationMs, outcome);
+        if (BuildConfig.DEBUG) Log.d(TAG, metrics.summarize(name));
+
+        boolean rerun;
+        String reason;
+        synchronized (sLock) {
+            if (sRunning.get(jobId) == run) {
+                sRunning.remove(jobId);
+            }
+            rerun = sReruns.indexOfKey(jobId) >= 0;
+            reason = sReruns.get(jobId);
+            sReruns.remove(jobId);
+        }
+        // The system is done with a stopped job already.
+        if (!JobMetrics.OUTCOME_STOPPED.equals(outcome)) {
+            jobFinished(run.mParams, reschedule);
+        }
+        if (rerun) {
+            BackgroundJobs.schedule(this, jobId, reason);
+        }
+    }
+
+    /** One run of a job, ordered by priority and then by when it was started. */
+    private static final class JobRun implements Runnable, Comparable<JobRun> {
+        private final BackgroundJobService mService;
+        private final JobParameters mParams;
+        private final int mPriority;
+        private final long mSequence = sSequence.getAndIncrement();
+        private volatile boolean mStopped;
+
+        JobRun(BackgroundJobService service, JobParameters params) {
+            mService = service;
+            mParams = params;
+            mPriority = BackgroundJobs.priority(params.getJobId());
+        }
+
+        // Called on the main thread when the system stops the job.
+        void stop() {
+            mStopped = true;
+            if (sExecutor.remove(this)) {
+                // It never started, there is nothing to wait for.
+                mService.finish(this, 0, JobMetrics.OUTCOME_STOPPED, false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (mStopped) {
+                return;
+            }
+            String reason = mParams.getExtras().getString(BackgroundJobs.EXTRA_REASON);
+            Context context = mService.getApplicationContext();
+            long start = SystemClock.elapsedRealtime();
+            boolean succeeded;
+            try {
+                succeeded = BackgroundJobs.create(context, mParams.getJobId()).run(reason);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Job " + BackgroundJobs.name(mParams.getJobId()) + " failed", e);
+                succeeded = false;
+            }
+            long durationMs = SystemClock.elapsedRealtime() - start;
+
+            String outcome;
+            if (mStopped) {
+                outcome = JobMetrics.OUTCOME_STOPPED;
+            } else if (succeeded) {
+                outcome = JobMetrics.OUTCOME_SUCCESS;
+            } else {
+                outcome = JobMetrics.OUTCOME_FAILURE;
+            }
+            mService.finish(this, durationMs, outcome, !succeeded);
+        }
+
+        @Override
+        public int compareTo(JobRun other) {
+            if (mPriority != other.mPriority) {
+                return Integer.compare(mPriority, other.mPriority);
+            }
+            return Long.compare(mSequence, other.mSequence);
+        }
+    }
+}
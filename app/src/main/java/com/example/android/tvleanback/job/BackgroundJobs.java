@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.job;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.PersistableBundle;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.android.tvleanback.BuildConfig;
+import com.example.android.tvleanback.data.CatalogSyncJob;
+import com.example.android.tvleanback.data.RecommendationRankJob;
+import com.example.android.tvleanback.data.RelatedVideosJob;
+import com.example.android.tvleanback.recommendation.UpdateRecommendationsJob;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The background work of the app, and when it may run.
+ * <p>
+ * All of it goes through {@link JobScheduler}, which runs each job when its constraints are met,
+ * retries failed jobs with backoff, and keeps a single pending copy of each job. Scheduling a job
+ * that is already pending replaces it, so requests that come in bursts, such as ranking after
+ * every write of the watch history, run once. The jobs themselves are run by
+ * {@link BackgroundJobService}, one at a time and by priority.
+ */
+public final class BackgroundJobs {
+    private static final String TAG = "BackgroundJobs";
+
+    /** Fetches the catalog and replaces the videos with it. */
+    public static final int CATALOG_SYNC = 1;
+    /** Indexes which videos are related to each other. */
+    public static final int RELATED_INDEX = 2;
+    /** Ranks the videos to recommend. */
+    public static final int RANKING = 3;
+    /** Publishes recommendations to the home screen. */
+    public static final int RECOMMENDATIONS = 4;
+    /** Replaces every recommendation now and then, while the network is up. */
+    public static final int RECOMMENDATIONS_REFRESH = 5;
+    /** Deletes cached files that have not been used for a while, while the device is idle. */
+    public static final int CACHE_TRIM = 6;
+
+    /** Jobs of the same priority run in the order they were started. */
+    static final int PRIORITY_HIGH = 0;
+    static final int PRIORITY_NORMAL = 1;
+    static final int PRIORITY_LOW = 2;
+
+    static final String EXTRA_REASON = "reason";
+
+    private static final long CATALOG_SYNC_BACKOFF_MS = TimeUnit.SECONDS.toMillis(30);
+    // Ranking waits this long for more watch activity before running.
+    private static final long RANKING_DELAY_MS = TimeUnit.SECONDS.toMillis(5);
+    private static final long RANKING_DEADLINE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long REFRESH_INTERVAL_MS = TimeUnit.HOURS.toMillis(12);
+    private static final long CACHE_TRIM_INTERVAL_MS = TimeUnit.DAYS.toMillis(1);
+
+    private BackgroundJobs() {
+    }
+
+    /** Schedules a job to run as soon as its constraints allow. */
+    public static void schedule(Context context, int jobId) {
+        schedule(context, jobId, null);
+    }
+
+    /**
+     * Schedules a job to run as soon as its constraints allow. If the job is already pending it
+     * runs only once, for the given reason, or for the one it was pending for if none is given.
+     * If the job is running, it runs again once done.
+     */
+    public static void schedule(Context context, int jobId, @Nullable String reason) {
+        if (BackgroundJobService.requestRerun(jobId, reason)) {
+            return;
+        }
+
+        JobScheduler scheduler = getScheduler(context);
+        for (JobInfo pending : scheduler.getAllPendingJobs()) {
+            if (pending.getId() != jobId) {
+                continue;
+            }
+            if (pending.isPeriodic()) {
+                return;
+            }
+            if (reason == null) {
+                reason = pending.getExtras().getString(EXTRA_REASON);
+            }
+            break;
+        }
+
+        if (BuildConfig.DEBUG) Log.d(TAG, "Scheduling " + name(jobId) + " for " + reason);
+        scheduler.schedule(build(context, jobId, reason));
+    }
+
+    /** Schedules the jobs that run periodically, unless they already are. */
+    public static void schedulePeriodic(Context context) {
+        JobScheduler scheduler = getScheduler(context);
+        boolean refreshPending = false;
+        boolean trimPending = false;
+        for (JobInfo pending : scheduler.getAllPendingJobs()) {
+            refreshPending |= pending.getId() == RECOMMENDATIONS_REFRESH;
+            trimPending |= pending.getId() == CACHE_TRIM;
+        }
+        if (!refreshPending) {
+            scheduler.schedule(build(context, RECOMMENDATIONS_REFRESH,
+                    UpdateRecommendationsJob.REASON_REFRESH));
+        }
+        if (!trimPending) {
+            scheduler.schedule(build(context, CACHE_TRIM, null));
+        }
+    }
+
+    /** Returns the name of a job, for logging and metrics. */
+    static String name(int jobId) {
+        switch (jobId) {
+            case CATALOG_SYNC:
+                return "catalog_sync";
+            case RELATED_INDEX:
+                return "related_index";
+            case RANKING:
+                return "ranking";
+            case RECOMMENDATIONS:
+                return "recommendations";
+            case RECOMMENDATIONS_REFRESH:
+                return "recommendations_refresh";
+            case CACHE_TRIM:
+                return "cache_trim";
+            default:
+                throw new IllegalArgumentException("Unknown job: " + jobId);
+        }
+    }
+
+    static int priority(int jobId) {
+        switch (jobId) {
+            case CATALOG_SYNC:
+                // Nothing else has anything to work on until the catalog is there.
+                return PRIORITY_HIGH;
+            case CACHE_TRIM:
+                return PRIORITY_LOW;
+            default:
+                return PRIORITY_NORMAL;
+        }
+    }
+
+    /** Creates the work of a job. */
+    static BackgroundJob create(Context context, int jobId) {
+        switch (jobId) {
+            case CATALOG_SYNC:
+                return new CatalogSyncJob(context);
+            case RELATED_INDEX:
+                return new RelatedVideosJob(context);
+            case RANKING:
+                return new RecommendationRankJob(context);
+            case RECOMMENDATIONS:
+            case RECOMMENDATIONS_REFRESH:
+                return new UpdateRecommendationsJob(context);
+            case CACHE_TRIM:
+                return new CacheTrimJob(context);
+            default:
+                throw new IllegalArgumentException("Unknown job: " + jobId);
+        }
+    }
+
+    private static JobInfo build(Context context, int jobId, @Nullable String reason) {
+        PersistableBundle extras = new PersistableBundle();
+        extras.putString(EXTRA_REASON, reason);
+        JobInfo.Builder builder = new JobInfo.Builder(jobId,
+                new ComponentName(context, BackgroundJobService.class))
+                .setExtras(extras);
+        switch (jobId) {
+            case CATALOG_SYNC:
+                builder.setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                        .setBackoffCriteria(CATALOG_SYNC_BACKOFF_MS,
+                                JobInfo.BACKOFF_POLICY_EXPONENTIAL);
+                break;
+            case RANKING:
+                builder.setMinimumLatency(RANKING_DELAY_MS)
+                        .setOverrideDeadline(RANKING_DEADLINE_MS);
+                break;
+            case RECOMMENDATIONS_REFRESH:
+                builder.setPeriodic(REFRESH_INTERVAL_MS)
+                        .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                        .setPersisted(true);
+                break;
+            case CACHE_TRIM:
+                builder.setPeriodic(CACHE_TRIM_INTERVAL_MS)
+                        .setRequiresDeviceIdle(true)
+                        .setRequiresCharging(true)
+                        .setPersisted(true);
+                break;
+            default:
+                // Local work, run right away.
+                builder.setOverrideDeadline(0);
+                break;
+        }
+        return builder.build();
+    }
+
+    private static JobScheduler getScheduler(Context context) {
+        return (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+    }
+}
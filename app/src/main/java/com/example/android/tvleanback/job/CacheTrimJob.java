@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.job;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.util.Log;
+
+import com.example.android.tvleanback.BuildConfig;
+import com.example.android.tvleanback.ui.PlaybackFragment;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the seek thumbnails that have not been used for a while.
+ * <p>
+ * The media cache of the player and the image cache of Glide bound their own size, and are left
+ * alone.
+ */
+class CacheTrimJob extends ContextWrapper implements BackgroundJob {
+    private static final String TAG = "CacheTrimJob";
+
+    // Files are touched when used, so ones older than this are not in use any more.
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(30);
+
+    CacheTrimJob(Context context) {
+        super(context.getApplicationContext());
+    }
+
+    @Override
+    public boolean run(String reason) {
+        long before = System.currentTimeMillis() - MAX_AGE_MS;
+        int deleted = trim(new File(getCacheDir(), PlaybackFragment.THUMBNAILS_DIRECTORY), before);
+        if (BuildConfig.DEBUG) Log.d(TAG, "Deleted " + deleted + " cached files");
+        return true;
+    }
+
+    // Deletes the files of a directory, and of the directories in it, last used before a time.
+    static int trim(File directory, long beforeMs) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                deleted += trim(file, beforeMs);
+            } else if (file.lastModified() < beforeMs && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
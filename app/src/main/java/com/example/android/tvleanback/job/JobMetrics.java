@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.job;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Records how long each background job runs and how it ends, across process restarts.
+ */
+public class JobMetrics {
+    private static final String PREFERENCES_NAME = "job_metrics";
+
+    /** The job did its work. */
+    public static final String OUTCOME_SUCCESS = "success";
+    /** The job failed and is retried later. */
+    public static final String OUTCOME_FAILURE = "failure";
+    /** The job was stopped by the system before it finished, because a constraint was lost. */
+    public static final String OUTCOME_STOPPED = "stopped";
+
+    private static final String RUNS = ".runs";
+    private static final String FAILURES = ".failures";
+    private static final String STOPS = ".stops";
+    private static final String TOTAL_MS = ".total_ms";
+    private static final String LAST_MS = ".last_ms";
+    private static final String LAST_OUTCOME = ".last_outcome";
+    private static final String LAST_RUN_AT = ".last_run_at";
+
+    private final SharedPreferences mSharedPreferences;
+
+    public JobMetrics(Context context) {
+        mSharedPreferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /** Records a run of a job, by the name of the job. */
+    public synchronized void record(String job, long durationMs, String outcome) {
+        SharedPreferences.Editor editor = mSharedPreferences.edit()
+                .putInt(job + RUNS, getRuns(job) + 1)
+                .putLong(job + TOTAL_MS, mSharedPreferences.getLong(job + TOTAL_MS, 0) + durationMs)
+                .putLong(job + LAST_MS, durationMs)
+                .putString(job + LAST_OUTCOME, outcome)
+                .putLong(job + LAST_RUN_AT, System.currentTimeMillis());
+        if (OUTCOME_FAILURE.equals(outcome)) {
+            editor.putInt(job + FAILURES, getFailures(job) + 1);
+        } else if (OUTCOME_STOPPED.equals(outcome)) {
+            editor.putInt(job + STOPS, mSharedPreferences.getInt(job + STOPS, 0) + 1);
+        }
+        editor.apply();
+    }
+
+    public int getRuns(String job) {
+        return mSharedPreferences.getInt(job + RUNS, 0);
+    }
+
+    public int getFailures(String job) {
+        return mSharedPreferences.getInt(job + FAILURES, 0);
+    }
+
+    /** Returns the average run time of a job, in milliseconds, or 0 if it never ran. */
+    public long getAverageMs(String job) {
+        int runs = getRuns(job);
+        return runs == 0 ? 0 : mSharedPreferences.getLong(job + TOTAL_MS, 0) / runs;
+    }
+
+    /** Returns how the last run of a job ended, or null if it never ran. */
+    public String getLastOutcome(String job) {
+        return mSharedPreferences.getString(job + LAST_OUTCOME, null);
+    }
+
+    /** Returns a one line summary of a job, for logging. */
+    public String summarize(String job) {
+        return job + ": " + getRuns(job) + " runs, " + getFailures(job) + " failures, "
+                + getAverageMs(job) + " ms on average, last "
+                + getLastOutcome(job) + " in " + mSharedPreferences.getLong(job + LAST_MS, 0)
+                + " ms";
+    }
+}
@@ -16,19 +16,37 @@
 
 package com.example.android.tvleanback.model;
 
-import java.util.ArrayList;
+import android.util.LongSparseArray;
+
 import java.util.List;
+import java.util.Random;
 
 /**
  * Manages a playlist of videos.
+ * <p>
+ * The playlist only holds the ids of its videos. The videos themselves are only kept around the
+ * current position, in a window that is filled in with {@link #putVideos(List)}, so a playlist of
+ * thousands of videos takes a few bytes per video. Moving to a video that is not filled in yet
+ * fails as if it was past the end of the playlist.
  */
 public class Playlist {
 
-    private List<Video> playlist;
+    // How many videos on each side of the current one are kept.
+    private static final int WINDOW = 2;
+
+    private static final long[] NO_IDS = new long[0];
+
+    private long[] ids;
+    // The order videos are played in when shuffled, as indices into ids, or null if not shuffled.
+    private int[] shuffleOrder;
+    // The position in play order.
     private int currentPosition;
+    private boolean repeating;
+    private final LongSparseArray<Video> videos = new LongSparseArray<>();
+    private final Random random = new Random();
 
     public Playlist() {
-        playlist = new ArrayList<>();
+        ids = NO_IDS;
         currentPosition = 0;
     }
 
@@ -36,34 +54,124 @@ public class Playlist {
      * Clears the videos from the playlist.
      */
     public void clear() {
-        playlist.clear();
+        setIds(NO_IDS, -1);
     }
 
     /**
-     * Adds a video to the end of the playlist.
+     * Replaces the videos of the playlist, keeping the position on the current video if it is
+     * still in the playlist.
      *
-     * @param video to be added to the playlist.
+     * @param ids The ids of the videos, in order. The playlist keeps the array.
+     * @param currentId The id of the current video.
      */
-    public void add(Video video) {
-        playlist.add(video);
+    public void setIds(long[] ids, long currentId) {
+        this.ids = ids;
+        int index = indexOf(currentId);
+        if (shuffleOrder != null) {
+            shuffle(index);
+        } else {
+            currentPosition = Math.max(index, 0);
+        }
+        trimVideos();
     }
 
     /**
-     * Sets current position in the playlist.
+     * Returns the size of the playlist.
      *
-     * @param currentPosition
+     * @return The size of the playlist.
      */
-    public void setCurrentPosition(int currentPosition) {
-        this.currentPosition = currentPosition;
+    public int size() {
+        return ids.length;
     }
 
     /**
-     * Returns the size of the playlist.
+     * Returns the id of the current video, or -1 if the playlist is empty.
      *
-     * @return The size of the playlist.
+     * @return The id of the current video.
      */
-    public int size() {
-        return playlist.size();
+    public long getCurrentId() {
+        return ids.length > 0 ? ids[toIndex(currentPosition)] : -1;
+    }
+
+    /**
+     * Plays the videos in a random order, starting with the current one, or back in order.
+     *
+     * @param shuffled Whether the videos are shuffled.
+     */
+    public void setShuffled(boolean shuffled) {
+        if (shuffled == (shuffleOrder != null)) {
+            return;
+        }
+        if (shuffled) {
+            shuffle(toIndex(currentPosition));
+        } else {
+            currentPosition = toIndex(currentPosition);
+            shuffleOrder = null;
+        }
+        trimVideos();
+    }
+
+    /**
+     * Returns whether the videos are played in a random order.
+     *
+     * @return Whether the videos are shuffled.
+     */
+    public boolean isShuffled() {
+        return shuffleOrder != null;
+    }
+
+    /**
+     * Sets whether the playlist starts over once past its end, and the other way around.
+     *
+     * @param repeating Whether the playlist repeats.
+     */
+    public void setRepeating(boolean repeating) {
+        this.repeating = repeating;
+        trimVideos();
+    }
+
+    /**
+     * Returns whether the playlist starts over once past its end.
+     *
+     * @return Whether the playlist repeats.
+     */
+    public boolean isRepeating() {
+        return repeating;
+    }
+
+    /**
+     * Returns the ids of the videos around the current one that are not filled in yet.
+     *
+     * @return The ids of the missing videos, possibly none.
+     */
+    public long[] getMissingIds() {
+        long[] missing = new long[2 * WINDOW + 1];
+        int count = 0;
+        for (int offset = -WINDOW; offset <= WINDOW; offset++) {
+            int position = offsetPosition(offset);
+            if (position < 0) {
+                continue;
+            }
+            long id = ids[toIndex(position)];
+            if (videos.get(id) == null && !contains(missing, count, id)) {
+                missing[count++] = id;
+            }
+        }
+        long[] result = new long[count];
+        System.arraycopy(missing, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Fills in videos around the current one. Videos too far from it are ignored.
+     *
+     * @param videos The videos to fill in.
+     */
+    public void putVideos(List<Video> videos) {
+        for (Video video : videos) {
+            this.videos.put(video.id, video);
+        }
+        trimVideos();
     }
 
     /**
@@ -73,11 +181,27 @@ public class Playlist {
      * @return The next video in the playlist.
      */
     public Video next() {
-        if ((currentPosition + 1) < size()) {
-            currentPosition++;
-            return playlist.get(currentPosition);
-        }
-        return null;
+        return moveTo(offsetPosition(1));
+    }
+
+    /**
+     * Returns the next video in the playlist without moving to it, or null if already at the end
+     * of the playlist.
+     *
+     * @return The next video in the playlist.
+     */
+    public Video peekNext() {
+        return getVideo(offsetPosition(1));
+    }
+
+    /**
+     * Returns the previous video in the playlist without moving to it, or null if already at the
+     * beginning of the playlist.
+     *
+     * @return The previous video in the playlist.
+     */
+    public Video peekPrevious() {
+        return getVideo(offsetPosition(-1));
     }
 
     /**
@@ -87,10 +211,97 @@ public class Playlist {
      * @return The previous video in the playlist.
      */
     public Video previous() {
-        if (currentPosition - 1 >= 0) {
-            currentPosition--;
-            return playlist.get(currentPosition);
+        return moveTo(offsetPosition(-1));
+    }
+
+    private Video moveTo(int position) {
+        Video video = getVideo(position);
+        if (video != null) {
+            currentPosition = position;
+            trimVideos();
+        }
+        return video;
+    }
+
+    private Video getVideo(int position) {
+        return position >= 0 ? videos.get(ids[toIndex(position)]) : null;
+    }
+
+    // Returns the position that far from the current one, or -1 if past either end.
+    private int offsetPosition(int offset) {
+        if (ids.length == 0) {
+            return -1;
+        }
+        int position = currentPosition + offset;
+        if (repeating) {
+            return ((position % ids.length) + ids.length) % ids.length;
+        }
+        return position >= 0 && position < ids.length ? position : -1;
+    }
+
+    private int toIndex(int position) {
+        return shuffleOrder != null ? shuffleOrder[position] : position;
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Shuffles the play order, with the video at the index first.
+    private void shuffle(int firstIndex) {
+        if (shuffleOrder == null || shuffleOrder.length != ids.length) {
+            shuffleOrder = new int[ids.length];
+        }
+        for (int i = 0; i < shuffleOrder.length; i++) {
+            shuffleOrder[i] = i;
+        }
+        // Fisher-Yates.
+        for (int i = shuffleOrder.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = shuffleOrder[i];
+            shuffleOrder[i] = shuffleOrder[j];
+            shuffleOrder[j] = swap;
+        }
+        if (firstIndex >= 0) {
+            for (int i = 0; i < shuffleOrder.length; i++) {
+                if (shuffleOrder[i] == firstIndex) {
+                    shuffleOrder[i] = shuffleOrder[0];
+                    shuffleOrder[0] = firstIndex;
+                    break;
+                }
+            }
+        }
+        currentPosition = 0;
+    }
+
+    // Drops the videos outside of the window around the current one.
+    private void trimVideos() {
+        long[] window = new long[2 * WINDOW + 1];
+        int count = 0;
+        for (int offset = -WINDOW; offset <= WINDOW; offset++) {
+            int position = offsetPosition(offset);
+            if (position >= 0) {
+                window[count++] = ids[toIndex(position)];
+            }
+        }
+        for (int i = videos.size() - 1; i >= 0; i--) {
+            if (!contains(window, count, videos.keyAt(i))) {
+                videos.removeAt(i);
+            }
+        }
+    }
+
+    private static boolean contains(long[] array, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] == value) {
+                return true;
+            }
         }
-        return null;
+        return false;
     }
-}
\ No newline at end of file
+}
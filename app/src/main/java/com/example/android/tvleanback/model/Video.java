@@ -32,6 +32,7 @@ public final class Video implements Parcelable {
     public final String cardImageUrl;
     public final String videoUrl;
     public final String studio;
+    public final String contentType;
 
     private Video(
             final long id,
@@ -41,7 +42,8 @@ public final class Video implements Parcelable {
             final String videoUrl,
             final String bgImageUrl,
             final String cardImageUrl,
-            final String studio) {
+            final String studio,
+            final String contentType) {
         this.id = id;
         this.category = category;
         this.title = title;
@@ -50,6 +52,7 @@ public final class Video implements Parcelable {
         this.bgImageUrl = bgImageUrl;
         this.cardImageUrl = cardImageUrl;
         this.studio = studio;
+        this.contentType = contentType;
     }
 
     protected Video(Parcel in) {
@@ -61,6 +64,7 @@ public final class Video implements Parcelable {
         cardImageUrl = in.readString();
         videoUrl = in.readString();
         studio = in.readString();
+        contentType = in.readString();
     }
 
     public static final Creator<Video> CREATOR = new Creator<Video>() {
@@ -94,6 +98,7 @@ public final class Video implements Parcelable {
         dest.writeString(cardImageUrl);
         dest.writeString(videoUrl);
         dest.writeString(studio);
+        dest.writeString(contentType);
     }
 
     @Override
@@ -106,6 +111,7 @@ public final class Video implements Parcelable {
         s += ", bgImageUrl='" + bgImageUrl + "'";
         s += ", cardImageUrl='" + cardImageUrl + "'";
         s += ", studio='" + cardImageUrl + "'";
+        s += ", contentType='" + contentType + "'";
         s += "}";
         return s;
     }
@@ -120,6 +126,7 @@ public final class Video implements Parcelable {
         private String cardImageUrl;
         private String videoUrl;
         private String studio;
+        private String contentType;
 
         public VideoBuilder id(long id) {
             this.id = id;
@@ -161,6 +168,11 @@ public final class Video implements Parcelable {
             return this;
         }
 
+        public VideoBuilder contentType(String contentType) {
+            this.contentType = contentType;
+            return this;
+        }
+
         public Video buildFromMediaDesc(MediaDescription desc) {
             return new Video(
                     Long.parseLong(desc.getMediaId()),
@@ -170,7 +182,8 @@ public final class Video implements Parcelable {
                     "", // Media URI - not provided by MediaDescription.
                     "", // Background Image URI - not provided by MediaDescription.
                     String.valueOf(desc.getIconUri()),
-                    String.valueOf(desc.getSubtitle())
+                    String.valueOf(desc.getSubtitle()),
+                    null // Content type - not provided by MediaDescription.
             );
         }
 
@@ -183,7 +196,8 @@ public final class Video implements Parcelable {
                     videoUrl,
                     bgImageUrl,
                     cardImageUrl,
-                    studio
+                    studio,
+                    contentType
             );
         }
     }
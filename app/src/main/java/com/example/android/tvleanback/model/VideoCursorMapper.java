@@ -26,14 +26,15 @@ import com.example.android.tvleanback.data.VideoContract;
  */
 public final class VideoCursorMapper extends CursorMapper {
 
-    private static int idIndex;
-    private static int nameIndex;
-    private static int descIndex;
-    private static int videoUrlIndex;
-    private static int bgImageUrlIndex;
-    private static int cardImageUrlIndex;
-    private static int studioIndex;
-    private static int categoryIndex;
+    private int idIndex;
+    private int nameIndex;
+    private int descIndex;
+    private int videoUrlIndex;
+    private int bgImageUrlIndex;
+    private int cardImageUrlIndex;
+    private int studioIndex;
+    private int categoryIndex;
+    private int contentTypeIndex;
 
     @Override
     protected void bindColumns(Cursor cursor) {
@@ -45,6 +46,7 @@ public final class VideoCursorMapper extends CursorMapper {
         cardImageUrlIndex = cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_CARD_IMG);
         studioIndex = cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_STUDIO);
         categoryIndex = cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_CATEGORY);
+        contentTypeIndex = cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_CONTENT_TYPE);
     }
 
     @Override
@@ -59,6 +61,8 @@ public final class VideoCursorMapper extends CursorMapper {
         String bgImageUrl = cursor.getString(bgImageUrlIndex);
         String cardImageUrl = cursor.getString(cardImageUrlIndex);
         String studio = cursor.getString(studioIndex);
+        // Not every query asks for the content type.
+        String contentType = contentTypeIndex >= 0 ? cursor.getString(contentTypeIndex) : null;
 
         // Build a Video object to be processed.
         return new Video.VideoBuilder()
@@ -70,6 +74,7 @@ public final class VideoCursorMapper extends CursorMapper {
                 .bgImageUrl(bgImageUrl)
                 .cardImageUrl(cardImageUrl)
                 .studio(studio)
+                .contentType(contentType)
                 .build();
     }
 }
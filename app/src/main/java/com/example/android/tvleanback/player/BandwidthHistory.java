@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.content.SharedPreferences;
+
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+
+/**
+ * Remembers a smoothed bandwidth estimate across sessions and app restarts.
+ * <p>
+ * Each sample is folded into an exponentially weighted moving average. The older the average, the
+ * less it is trusted: it decays towards the conservative default the player starts from without an
+ * estimate, and is dropped once it is too old to say anything about the current network.
+ */
+public class BandwidthHistory {
+
+    // Weight of a new sample in the moving average.
+    private static final float SMOOTHING_FACTOR = 0.3f;
+
+    // Every half life, the estimate moves halfway back towards the default.
+    private static final long HALF_LIFE_MS = 24 * 60 * 60 * 1000L;
+    private static final long MAX_AGE_MS = 7 * HALF_LIFE_MS;
+
+    private static final long DEFAULT_BITRATE = AdaptiveTrackSelection.DEFAULT_MAX_INITIAL_BITRATE;
+
+    private static final String KEY_BITRATE = "bitrate";
+    private static final String KEY_TIMESTAMP = "timestamp";
+    private static final String KEY_SAMPLE_COUNT = "sample_count";
+
+    private final SharedPreferences mSharedPreferences;
+
+    public BandwidthHistory(SharedPreferences sharedPreferences) {
+        mSharedPreferences = sharedPreferences;
+    }
+
+    /**
+     * Returns the estimate as of now, in bits per second, or {@link BandwidthMeter#NO_ESTIMATE} if
+     * there is no recent enough history.
+     */
+    public synchronized long getEstimate(long nowMs) {
+        long bitrate = mSharedPreferences.getLong(KEY_BITRATE, BandwidthMeter.NO_ESTIMATE);
+        long timestamp = mSharedPreferences.getLong(KEY_TIMESTAMP, 0);
+        if (bitrate == BandwidthMeter.NO_ESTIMATE) {
+            return BandwidthMeter.NO_ESTIMATE;
+        }
+
+        long ageMs = Math.max(0, nowMs - timestamp);
+        if (ageMs > MAX_AGE_MS) {
+            return BandwidthMeter.NO_ESTIMATE;
+        }
+        double weight = Math.pow(0.5, (double) ageMs / HALF_LIFE_MS);
+        return Math.round(DEFAULT_BITRATE + (bitrate - DEFAULT_BITRATE) * weight);
+    }
+
+    /** Returns how many samples the history was built from. */
+    public synchronized int getSampleCount() {
+        return mSharedPreferences.getInt(KEY_SAMPLE_COUNT, 0);
+    }
+
+    /** Folds a measured bitrate, in bits per second, into the history. */
+    public synchronized void addSample(long bitrate, long nowMs) {
+        long previous = getEstimate(nowMs);
+        long smoothed = previous == BandwidthMeter.NO_ESTIMATE
+                ? bitrate
+                : Math.round(previous + (bitrate - previous) * SMOOTHING_FACTOR);
+
+        mSharedPreferences.edit()
+                .putLong(KEY_BITRATE, smoothed)
+                .putLong(KEY_TIMESTAMP, nowMs)
+                .putInt(KEY_SAMPLE_COUNT, getSampleCount() + 1)
+                .apply();
+    }
+}
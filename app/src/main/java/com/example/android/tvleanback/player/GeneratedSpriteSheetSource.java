@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.media.MediaDataSource;
+import android.media.MediaMetadataRetriever;
+import android.os.Build;
+import android.util.Log;
+import androidx.annotation.RequiresApi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates sprite sheets from the frames of the video itself, and keeps them on disk so they are
+ * only generated once.
+ * <p>
+ * Frames are taken at keyframes near each interval, which is much cheaper than decoding up to the
+ * exact time. This only works for progressive media. Frames are only read from the device, a file
+ * or the media cache, since a sheet reads from all over its part of the video and would compete
+ * with playback for the network.
+ */
+public class GeneratedSpriteSheetSource implements ThumbnailSeekDataProvider.SpriteSheetSource {
+    private static final String TAG = "GeneratedSpriteSheet";
+
+    // Also the layout of the sheets published next to videos, see RemoteSpriteSheetSource.
+    static final int COLUMNS = 5;
+    static final int ROWS = 5;
+    static final int TILE_WIDTH = 320;
+    static final int TILE_HEIGHT = 180;
+    static final long INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+
+    // Sheets kept on disk for all videos, the least recently generated are deleted first.
+    private static final int MAX_CACHED_SHEETS = 200;
+    private static final int JPEG_QUALITY = 80;
+
+    private final File mCacheDirectory;
+    private final String mVideoUrl;
+    // Where the frames are read from, one or the other.
+    private final String mPath;
+    private final MediaCache mMediaCache;
+
+    private GeneratedSpriteSheetSource(File cacheDirectory, String videoUrl, String path,
+            MediaCache mediaCache) {
+        mCacheDirectory = cacheDirectory;
+        mVideoUrl = videoUrl;
+        mPath = path;
+        mMediaCache = mediaCache;
+    }
+
+    /** Generates the sheets of a video from a file on the device. */
+    public static GeneratedSpriteSheetSource fromFile(File cacheDirectory, String videoUrl,
+            String path) {
+        return new GeneratedSpriteSheetSource(cacheDirectory, videoUrl, path, null);
+    }
+
+    /**
+     * Generates the sheets of a video from the media cache, which must hold all of it. Sheets of
+     * parts evicted meanwhile are not generated.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    public static GeneratedSpriteSheetSource fromCache(File cacheDirectory, String videoUrl,
+            MediaCache mediaCache) {
+        return new GeneratedSpriteSheetSource(cacheDirectory, videoUrl, null, mediaCache);
+    }
+
+    @Override
+    public int getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public int getRows() {
+        return ROWS;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return TILE_WIDTH;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return TILE_HEIGHT;
+    }
+
+    @Override
+    public long getIntervalMs() {
+        return INTERVAL_MS;
+    }
+
+    @Override
+    public Bitmap loadSheet(int sheetIndex) throws IOException {
+        File file = new File(mCacheDirectory,
+                Integer.toHexString(mVideoUrl.hashCode()) + "_" + sheetIndex + ".jpg");
+        if (file.exists()) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+            Bitmap sheet = BitmapFactory.decodeFile(file.getPath(), options);
+            if (sheet != null) {
+                // Keep sheets in use from being trimmed.
+                file.setLastModified(System.currentTimeMillis());
+                return sheet;
+            }
+        }
+
+        Bitmap sheet = generateSheet(sheetIndex);
+        if (sheet != null) {
+            save(sheet, file);
+        }
+        return sheet;
+    }
+
+    private Bitmap generateSheet(int sheetIndex) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            if (mPath != null) {
+                retriever.setDataSource(mPath);
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                retriever.setDataSource(new CachedMediaDataSource(mMediaCache, mVideoUrl));
+            } else {
+                return null;
+            }
+
+            Bitmap sheet = Bitmap.createBitmap(
+                    COLUMNS * TILE_WIDTH, ROWS * TILE_HEIGHT, Bitmap.Config.RGB_565);
+            Canvas canvas = new Canvas(sheet);
+            Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            Rect tileRect = new Rect();
+            int tilesPerSheet = COLUMNS * ROWS;
+            for (int i = 0; i < tilesPerSheet; i++) {
+                long timeUs = TimeUnit.MILLISECONDS.toMicros(
+                        (sheetIndex * tilesPerSheet + i) * INTERVAL_MS);
+                Bitmap frame = retriever.getFrameAtTime(
+                        timeUs, MediaMetadataRetriever.OPTION_CLOSEST_SYNC);
+                if (frame == null) {
+                    // Past the end of the video.
+                    break;
+                }
+                int x = (i % COLUMNS) * TILE_WIDTH;
+                int y = (i / COLUMNS) * TILE_HEIGHT;
+                tileRect.set(x, y, x + TILE_WIDTH, y + TILE_HEIGHT);
+                canvas.drawBitmap(frame, null, tileRect, paint);
+                frame.recycle();
+            }
+            return sheet;
+        } catch (RuntimeException e) {
+            // Thrown for media the retriever cannot read.
+            Log.e(TAG, "Could not generate sprite sheet " + sheetIndex + " of " + mVideoUrl, e);
+            return null;
+        } finally {
+            retriever.release();
+        }
+    }
+
+    /** Reads a video from the media cache only. */
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    private static final class CachedMediaDataSource extends MediaDataSource {
+        private final MediaCache mMediaCache;
+        private final String mVideoUrl;
+
+        CachedMediaDataSource(MediaCache mediaCache, String videoUrl) {
+            mMediaCache = mediaCache;
+            mVideoUrl = videoUrl;
+        }
+
+        @Override
+        public int readAt(long position, byte[] buffer, int offset, int size) throws IOException {
+            if (size == 0) {
+                return 0;
+            }
+            return mMediaCache.readCached(mVideoUrl, position, buffer, offset, size);
+        }
+
+        @Override
+        public long getSize() {
+            return mMediaCache.getCachedLength(mVideoUrl);
+        }
+
+        @Override
+        public void close() {
+            // Nothing is kept open between reads.
+        }
+    }
+
+    private void save(Bitmap sheet, File file) {
+        if (!mCacheDirectory.exists() && !mCacheDirectory.mkdirs()) {
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            sheet.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save sprite sheet " + file, e);
+        }
+        trimCache();
+    }
+
+    private void trimCache() {
+        File[] files = mCacheDirectory.listFiles();
+        if (files == null || files.length <= MAX_CACHED_SHEETS) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                return Long.compare(lhs.lastModified(), rhs.lastModified());
+            }
+        });
+        for (int i = 0; i < files.length - MAX_CACHED_SHEETS; i++) {
+            files[i].delete();
+        }
+    }
+}
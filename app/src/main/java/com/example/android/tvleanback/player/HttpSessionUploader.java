@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+
+/**
+ * Posts batches of playback sessions to a collection endpoint as a JSON array.
+ */
+public class HttpSessionUploader implements PlaybackSessionStore.Uploader {
+    private static final String TAG = "HttpSessionUploader";
+
+    private static final int TIMEOUT_MS = 15 * 1000;
+
+    private final String mUrl;
+
+    public HttpSessionUploader(String url) {
+        mUrl = url;
+    }
+
+    @Override
+    public boolean upload(JSONArray sessions) {
+        HttpURLConnection connection = null;
+        try {
+            byte[] body = sessions.toString().getBytes(Charset.forName("UTF-8"));
+            connection = (HttpURLConnection) new URL(mUrl).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int responseCode = connection.getResponseCode();
+            return responseCode >= 200 && responseCode < 300;
+        } catch (IOException e) {
+            Log.e(TAG, "Could not upload playback sessions", e);
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
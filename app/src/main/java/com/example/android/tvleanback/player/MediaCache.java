@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import com.example.android.tvleanback.BuildConfig;
+import com.example.android.tvleanback.R;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSinkFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.CacheSpan;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the media played recently on disk, so that replays and trailers watched again are not
+ * downloaded again.
+ * <p>
+ * Media is cached under its video URL. The least recently used media is evicted once the cache
+ * grows over the budget set in the settings, which can change at any time.
+ */
+public final class MediaCache {
+    private static final String TAG = "MediaCache";
+
+    private static final String CACHE_DIRECTORY = "media";
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static MediaCache sInstance;
+
+    private final SimpleCache mCache;
+    private final BudgetEvictor mEvictor;
+
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mBytesSaved = new AtomicLong();
+
+    // Kept in a field, shared preferences only hold weak references to their listeners.
+    private SharedPreferences.OnSharedPreferenceChangeListener mBudgetListener;
+
+    private final CacheDataSource.EventListener mCacheListener =
+            new CacheDataSource.EventListener() {
+                @Override
+                public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+                    mHitCount.incrementAndGet();
+                    mBytesSaved.addAndGet(cachedBytesRead);
+                    if (BuildConfig.DEBUG) {
+                        Log.d(TAG, "Hits: " + mHitCount + ", misses: " + mMissCount
+                                + ", bytes saved: " + mBytesSaved
+                                + ", cache size: " + cacheSizeBytes);
+                    }
+                }
+            };
+
+    public static synchronized MediaCache getInstance(Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            final String key = appContext.getString(R.string.pref_key_media_cache_size);
+            SharedPreferences sharedPreferences =
+                    PreferenceManager.getDefaultSharedPreferences(appContext);
+
+            sInstance = new MediaCache(
+                    new File(appContext.getCacheDir(), CACHE_DIRECTORY),
+                    readBudget(appContext, sharedPreferences));
+            sInstance.mBudgetListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences preferences,
+                        String changedKey) {
+                    if (key.equals(changedKey)) {
+                        sInstance.setMaxBytes(readBudget(appContext, preferences));
+                    }
+                }
+            };
+            sharedPreferences.registerOnSharedPreferenceChangeListener(sInstance.mBudgetListener);
+        }
+        return sInstance;
+    }
+
+    /** Creates a cache in its own directory. Only one cache may use a directory at a time. */
+    public MediaCache(File directory, long maxBytes) {
+        mEvictor = new BudgetEvictor(maxBytes);
+        mCache = new SimpleCache(directory, mEvictor);
+    }
+
+    private static long readBudget(Context context, SharedPreferences sharedPreferences) {
+        String megabytes = sharedPreferences.getString(
+                context.getString(R.string.pref_key_media_cache_size),
+                context.getString(R.string.pref_default_media_cache_size));
+        return Long.parseLong(megabytes) * BYTES_PER_MEGABYTE;
+    }
+
+    /** Changes the budget of the cache, evicting media right away if it shrank. */
+    public void setMaxBytes(long maxBytes) {
+        mEvictor.setMaxBytes(mCache, maxBytes);
+    }
+
+    /**
+     * Wraps a data source factory so that what it reads is served from, and written to, the
+     * cache. The wrapped factory is only used for what is not cached yet.
+     */
+    public DataSource.Factory buildDataSourceFactory(final DataSource.Factory upstreamFactory) {
+        DataSource.Factory countingFactory = new DataSource.Factory() {
+            @Override
+            public DataSource createDataSource() {
+                return new CountingDataSource(upstreamFactory.createDataSource());
+            }
+        };
+        return new CacheDataSourceFactory(
+                mCache,
+                countingFactory,
+                new FileDataSourceFactory(),
+                new CacheDataSinkFactory(mCache, CacheDataSource.DEFAULT_MAX_CACHE_FILE_SIZE),
+                CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR,
+                mCacheListener);
+    }
+
+    /** Returns the length of a video if all of it is cached, or -1. */
+    public long getCachedLength(String url) {
+        long length = mCache.getContentLength(url);
+        if (length == C.LENGTH_UNSET || !mCache.isCached(url, 0, length)) {
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Reads part of a cached video from disk, never from the network. Parts may be evicted at
+     * any time.
+     *
+     * @return The number of bytes read, or -1 if the part at the position is not cached.
+     */
+    public int readCached(String url, long position, byte[] buffer, int offset, int length)
+            throws IOException {
+        NavigableSet<CacheSpan> spans = mCache.getCachedSpans(url);
+        if (spans == null) {
+            return -1;
+        }
+        for (CacheSpan span : spans) {
+            if (span.isCached && span.position <= position
+                    && position < span.position + span.length) {
+                try (RandomAccessFile file = new RandomAccessFile(span.file, "r")) {
+                    file.seek(position - span.position);
+                    return file.read(buffer, offset,
+                            (int) Math.min(length, span.position + span.length - position));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Returns how many reads were served from the cache. */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /** Returns how many requests had to go to the network. */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /** Returns how many bytes were served from the cache instead of the network. */
+    public long getBytesSaved() {
+        return mBytesSaved.get();
+    }
+
+    /** Returns how many bytes the cache holds. */
+    public long getCacheSpace() {
+        return mCache.getCacheSpace();
+    }
+
+    /** Counts the requests that miss the cache and go upstream. */
+    private final class CountingDataSource implements DataSource {
+        private final DataSource mUpstream;
+
+        CountingDataSource(DataSource upstream) {
+            mUpstream = upstream;
+        }
+
+        @Override
+        public long open(DataSpec dataSpec) throws IOException {
+            mMissCount.incrementAndGet();
+            return mUpstream.open(dataSpec);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int readLength) throws IOException {
+            return mUpstream.read(buffer, offset, readLength);
+        }
+
+        @Override
+        public Uri getUri() {
+            return mUpstream.getUri();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mUpstream.close();
+        }
+    }
+
+    /**
+     * Evicts the least recently used spans once the cache is over budget. Unlike
+     * {@link com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor}, the
+     * budget can change while the cache is in use.
+     * <p>
+     * The cache calls the evictor with itself locked, so the evictor locks the cache as well
+     * instead of having a lock of its own.
+     */
+    private static final class BudgetEvictor implements CacheEvictor, Comparator<CacheSpan> {
+        private final TreeSet<CacheSpan> mLeastRecentlyUsed = new TreeSet<>(this);
+        private long mMaxBytes;
+        private long mCurrentSize;
+
+        BudgetEvictor(long maxBytes) {
+            mMaxBytes = maxBytes;
+        }
+
+        void setMaxBytes(Cache cache, long maxBytes) {
+            synchronized (cache) {
+                mMaxBytes = maxBytes;
+                evict(cache, 0);
+            }
+        }
+
+        @Override
+        public void onCacheInitialized() {
+            // Spans are reported through onSpanAdded as the cache is initialized.
+        }
+
+        @Override
+        public void onStartFile(Cache cache, String key, long position, long length) {
+            evict(cache, length);
+        }
+
+        @Override
+        public void onSpanAdded(Cache cache, CacheSpan span) {
+            mLeastRecentlyUsed.add(span);
+            mCurrentSize += span.length;
+            evict(cache, 0);
+        }
+
+        @Override
+        public void onSpanRemoved(Cache cache, CacheSpan span) {
+            mLeastRecentlyUsed.remove(span);
+            mCurrentSize -= span.length;
+        }
+
+        @Override
+        public void onSpanTouched(Cache cache, CacheSpan oldSpan, CacheSpan newSpan) {
+            onSpanRemoved(cache, oldSpan);
+            onSpanAdded(cache, newSpan);
+        }
+
+        @Override
+        public int compare(CacheSpan lhs, CacheSpan rhs) {
+            long lastAccessTimestampDelta = lhs.lastAccessTimestamp - rhs.lastAccessTimestamp;
+            if (lastAccessTimestampDelta == 0) {
+                // Use the standard compareTo method as a tie-break.
+                return lhs.compareTo(rhs);
+            }
+            return lhs.lastAccessTimestamp < rhs.lastAccessTimestamp ? -1 : 1;
+        }
+
+        private void evict(Cache cache, long requiredSpace) {
+            while (mCurrentSize + requiredSpace > mMaxBytes && !mLeastRecentlyUsed.isEmpty()) {
+                try {
+                    cache.removeSpan(mLeastRecentlyUsed.first());
+                } catch (Cache.CacheException e) {
+                    Log.e(TAG, "Could not evict from the media cache", e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+/**
+ * A bandwidth meter that starts from the estimate of previous sessions instead of from nothing.
+ * <p>
+ * Until its own measurements give an estimate, it answers with the one remembered by a
+ * {@link BandwidthHistory}, so the first track selected already matches the network. Its own
+ * estimate is written back to the history every now and then.
+ */
+public class PersistedBandwidthMeter implements BandwidthMeter, TransferListener<Object> {
+
+    // How often the live estimate is written to the history.
+    private static final long PERSIST_INTERVAL_MS = 10 * 1000;
+
+    private final DefaultBandwidthMeter mMeter;
+    private final BandwidthHistory mHistory;
+    private long mLastPersistedMs;
+    private volatile EventListener mEventListener;
+
+    public PersistedBandwidthMeter(BandwidthHistory history) {
+        mHistory = history;
+        mMeter = new DefaultBandwidthMeter(new Handler(Looper.getMainLooper()),
+                new EventListener() {
+                    @Override
+                    public void onBandwidthSample(int elapsedMs, long bytes, long bitrate) {
+                        EventListener listener = mEventListener;
+                        if (listener != null) {
+                            listener.onBandwidthSample(elapsedMs, bytes, bitrate);
+                        }
+                    }
+                });
+    }
+
+    /** Sets a listener notified of every bandwidth sample on the main thread, or null. */
+    public void setEventListener(EventListener eventListener) {
+        mEventListener = eventListener;
+    }
+
+    @Override
+    public long getBitrateEstimate() {
+        long estimate = mMeter.getBitrateEstimate();
+        if (estimate != NO_ESTIMATE) {
+            return estimate;
+        }
+        return mHistory.getEstimate(System.currentTimeMillis());
+    }
+
+    @Override
+    public void onTransferStart(Object source, DataSpec dataSpec) {
+        mMeter.onTransferStart(source, dataSpec);
+    }
+
+    @Override
+    public void onBytesTransferred(Object source, int bytesTransferred) {
+        mMeter.onBytesTransferred(source, bytesTransferred);
+    }
+
+    @Override
+    public void onTransferEnd(Object source) {
+        mMeter.onTransferEnd(source);
+
+        long estimate = mMeter.getBitrateEstimate();
+        long nowMs = System.currentTimeMillis();
+        synchronized (this) {
+            if (estimate == NO_ESTIMATE || nowMs - mLastPersistedMs < PERSIST_INTERVAL_MS) {
+                return;
+            }
+            mLastPersistedMs = nowMs;
+        }
+        mHistory.addSample(estimate, nowMs);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+
+import com.example.android.tvleanback.BuildConfig;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.decoder.DecoderCounters;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.video.VideoRendererEventListener;
+
+/**
+ * Measures the quality of experience of a player, one {@link PlaybackSession} per video, and
+ * records the sessions into a {@link PlaybackSessionStore}.
+ * <p>
+ * Rebuffers are the times the player runs out of data after it was ready, seeks excepted. Time to
+ * first frame runs from preparing the video, join latency from the user asking for it.
+ * <p>
+ * Must be used on the thread the player calls its listeners on, the main thread.
+ */
+public class PlaybackAnalytics {
+    private static final String TAG = "PlaybackAnalytics";
+
+    private final SimpleExoPlayer mPlayer;
+    private final PersistedBandwidthMeter mBandwidthMeter;
+    private final PlaybackSessionStore mStore;
+
+    private PlaybackSession mSession;
+    private long mRequestTimeMs;
+    private long mPrepareTimeMs;
+    private boolean mRenderedFirstFrame;
+    private boolean mReady;
+    private boolean mSeeking;
+    private boolean mPeriodTransition;
+    private long mRebufferStartMs = -1;
+    private Format mVideoFormat;
+
+    private final Player.EventListener mPlayerListener = new Player.DefaultEventListener() {
+        @Override
+        public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
+            if (mSession == null) {
+                return;
+            }
+            switch (playbackState) {
+                case Player.STATE_BUFFERING:
+                    if (mReady && !mSeeking && mRebufferStartMs < 0) {
+                        mRebufferStartMs = SystemClock.elapsedRealtime();
+                        mSession.rebufferCount++;
+                    }
+                    break;
+                case Player.STATE_READY:
+                    mReady = true;
+                    mSeeking = false;
+                    endRebuffer();
+                    break;
+                default:
+                    endRebuffer();
+                    break;
+            }
+        }
+
+        @Override
+        public void onPositionDiscontinuity(int reason) {
+            mPeriodTransition = reason == Player.DISCONTINUITY_REASON_PERIOD_TRANSITION;
+            if (reason == Player.DISCONTINUITY_REASON_SEEK) {
+                mSeeking = true;
+            }
+        }
+    };
+
+    private final VideoRendererEventListener mVideoListener = new VideoRendererEventListener() {
+        @Override
+        public void onVideoEnabled(DecoderCounters counters) {
+        }
+
+        @Override
+        public void onVideoDecoderInitialized(String decoderName, long initializedTimestampMs,
+                long initializationDurationMs) {
+        }
+
+        @Override
+        public void onVideoInputFormatChanged(Format format) {
+            if (mSession != null && mVideoFormat != null
+                    && format.bitrate != mVideoFormat.bitrate) {
+                mSession.bitrateSwitches++;
+            }
+            mVideoFormat = format;
+        }
+
+        @Override
+        public void onDroppedFrames(int count, long elapsedMs) {
+            if (mSession != null) {
+                mSession.droppedFrames += count;
+            }
+        }
+
+        @Override
+        public void onVideoSizeChanged(int width, int height, int unappliedRotationDegrees,
+                float pixelWidthHeightRatio) {
+        }
+
+        @Override
+        public void onRenderedFirstFrame(Surface surface) {
+            mRenderedFirstFrame = true;
+            mReady = true;
+            recordFirstFrameIfShown();
+        }
+
+        @Override
+        public void onVideoDisabled(DecoderCounters counters) {
+        }
+    };
+
+    private final BandwidthMeter.EventListener mBandwidthListener =
+            new BandwidthMeter.EventListener() {
+                @Override
+                public void onBandwidthSample(int elapsedMs, long bytes, long bitrate) {
+                    if (mSession != null) {
+                        mSession.addBandwidthSample(bitrate);
+                    }
+                }
+            };
+
+    public PlaybackAnalytics(SimpleExoPlayer player, PersistedBandwidthMeter bandwidthMeter,
+            PlaybackSessionStore store) {
+        mPlayer = player;
+        mBandwidthMeter = bandwidthMeter;
+        mStore = store;
+        mPlayer.addListener(mPlayerListener);
+        mPlayer.setVideoDebugListener(mVideoListener);
+        mBandwidthMeter.setEventListener(mBandwidthListener);
+    }
+
+    /**
+     * Starts measuring a new video, ending the session of the previous one. Must be called after
+     * the player was told to play the video, and after it moved on to the video by itself.
+     *
+     * @param requestTimeMs When the user asked for the video, in {@link
+     *                      SystemClock#elapsedRealtime()} time.
+     */
+    public void startSession(String videoUrl, long requestTimeMs) {
+        endSession();
+        mSession = new PlaybackSession();
+        mSession.videoUrl = videoUrl;
+        mSession.startTime = System.currentTimeMillis();
+        mRequestTimeMs = requestTimeMs;
+        mPrepareTimeMs = SystemClock.elapsedRealtime();
+        mVideoFormat = null;
+        if (!mPeriodTransition) {
+            // The video was prepared or seeked to, wait for its first frame.
+            mRenderedFirstFrame = false;
+            mReady = false;
+        }
+        mPeriodTransition = false;
+        // A video played on from the previous one, gaplessly, is already showing.
+        recordFirstFrameIfShown();
+    }
+
+    /** Ends the current session, if any, and records it. */
+    public void endSession() {
+        if (mSession == null) {
+            return;
+        }
+        endRebuffer();
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "Time to first frame: " + mSession.timeToFirstFrame
+                    + ", join latency: " + mSession.joinLatency
+                    + ", rebuffers: " + mSession.rebufferCount
+                    + " (" + mSession.rebufferDuration + " ms)"
+                    + ", dropped frames: " + mSession.droppedFrames
+                    + ", bitrate switches: " + mSession.bitrateSwitches);
+        }
+        mStore.record(mSession);
+        mSession = null;
+    }
+
+    /** Ends the current session and stops listening to the player. */
+    public void release() {
+        endSession();
+        mPlayer.removeListener(mPlayerListener);
+        mPlayer.setVideoDebugListener(null);
+        mBandwidthMeter.setEventListener(null);
+    }
+
+    private void recordFirstFrameIfShown() {
+        if (mSession == null || mSession.timeToFirstFrame >= 0) {
+            return;
+        }
+        if (mRenderedFirstFrame) {
+            long nowMs = SystemClock.elapsedRealtime();
+            mSession.timeToFirstFrame = nowMs - mPrepareTimeMs;
+            mSession.joinLatency = nowMs - mRequestTimeMs;
+        }
+    }
+
+    private void endRebuffer() {
+        if (mRebufferStartMs >= 0) {
+            mSession.rebufferDuration += SystemClock.elapsedRealtime() - mRebufferStartMs;
+            mRebufferStartMs = -1;
+        }
+    }
+}
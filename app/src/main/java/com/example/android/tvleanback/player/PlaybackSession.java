@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The quality of experience of playing one video, from the moment it was asked for to the moment
+ * another video replaced it or playback stopped. Times are in milliseconds, and unknown values
+ * are -1.
+ */
+public class PlaybackSession {
+    // Bandwidth samples kept per session, the oldest are dropped first.
+    static final int MAX_BANDWIDTH_SAMPLES = 64;
+
+    private static final String KEY_VIDEO_URL = "video_url";
+    private static final String KEY_START_TIME = "start_time";
+    private static final String KEY_TIME_TO_FIRST_FRAME = "time_to_first_frame";
+    private static final String KEY_JOIN_LATENCY = "join_latency";
+    private static final String KEY_REBUFFER_COUNT = "rebuffer_count";
+    private static final String KEY_REBUFFER_DURATION = "rebuffer_duration";
+    private static final String KEY_DROPPED_FRAMES = "dropped_frames";
+    private static final String KEY_BITRATE_SWITCHES = "bitrate_switches";
+    private static final String KEY_BANDWIDTH_SAMPLES = "bandwidth_samples";
+
+    public String videoUrl;
+    /** Wall clock time the session started at. */
+    public long startTime;
+    /** From preparing the player to rendering the first frame. */
+    public long timeToFirstFrame = -1;
+    /** From the user asking for the video to rendering the first frame. */
+    public long joinLatency = -1;
+    public int rebufferCount;
+    public long rebufferDuration;
+    public int droppedFrames;
+    public int bitrateSwitches;
+    /** Bandwidth estimates, in bits per second, measured while the video played. */
+    public final List<Long> bandwidthSamples = new ArrayList<>();
+
+    void addBandwidthSample(long bitrate) {
+        if (bandwidthSamples.size() == MAX_BANDWIDTH_SAMPLES) {
+            bandwidthSamples.remove(0);
+        }
+        bandwidthSamples.add(bitrate);
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONArray samples = new JSONArray();
+        for (long sample : bandwidthSamples) {
+            samples.put(sample);
+        }
+        return new JSONObject()
+                .put(KEY_VIDEO_URL, videoUrl)
+                .put(KEY_START_TIME, startTime)
+                .put(KEY_TIME_TO_FIRST_FRAME, timeToFirstFrame)
+                .put(KEY_JOIN_LATENCY, joinLatency)
+                .put(KEY_REBUFFER_COUNT, rebufferCount)
+                .put(KEY_REBUFFER_DURATION, rebufferDuration)
+                .put(KEY_DROPPED_FRAMES, droppedFrames)
+                .put(KEY_BITRATE_SWITCHES, bitrateSwitches)
+                .put(KEY_BANDWIDTH_SAMPLES, samples);
+    }
+
+    public static PlaybackSession fromJson(JSONObject json) throws JSONException {
+        PlaybackSession session = new PlaybackSession();
+        session.videoUrl = json.optString(KEY_VIDEO_URL, null);
+        session.startTime = json.getLong(KEY_START_TIME);
+        session.timeToFirstFrame = json.getLong(KEY_TIME_TO_FIRST_FRAME);
+        session.joinLatency = json.getLong(KEY_JOIN_LATENCY);
+        session.rebufferCount = json.getInt(KEY_REBUFFER_COUNT);
+        session.rebufferDuration = json.getLong(KEY_REBUFFER_DURATION);
+        session.droppedFrames = json.getInt(KEY_DROPPED_FRAMES);
+        session.bitrateSwitches = json.getInt(KEY_BITRATE_SWITCHES);
+        JSONArray samples = json.optJSONArray(KEY_BANDWIDTH_SAMPLES);
+        if (samples != null) {
+            for (int i = 0; i < samples.length(); i++) {
+                session.bandwidthSamples.add(samples.getLong(i));
+            }
+        }
+        return session;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.example.android.tvleanback.R;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the most recent playback sessions on disk until they are uploaded. Once full, the oldest
+ * session makes room for the newest.
+ */
+public class PlaybackSessionStore {
+    private static final String TAG = "PlaybackSessionStore";
+
+    private static final String FILE_NAME = "playback_sessions.json";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Sends a batch of sessions somewhere. */
+    public interface Uploader {
+        /** Returns whether the sessions were accepted, and can be forgotten. */
+        boolean upload(JSONArray sessions);
+    }
+
+    private static PlaybackSessionStore sInstance;
+
+    private final File mFile;
+    private final int mCapacity;
+    private final ArrayDeque<PlaybackSession> mSessions = new ArrayDeque<>();
+    private boolean mLoaded;
+
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private Uploader mUploader;
+    private int mUploadBatchSize;
+
+    public static synchronized PlaybackSessionStore getInstance(Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            sInstance = new PlaybackSessionStore(
+                    new File(appContext.getFilesDir(), FILE_NAME),
+                    appContext.getResources().getInteger(R.integer.playback_sessions_capacity));
+
+            String uploadUrl = appContext.getString(R.string.playback_sessions_upload_url);
+            if (!TextUtils.isEmpty(uploadUrl)) {
+                sInstance.setUploader(new HttpSessionUploader(uploadUrl),
+                        appContext.getResources().getInteger(
+                                R.integer.playback_sessions_upload_batch));
+            }
+        }
+        return sInstance;
+    }
+
+    public PlaybackSessionStore(File file, int capacity) {
+        mFile = file;
+        mCapacity = capacity;
+    }
+
+    /** Uploads the sessions in batches each time enough of them have been recorded. */
+    public synchronized void setUploader(Uploader uploader, int batchSize) {
+        mUploader = uploader;
+        mUploadBatchSize = batchSize;
+    }
+
+    /** Stores a session, and uploads a batch if it is due, off the calling thread. */
+    public void record(final PlaybackSession session) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                addAndUploadIfDue(session);
+            }
+        });
+    }
+
+    private synchronized void addAndUploadIfDue(PlaybackSession session) {
+        add(session);
+        if (mUploader != null && mSessions.size() >= mUploadBatchSize) {
+            upload(mUploader, mUploadBatchSize);
+        }
+    }
+
+    public synchronized void add(PlaybackSession session) {
+        load();
+        if (mSessions.size() == mCapacity) {
+            mSessions.removeFirst();
+        }
+        mSessions.addLast(session);
+        save();
+    }
+
+    public synchronized int size() {
+        load();
+        return mSessions.size();
+    }
+
+    /** Returns every stored session, oldest first. */
+    public synchronized JSONArray export() {
+        load();
+        return toJson(mSessions.size());
+    }
+
+    /**
+     * Hands the oldest sessions over to an uploader, and forgets them if it accepted them.
+     *
+     * @return Whether the sessions were uploaded.
+     */
+    public synchronized boolean upload(Uploader uploader, int batchSize) {
+        load();
+        int count = Math.min(batchSize, mSessions.size());
+        if (count == 0) {
+            return true;
+        }
+        if (!uploader.upload(toJson(count))) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            mSessions.removeFirst();
+        }
+        save();
+        return true;
+    }
+
+    private JSONArray toJson(int count) {
+        JSONArray sessions = new JSONArray();
+        Iterator<PlaybackSession> iterator = mSessions.iterator();
+        for (int i = 0; i < count; i++) {
+            try {
+                sessions.put(iterator.next().toJson());
+            } catch (JSONException e) {
+                Log.e(TAG, "Could not serialize a playback session", e);
+            }
+        }
+        return sessions;
+    }
+
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mFile.exists()) {
+            return;
+        }
+        try (InputStream in = new FileInputStream(mFile)) {
+            byte[] bytes = new byte[(int) mFile.length()];
+            int offset = 0;
+            int read;
+            while (offset < bytes.length
+                    && (read = in.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += read;
+            }
+            JSONArray sessions = new JSONArray(new String(bytes, 0, offset, UTF_8));
+            for (int i = 0; i < sessions.length() && i < mCapacity; i++) {
+                mSessions.addLast(PlaybackSession.fromJson(sessions.getJSONObject(i)));
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Could not read the playback sessions, starting over", e);
+            mSessions.clear();
+        }
+    }
+
+    private void save() {
+        try (OutputStream out = new FileOutputStream(mFile)) {
+            out.write(toJson(mSessions.size()).toString().getBytes(UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write the playback sessions", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.android.tvleanback.R;
+import com.google.android.exoplayer2.ExoPlayerFactory;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.google.android.exoplayer2.trackselection.TrackSelection;
+
+/**
+ * Keeps a warm {@link SimpleExoPlayer} alive between playback sessions, so that replaying does
+ * not pay for codec and renderer initialization again.
+ * <p>
+ * A released player is stopped and kept for an idle timeout before it is really released. The
+ * bandwidth meter is shared by all players, and its estimate is persisted, so each session starts
+ * from the estimate of the previous one, even after the app restarts.
+ * <p>
+ * Must be used on the main thread.
+ */
+public final class PlayerPool {
+
+    private static final String BANDWIDTH_HISTORY_PREFERENCES = "bandwidth_history";
+
+    private static PlayerPool sInstance;
+
+    private final Context mContext;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final PersistedBandwidthMeter mBandwidthMeter;
+    private long mIdleTimeoutMs;
+    private PooledPlayer mIdlePlayer;
+
+    private final Runnable mReleaseIdlePlayer = new Runnable() {
+        @Override
+        public void run() {
+            if (mIdlePlayer != null) {
+                mIdlePlayer.player.release();
+                mIdlePlayer = null;
+            }
+        }
+    };
+
+    public static synchronized PlayerPool getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new PlayerPool(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private PlayerPool(Context context) {
+        mContext = context;
+        mBandwidthMeter = new PersistedBandwidthMeter(new BandwidthHistory(
+                context.getSharedPreferences(BANDWIDTH_HISTORY_PREFERENCES, Context.MODE_PRIVATE)));
+        mIdleTimeoutMs = context.getResources().getInteger(R.integer.player_pool_idle_timeout);
+    }
+
+    /** Sets how long a released player is kept warm before it is really released. */
+    public void setIdleTimeout(long idleTimeoutMs) {
+        mIdleTimeoutMs = idleTimeoutMs;
+    }
+
+    /** Returns the bandwidth meter that the data sources of pooled players must report to. */
+    public PersistedBandwidthMeter getBandwidthMeter() {
+        return mBandwidthMeter;
+    }
+
+    /** Returns the warm player if there is one, or a new player otherwise. */
+    public PooledPlayer acquire() {
+        mHandler.removeCallbacks(mReleaseIdlePlayer);
+        if (mIdlePlayer != null) {
+            PooledPlayer player = mIdlePlayer;
+            mIdlePlayer = null;
+            return player;
+        }
+
+        TrackSelection.Factory videoTrackSelectionFactory =
+                new AdaptiveTrackSelection.Factory(mBandwidthMeter);
+        DefaultTrackSelector trackSelector = new DefaultTrackSelector(videoTrackSelectionFactory);
+        SimpleExoPlayer player = ExoPlayerFactory.newSimpleInstance(mContext, trackSelector);
+        return new PooledPlayer(player, trackSelector);
+    }
+
+    /**
+     * Gives a player back to the pool. The player must already be detached from its glue host,
+     * so that nothing holds on to its surface or listeners.
+     */
+    public void release(PooledPlayer pooledPlayer) {
+        SimpleExoPlayer player = pooledPlayer.player;
+        player.setPlayWhenReady(false);
+        player.stop();
+        player.clearVideoSurface();
+
+        if (mIdlePlayer != null || mIdleTimeoutMs <= 0) {
+            // Only one player is kept warm.
+            player.release();
+            return;
+        }
+        mIdlePlayer = pooledPlayer;
+        mHandler.postDelayed(mReleaseIdlePlayer, mIdleTimeoutMs);
+    }
+
+    /** A player together with the track selector it was built with. */
+    public static final class PooledPlayer {
+        public final SimpleExoPlayer player;
+        public final DefaultTrackSelector trackSelector;
+
+        PooledPlayer(SimpleExoPlayer player, DefaultTrackSelector trackSelector) {
+            this.player = player;
+            this.trackSelector = trackSelector;
+        }
+    }
+}
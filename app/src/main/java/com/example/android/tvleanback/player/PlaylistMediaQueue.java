@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import com.example.android.tvleanback.model.Playlist;
+import com.example.android.tvleanback.model.Video;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.source.DynamicConcatenatingMediaSource;
+import com.google.android.exoplayer2.source.MediaSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays the videos of a {@link Playlist} through one {@link DynamicConcatenatingMediaSource}
+ * holding the current video, the next one and optionally the previous one.
+ * <p>
+ * The player buffers across the end of the current video into the next one, so skipping to the
+ * next video starts from data already in memory and auto-advance is gapless. How far ahead it
+ * buffers, and so how much memory preloading takes, is bounded by the player's load control. The
+ * previous video is only prepared, which saves connection setup and probing when going back.
+ */
+public class PlaylistMediaQueue {
+
+    /** Builds the media source of a video. */
+    public interface MediaSourceBuilder {
+        MediaSource build(Video video);
+    }
+
+    /** Listens for when the video being played changes. */
+    public interface OnVideoChangedListener {
+        void onVideoChanged(Video video);
+    }
+
+    private final ExoPlayer mPlayer;
+    private final Playlist mPlaylist;
+    private final MediaSourceBuilder mMediaSourceBuilder;
+    private final OnVideoChangedListener mListener;
+    private final boolean mPreloadPrevious;
+
+    // The videos of the concatenated media source, in the same order.
+    private final List<Video> mVideos = new ArrayList<>();
+    private DynamicConcatenatingMediaSource mMediaSource;
+    private int mCurrentIndex;
+
+    private final Player.EventListener mPlayerListener = new Player.DefaultEventListener() {
+        @Override
+        public void onPositionDiscontinuity(int reason) {
+            onCurrentWindowChanged(mPlayer.getCurrentWindowIndex());
+        }
+    };
+
+    public PlaylistMediaQueue(
+            ExoPlayer player,
+            Playlist playlist,
+            MediaSourceBuilder mediaSourceBuilder,
+            OnVideoChangedListener listener,
+            boolean preloadPrevious) {
+        mPlayer = player;
+        mPlaylist = playlist;
+        mMediaSourceBuilder = mediaSourceBuilder;
+        mListener = listener;
+        mPreloadPrevious = preloadPrevious;
+        mPlayer.addListener(mPlayerListener);
+    }
+
+    /** Stops listening to the player. */
+    public void release() {
+        mPlayer.removeListener(mPlayerListener);
+    }
+
+    /** Starts playing a video from scratch, preloading its neighbours in the playlist. */
+    public void play(Video video) {
+        mMediaSource = new DynamicConcatenatingMediaSource();
+        mVideos.clear();
+        mCurrentIndex = 0;
+        append(video);
+        updateNeighbours();
+
+        mPlayer.prepare(mMediaSource);
+        mPlayer.seekTo(mCurrentIndex, C.TIME_UNSET);
+        mListener.onVideoChanged(video);
+    }
+
+    /**
+     * Preloads the neighbours of the current video again, for when the playlist has changed.
+     */
+    public void onPlaylistChanged() {
+        if (mMediaSource != null) {
+            updateNeighbours();
+        }
+    }
+
+    /**
+     * Skips to the next video in the playlist.
+     *
+     * @return False if there is no next video, the video being played goes on then.
+     */
+    public boolean skipToNext() {
+        if (mCurrentIndex + 1 < mVideos.size()) {
+            seekTo(mCurrentIndex + 1);
+            return true;
+        }
+        Video next = mPlaylist.next();
+        if (next == null) {
+            return false;
+        }
+        play(next);
+        return true;
+    }
+
+    /**
+     * Skips to the previous video in the playlist.
+     *
+     * @return False if there is no previous video, the video being played goes on then.
+     */
+    public boolean skipToPrevious() {
+        if (mCurrentIndex > 0) {
+            seekTo(mCurrentIndex - 1);
+            return true;
+        }
+        Video previous = mPlaylist.previous();
+        if (previous == null) {
+            return false;
+        }
+        play(previous);
+        return true;
+    }
+
+    private void seekTo(int windowIndex) {
+        Video video = mVideos.get(windowIndex);
+        mPlayer.seekTo(windowIndex, C.TIME_UNSET);
+        // The player reports the seek as a discontinuity right away, which may have moved the
+        // queue to the video and its neighbours already, and so shifted its index.
+        onCurrentWindowChanged(mVideos.indexOf(video));
+    }
+
+    private void onCurrentWindowChanged(int windowIndex) {
+        if (windowIndex == mCurrentIndex || windowIndex < 0 || windowIndex >= mVideos.size()) {
+            return;
+        }
+        // Keep the playlist in step with the player, which may have moved on by itself.
+        while (mCurrentIndex < windowIndex) {
+            mPlaylist.next();
+            mCurrentIndex++;
+        }
+        while (mCurrentIndex > windowIndex) {
+            mPlaylist.previous();
+            mCurrentIndex--;
+        }
+        updateNeighbours();
+        mListener.onVideoChanged(mVideos.get(mCurrentIndex));
+    }
+
+    // Makes the media source hold exactly the current video and its neighbours.
+    private void updateNeighbours() {
+        // Next video.
+        Video next = mPlaylist.peekNext();
+        while (mVideos.size() > mCurrentIndex + 1
+                && (next == null || !next.equals(mVideos.get(mCurrentIndex + 1))
+                        || mVideos.size() > mCurrentIndex + 2)) {
+            remove(mVideos.size() - 1);
+        }
+        if (next != null && mVideos.size() == mCurrentIndex + 1) {
+            append(next);
+        }
+
+        // Previous video.
+        Video previous = mPreloadPrevious ? mPlaylist.peekPrevious() : null;
+        while (mCurrentIndex > 0
+                && (previous == null || !previous.equals(mVideos.get(mCurrentIndex - 1))
+                        || mCurrentIndex > 1)) {
+            remove(0);
+            mCurrentIndex--;
+        }
+        if (previous != null && mCurrentIndex == 0) {
+            mVideos.add(0, previous);
+            mMediaSource.addMediaSource(0, mMediaSourceBuilder.build(previous));
+            mCurrentIndex++;
+        }
+    }
+
+    private void append(Video video) {
+        mVideos.add(video);
+        mMediaSource.addMediaSource(mMediaSourceBuilder.build(video));
+    }
+
+    private void remove(int index) {
+        mVideos.remove(index);
+        mMediaSource.removeMediaSource(index);
+    }
+}
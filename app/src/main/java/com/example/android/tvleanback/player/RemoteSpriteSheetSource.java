@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * Downloads sprite sheets published next to the video, for content that comes with them.
+ * <p>
+ * Sheets are downloaded one at a time as scrubbing reaches them, far less than reading frames from
+ * the video would take.
+ */
+public class RemoteSpriteSheetSource implements ThumbnailSeekDataProvider.SpriteSheetSource {
+    private static final int TIMEOUT_MS = 10 * 1000;
+    // Replaces the extension of the video URL, if it has one, for the URL of a sheet.
+    private static final String SHEET_SUFFIX = "_sprites_%d.jpg";
+
+    private final String mUrlTemplate;
+    private final int mColumns;
+    private final int mRows;
+    private final int mTileWidth;
+    private final int mTileHeight;
+    private final long mIntervalMs;
+
+    /**
+     * @param urlTemplate The URL of the sheets, with a %d where the index of the sheet goes.
+     */
+    public RemoteSpriteSheetSource(String urlTemplate, int columns, int rows, int tileWidth,
+            int tileHeight, long intervalMs) {
+        mUrlTemplate = urlTemplate;
+        mColumns = columns;
+        mRows = rows;
+        mTileWidth = tileWidth;
+        mTileHeight = tileHeight;
+        mIntervalMs = intervalMs;
+    }
+
+    /**
+     * Returns the source of the sheets published next to a video: at the URL of the video with
+     * "_sprites_" and the index of the sheet in place of its extension, as JPEG, laid out as
+     * {@link GeneratedSpriteSheetSource} lays out its sheets. Videos without them have no
+     * thumbnails.
+     */
+    public static RemoteSpriteSheetSource forVideo(String videoUrl) {
+        Uri uri = Uri.parse(videoUrl);
+        String path = uri.getEncodedPath() != null ? uri.getEncodedPath() : "";
+        int extension = path.lastIndexOf('.');
+        if (extension <= path.lastIndexOf('/')) {
+            extension = path.length();
+        }
+        String video = uri.buildUpon()
+                .encodedPath(path.substring(0, extension))
+                .clearQuery()
+                .fragment(null)
+                .build()
+                .toString();
+        // The URL is escaped with percent signs, which the template must keep as they are.
+        return new RemoteSpriteSheetSource(video.replace("%", "%%") + SHEET_SUFFIX,
+                GeneratedSpriteSheetSource.COLUMNS,
+                GeneratedSpriteSheetSource.ROWS,
+                GeneratedSpriteSheetSource.TILE_WIDTH,
+                GeneratedSpriteSheetSource.TILE_HEIGHT,
+                GeneratedSpriteSheetSource.INTERVAL_MS);
+    }
+
+    @Override
+    public int getColumns() {
+        return mColumns;
+    }
+
+    @Override
+    public int getRows() {
+        return mRows;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return mTileWidth;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return mTileHeight;
+    }
+
+    @Override
+    public long getIntervalMs() {
+        return mIntervalMs;
+    }
+
+    @Override
+    public Bitmap loadSheet(int sheetIndex) throws IOException {
+        URL url = new URL(String.format(Locale.US, mUrlTemplate, sheetIndex));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                // Past the last sheet.
+                return null;
+            }
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+            try (InputStream in = connection.getInputStream()) {
+                return BitmapFactory.decodeStream(in, null, options);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns bursts of rewind and fast forward presses into a single seek.
+ * <p>
+ * Each press moves a pending target instead of the player. Presses in the same direction in quick
+ * succession move it further and further, so holding a button scrubs faster the longer it is held.
+ * Once no press has come for a moment, the player seeks to the target once, throwing its buffer
+ * away once instead of on every press.
+ * <p>
+ * Must be used on the main thread.
+ */
+public class SeekController {
+
+    /** What the controller seeks. */
+    public interface Target {
+        long getCurrentPosition();
+
+        /** Returns the duration, or a negative value if it is not known yet. */
+        long getDuration();
+
+        void seekTo(long positionMs);
+    }
+
+    private static final long BASE_STEP_MS = TimeUnit.SECONDS.toMillis(10);
+    // Step multipliers, moving up one speed every PRESSES_PER_SPEED presses of a scrub.
+    private static final int[] SPEEDS = {1, 2, 4, 8, 16};
+    private static final int PRESSES_PER_SPEED = 4;
+    // Presses further apart than this start a new scrub.
+    private static final long SCRUB_TIMEOUT_MS = 400;
+    // How long input must settle before the pending seek is issued.
+    private static final long SETTLE_DELAY_MS = 500;
+
+    private final Target mTarget;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private long mSnapIntervalMs;
+
+    private boolean mSeekPending;
+    private long mPendingPositionMs;
+    private int mDirection;
+    private int mPressCount;
+    private long mLastPressMs;
+
+    private final Runnable mCommitSeek = new Runnable() {
+        @Override
+        public void run() {
+            commit();
+        }
+    };
+
+    public SeekController(Target target) {
+        mTarget = target;
+    }
+
+    /**
+     * Snaps seeks to multiples of an interval, or not at all if zero. Set it to the keyframe
+     * interval of the content, so seeks land on keyframes and need no decoding up to the target.
+     */
+    public void setSnapInterval(long snapIntervalMs) {
+        mSnapIntervalMs = snapIntervalMs;
+    }
+
+    /** Moves the pending target backwards. */
+    public void rewind() {
+        press(-1);
+    }
+
+    /** Moves the pending target forwards, if the duration is known. */
+    public void fastForward() {
+        if (mTarget.getDuration() > -1) {
+            press(1);
+        }
+    }
+
+    /** Returns whether presses are waiting to be turned into a seek. */
+    public boolean isSeekPending() {
+        return mSeekPending;
+    }
+
+    /** Returns where the player will seek to once input settles. */
+    public long getPendingPosition() {
+        return mPendingPositionMs;
+    }
+
+    /** Issues the pending seek right away, if any. */
+    public void commit() {
+        mHandler.removeCallbacks(mCommitSeek);
+        if (!mSeekPending) {
+            return;
+        }
+        mSeekPending = false;
+        mPressCount = 0;
+        mTarget.seekTo(snap(mPendingPositionMs));
+    }
+
+    /** Drops the pending seek, if any. */
+    public void cancel() {
+        mHandler.removeCallbacks(mCommitSeek);
+        mSeekPending = false;
+        mPressCount = 0;
+    }
+
+    private void press(int direction) {
+        long nowMs = SystemClock.uptimeMillis();
+        if (!mSeekPending) {
+            mPendingPositionMs = mTarget.getCurrentPosition();
+            mPressCount = 0;
+        } else if (direction != mDirection || nowMs - mLastPressMs > SCRUB_TIMEOUT_MS) {
+            // Changing direction or pausing starts again from the slowest speed.
+            mPressCount = 0;
+        }
+        mSeekPending = true;
+        mDirection = direction;
+        mLastPressMs = nowMs;
+
+        int speed = SPEEDS[Math.min(mPressCount / PRESSES_PER_SPEED, SPEEDS.length - 1)];
+        mPressCount++;
+        mPendingPositionMs = clamp(mPendingPositionMs + direction * BASE_STEP_MS * speed);
+
+        mHandler.removeCallbacks(mCommitSeek);
+        mHandler.postDelayed(mCommitSeek, SETTLE_DELAY_MS);
+    }
+
+    private long clamp(long positionMs) {
+        long durationMs = mTarget.getDuration();
+        if (durationMs > -1 && positionMs > durationMs) {
+            return durationMs;
+        }
+        return positionMs < 0 ? 0 : positionMs;
+    }
+
+    private long snap(long positionMs) {
+        if (mSnapIntervalMs <= 0) {
+            return positionMs;
+        }
+        long snapped = Math.round((double) positionMs / mSnapIntervalMs) * mSnapIntervalMs;
+        return clamp(snapped);
+    }
+}
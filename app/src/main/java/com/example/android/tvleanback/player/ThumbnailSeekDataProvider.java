@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import androidx.leanback.media.PlayerAdapter;
+import androidx.leanback.widget.PlaybackSeekDataProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides the thumbnails shown while scrubbing, cut out of sprite sheets: images holding a grid
+ * of thumbnails taken at regular intervals.
+ * <p>
+ * Thumbnails are kept in memory once cut, so scrubbing back and forth over the same part of a
+ * video does not decode anything again. Sheets are loaded one at a time, off the main thread, and
+ * the last sheet is kept since thumbnails are mostly asked for in order.
+ */
+public class ThumbnailSeekDataProvider extends PlaybackSeekDataProvider {
+    private static final String TAG = "ThumbnailSeekData";
+
+    private static final int TILE_CACHE_BYTES = 8 * 1024 * 1024;
+
+    /** Where sprite sheets come from, and how thumbnails are laid out in them. */
+    public interface SpriteSheetSource {
+        int getColumns();
+
+        int getRows();
+
+        int getTileWidth();
+
+        int getTileHeight();
+
+        /** Returns the time between two thumbnails. */
+        long getIntervalMs();
+
+        /** Loads a sheet, or returns null if there is none. Called on a background thread. */
+        Bitmap loadSheet(int sheetIndex) throws IOException;
+    }
+
+    private final PlayerAdapter mPlayerAdapter;
+    private final SpriteSheetSource mSource;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    private final LruCache<Integer, Bitmap> mTiles = new LruCache<Integer, Bitmap>(
+            TILE_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(Integer index, Bitmap tile) {
+            return tile.getByteCount();
+        }
+    };
+    // Callbacks of the thumbnails being loaded, by index.
+    private final Map<Integer, ResultCallback> mPending = new ConcurrentHashMap<>();
+
+    private long[] mSeekPositions;
+    private long mSeekPositionsDuration;
+
+    // Only used on the executor thread.
+    private int mSheetIndex = -1;
+    private Bitmap mSheet;
+
+    public ThumbnailSeekDataProvider(PlayerAdapter playerAdapter, SpriteSheetSource source) {
+        mPlayerAdapter = playerAdapter;
+        mSource = source;
+    }
+
+    /**
+     * Picks where the sprite sheets of a video come from. They are generated from the video when
+     * it is on the device, as a file or all in the media cache. Otherwise the sheets published
+     * next to the video are downloaded, so thumbnails never read the video over the network.
+     *
+     * @param cacheDirectory Where generated sheets are kept.
+     * @param progressive    Whether the video is progressive media, the only kind sheets can be
+     *                       generated from.
+     */
+    public static SpriteSheetSource createSource(File cacheDirectory, MediaCache mediaCache,
+            String videoUrl, boolean progressive) {
+        if (progressive) {
+            Uri uri = Uri.parse(videoUrl);
+            if (uri.getScheme() == null
+                    || ContentResolver.SCHEME_FILE.equals(uri.getScheme())) {
+                return GeneratedSpriteSheetSource.fromFile(cacheDirectory, videoUrl,
+                        uri.getPath());
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                    && mediaCache.getCachedLength(videoUrl) != -1) {
+                return GeneratedSpriteSheetSource.fromCache(cacheDirectory, videoUrl, mediaCache);
+            }
+        }
+        return RemoteSpriteSheetSource.forVideo(videoUrl);
+    }
+
+    @Override
+    public long[] getSeekPositions() {
+        long duration = mPlayerAdapter.getDuration();
+        if (duration <= 0) {
+            return null;
+        }
+        if (mSeekPositions == null || duration != mSeekPositionsDuration) {
+            int count = (int) (duration / mSource.getIntervalMs()) + 1;
+            mSeekPositions = new long[count];
+            for (int i = 0; i < count; i++) {
+                mSeekPositions[i] = i * mSource.getIntervalMs();
+            }
+            mSeekPositionsDuration = duration;
+        }
+        return mSeekPositions;
+    }
+
+    @Override
+    public void getThumbnail(final int index, ResultCallback callback) {
+        Bitmap tile = mTiles.get(index);
+        if (tile != null) {
+            callback.onThumbnailLoaded(tile, index);
+            return;
+        }
+        if (mPending.put(index, callback) != null) {
+            // Already being loaded, only the callback changed.
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mPending.containsKey(index)) {
+                    // Not wanted any more.
+                    return;
+                }
+                final Bitmap tile = loadTile(index);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        ResultCallback callback = mPending.remove(index);
+                        if (tile == null) {
+                            return;
+                        }
+                        mTiles.put(index, tile);
+                        if (callback != null) {
+                            callback.onThumbnailLoaded(tile, index);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public void reset() {
+        // Drop the requests of the scrub that ended, but keep the thumbnails for the next one.
+        mPending.clear();
+    }
+
+    /** Stops loading and frees every thumbnail. The provider cannot be used afterwards. */
+    public void release() {
+        mPending.clear();
+        mExecutor.shutdownNow();
+        mTiles.evictAll();
+    }
+
+    private Bitmap loadTile(int index) {
+        int tilesPerSheet = mSource.getColumns() * mSource.getRows();
+        int sheetIndex = index / tilesPerSheet;
+        if (sheetIndex != mSheetIndex) {
+            mSheet = null;
+            try {
+                mSheet = mSource.loadSheet(sheetIndex);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not load sprite sheet " + sheetIndex, e);
+            }
+            mSheetIndex = sheetIndex;
+        }
+        if (mSheet == null) {
+            return null;
+        }
+
+        int tileIndex = index % tilesPerSheet;
+        int x = (tileIndex % mSource.getColumns()) * mSource.getTileWidth();
+        int y = (tileIndex / mSource.getColumns()) * mSource.getTileHeight();
+        if (x + mSource.getTileWidth() > mSheet.getWidth()
+                || y + mSource.getTileHeight() > mSheet.getHeight()) {
+            return null;
+        }
+        return Bitmap.createBitmap(mSheet, x, y, mSource.getTileWidth(), mSource.getTileHeight());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.player;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoDbBuilder;
+import com.example.android.tvleanback.model.Video;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.extractor.DefaultExtractorsFactory;
+import com.google.android.exoplayer2.source.ExtractorMediaSource;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.dash.DashMediaSource;
+import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
+import com.google.android.exoplayer2.source.hls.HlsDataSourceFactory;
+import com.google.android.exoplayer2.source.hls.HlsMediaSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
+import com.google.android.exoplayer2.util.Util;
+
+/**
+ * Builds the media source matching the content type of a video: DASH and HLS manifests are played
+ * adaptively, anything else is played as a progressive file.
+ * <p>
+ * Media is read through {@link MediaCache}, and what is downloaded is reported to the bandwidth
+ * meter of {@link PlayerPool}, which drives the adaptive track selection of pooled players.
+ * Manifests and playlists are never cached, so that a changed one is always picked up.
+ */
+public class VideoMediaSourceBuilder implements PlaylistMediaQueue.MediaSourceBuilder {
+
+    private final DataSource.Factory mUpstreamFactory;
+    private final DataSource.Factory mCachedFactory;
+
+    private final HlsDataSourceFactory mHlsDataSourceFactory = new HlsDataSourceFactory() {
+        @Override
+        public DataSource createDataSource(int dataType) {
+            return dataType == C.DATA_TYPE_MANIFEST
+                    ? mUpstreamFactory.createDataSource()
+                    : mCachedFactory.createDataSource();
+        }
+    };
+
+    public VideoMediaSourceBuilder(Context context) {
+        String userAgent = Util.getUserAgent(context, "VideoPlayerGlue");
+        mUpstreamFactory = new DefaultDataSourceFactory(
+                context, userAgent, PlayerPool.getInstance(context).getBandwidthMeter());
+        mCachedFactory = MediaCache.getInstance(context).buildDataSourceFactory(mUpstreamFactory);
+    }
+
+    /** Returns the content type of a video, guessing it if the video does not say. */
+    public static String getContentType(Video video) {
+        // Videos that did not come from the database, such as recommendations, have no type.
+        return video.contentType != null
+                ? video.contentType
+                : VideoDbBuilder.inferContentType(video.videoUrl);
+    }
+
+    @Override
+    public MediaSource build(Video video) {
+        Uri uri = Uri.parse(video.videoUrl);
+        switch (getContentType(video)) {
+            case VideoContract.VideoEntry.CONTENT_TYPE_DASH:
+                return new DashMediaSource(
+                        uri,
+                        mUpstreamFactory,
+                        new DefaultDashChunkSource.Factory(mCachedFactory),
+                        null,
+                        null);
+            case VideoContract.VideoEntry.CONTENT_TYPE_HLS:
+                return new HlsMediaSource(
+                        uri,
+                        mHlsDataSourceFactory,
+                        HlsMediaSource.DEFAULT_MIN_LOADABLE_RETRY_COUNT,
+                        null,
+                        null);
+            default:
+                return new ExtractorMediaSource(
+                        uri,
+                        mCachedFactory,
+                        new DefaultExtractorsFactory(),
+                        null,
+                        null,
+                        video.videoUrl);
+        }
+    }
+}
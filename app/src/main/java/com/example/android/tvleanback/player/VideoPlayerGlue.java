@@ -24,14 +24,13 @@ import androidx.leanback.widget.PlaybackControlsRow;
 
 import com.google.android.exoplayer2.ext.leanback.LeanbackPlayerAdapter;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * Manages customizing the actions in the {@link PlaybackControlsRow}. Adds and manages the
  * following actions to the primary and secondary controls:
  *
  * <ul>
  *   <li>{@link androidx.leanback.widget.PlaybackControlsRow.RepeatAction}
+ *   <li>{@link androidx.leanback.widget.PlaybackControlsRow.ShuffleAction}
  *   <li>{@link androidx.leanback.widget.PlaybackControlsRow.ThumbsDownAction}
  *   <li>{@link androidx.leanback.widget.PlaybackControlsRow.ThumbsUpAction}
  *   <li>{@link androidx.leanback.widget.PlaybackControlsRow.SkipPreviousAction}
@@ -45,8 +44,6 @@ import java.util.concurrent.TimeUnit;
  */
 public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayerAdapter> {
 
-    private static final long TEN_SECONDS = TimeUnit.SECONDS.toMillis(10);
-
     /** Listens for when skip to next and previous actions have been dispatched. */
     public interface OnActionClickedListener {
 
@@ -55,11 +52,25 @@ public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayer
 
         /** Skip to the next item in the queue. */
         void onNext();
+
+        /**
+         * Repeat nothing, the queue or the current item, as given by an index of {@link
+         * PlaybackControlsRow.RepeatAction}.
+         */
+        void onRepeatModeChanged(int repeatIndex);
+
+        /** Play the queue in a random order, or back in order. */
+        void onShuffleChanged(boolean shuffled);
+
+        /** Rate the current item, 1 for thumbs up, -1 for thumbs down or 0 for neither. */
+        void onRatingChanged(int rating);
     }
 
     private final OnActionClickedListener mActionListener;
+    private final SeekController mSeekController;
 
     private PlaybackControlsRow.RepeatAction mRepeatAction;
+    private PlaybackControlsRow.ShuffleAction mShuffleAction;
     private PlaybackControlsRow.ThumbsUpAction mThumbsUpAction;
     private PlaybackControlsRow.ThumbsDownAction mThumbsDownAction;
     private PlaybackControlsRow.SkipPreviousAction mSkipPreviousAction;
@@ -74,6 +85,22 @@ public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayer
         super(context, playerAdapter);
 
         mActionListener = actionListener;
+        mSeekController = new SeekController(new SeekController.Target() {
+            @Override
+            public long getCurrentPosition() {
+                return getPlayerAdapter().getCurrentPosition();
+            }
+
+            @Override
+            public long getDuration() {
+                return getPlayerAdapter().getDuration();
+            }
+
+            @Override
+            public void seekTo(long positionMs) {
+                getPlayerAdapter().seekTo(positionMs);
+            }
+        });
 
         mSkipPreviousAction = new PlaybackControlsRow.SkipPreviousAction(context);
         mSkipNextAction = new PlaybackControlsRow.SkipNextAction(context);
@@ -85,6 +112,39 @@ public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayer
         mThumbsDownAction = new PlaybackControlsRow.ThumbsDownAction(context);
         mThumbsDownAction.setIndex(PlaybackControlsRow.ThumbsDownAction.INDEX_OUTLINE);
         mRepeatAction = new PlaybackControlsRow.RepeatAction(context);
+        mShuffleAction = new PlaybackControlsRow.ShuffleAction(context);
+    }
+
+    /** Shows a repeat mode, as an index of {@link PlaybackControlsRow.RepeatAction}. */
+    public void setRepeatIndex(int repeatIndex) {
+        mRepeatAction.setIndex(repeatIndex);
+    }
+
+    /** Shows whether the queue is shuffled. */
+    public void setShuffled(boolean shuffled) {
+        mShuffleAction.setIndex(shuffled
+                ? PlaybackControlsRow.ShuffleAction.INDEX_ON
+                : PlaybackControlsRow.ShuffleAction.INDEX_OFF);
+    }
+
+    /** Shows the rating of the current item, 1 for thumbs up, -1 for thumbs down or 0. */
+    public void setRating(int rating) {
+        setThumbs(rating > 0, rating < 0);
+    }
+
+    private void setThumbs(boolean up, boolean down) {
+        mThumbsUpAction.setIndex(up
+                ? PlaybackControlsRow.ThumbsUpAction.INDEX_SOLID
+                : PlaybackControlsRow.ThumbsUpAction.INDEX_OUTLINE);
+        mThumbsDownAction.setIndex(down
+                ? PlaybackControlsRow.ThumbsDownAction.INDEX_SOLID
+                : PlaybackControlsRow.ThumbsDownAction.INDEX_OUTLINE);
+        if (getControlsRow() != null) {
+            ArrayObjectAdapter adapter =
+                    (ArrayObjectAdapter) getControlsRow().getSecondaryActionsAdapter();
+            notifyActionChanged(mThumbsUpAction, adapter);
+            notifyActionChanged(mThumbsDownAction, adapter);
+        }
     }
 
     @Override
@@ -106,6 +166,7 @@ public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayer
         adapter.add(mThumbsDownAction);
         adapter.add(mThumbsUpAction);
         adapter.add(mRepeatAction);
+        adapter.add(mShuffleAction);
     }
 
     @Override
@@ -124,7 +185,8 @@ public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayer
                 || action == mFastForwardAction
                 || action == mThumbsDownAction
                 || action == mThumbsUpAction
-                || action == mRepeatAction;
+                || action == mRepeatAction
+                || action == mShuffleAction;
     }
 
     private void dispatchAction(Action action) {
@@ -141,6 +203,25 @@ public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayer
             notifyActionChanged(
                     multiAction,
                     (ArrayObjectAdapter) getControlsRow().getSecondaryActionsAdapter());
+
+            if (action == mRepeatAction) {
+                mActionListener.onRepeatModeChanged(multiAction.getIndex());
+            } else if (action == mShuffleAction) {
+                mActionListener.onShuffleChanged(
+                        multiAction.getIndex() == PlaybackControlsRow.ShuffleAction.INDEX_ON);
+            } else {
+                // Thumbs up and down take each other's place.
+                boolean up = mThumbsUpAction.getIndex()
+                        == PlaybackControlsRow.ThumbsUpAction.INDEX_SOLID;
+                boolean down = mThumbsDownAction.getIndex()
+                        == PlaybackControlsRow.ThumbsDownAction.INDEX_SOLID;
+                if (up && down) {
+                    up = action == mThumbsUpAction;
+                    down = !up;
+                }
+                setThumbs(up, down);
+                mActionListener.onRatingChanged(up ? 1 : down ? -1 : 0);
+            }
         }
     }
 
@@ -154,29 +235,47 @@ public class VideoPlayerGlue extends PlaybackTransportControlGlue<LeanbackPlayer
         }
     }
 
+    @Override
+    protected void onDetachedFromHost() {
+        // The player may be handed to someone else, do not seek it later.
+        mSeekController.cancel();
+        super.onDetachedFromHost();
+    }
+
+    @Override
+    public long getCurrentPosition() {
+        // Show where a scrub will land rather than where playback still is.
+        if (mSeekController.isSeekPending()) {
+            return mSeekController.getPendingPosition();
+        }
+        return super.getCurrentPosition();
+    }
+
     @Override
     public void next() {
+        mSeekController.cancel();
         mActionListener.onNext();
     }
 
     @Override
     public void previous() {
+        mSeekController.cancel();
         mActionListener.onPrevious();
     }
 
-    /** Skips backwards 10 seconds. */
+    /**
+     * Skips backwards, 10 seconds at first and faster when pressed repeatedly. The seek is issued
+     * once presses stop.
+     */
     public void rewind() {
-        long newPosition = getCurrentPosition() - TEN_SECONDS;
-        newPosition = (newPosition < 0) ? 0 : newPosition;
-        getPlayerAdapter().seekTo(newPosition);
+        mSeekController.rewind();
     }
 
-    /** Skips forward 10 seconds. */
+    /**
+     * Skips forward, 10 seconds at first and faster when pressed repeatedly. The seek is issued
+     * once presses stop.
+     */
     public void fastForward() {
-        if (getDuration() > -1) {
-            long newPosition = getCurrentPosition() + TEN_SECONDS;
-            newPosition = (newPosition > getDuration()) ? getDuration() : newPosition;
-            getPlayerAdapter().seekTo(newPosition);
-        }
+        mSeekController.fastForward();
     }
 }
@@ -70,9 +70,20 @@ public class CardPresenter extends Presenter {
 
     @Override
     public void onBindViewHolder(Presenter.ViewHolder viewHolder, Object item) {
+        ImageCardView cardView = (ImageCardView) viewHolder.view;
+        if (item == null) {
+            // A placeholder for a video that is still loading, blank until it is bound again.
+            Resources res = cardView.getResources();
+            cardView.setMainImageDimensions(res.getDimensionPixelSize(R.dimen.card_width),
+                    res.getDimensionPixelSize(R.dimen.card_height));
+            Glide.with(cardView.getContext()).clear(cardView.getMainImageView());
+            cardView.setTitleText(null);
+            cardView.setContentText(null);
+            cardView.setMainImage(null);
+            return;
+        }
         Video video = (Video) item;
 
-        ImageCardView cardView = (ImageCardView) viewHolder.view;
         cardView.setTitleText(video.title);
         cardView.setContentText(video.studio);
 
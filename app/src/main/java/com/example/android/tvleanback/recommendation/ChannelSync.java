@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.recommendation;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.os.RemoteException;
+import androidx.tvprovider.media.tv.TvContractCompat;
+import androidx.tvprovider.media.tv.TvContractCompat.PreviewPrograms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Brings the programs of a home screen channel in line with the programs that should be there,
+ * touching only the ones that differ.
+ * <p>
+ * Programs are matched by their internal provider id. Each published program carries a hash of
+ * its content in its first internal provider flag, so a program that changed is found without
+ * reading back every column. The weights that order the programs are left out of the hash: the
+ * longest run of programs whose published weights are still in order keeps them, and only the
+ * others are given weights that fit in between. The inserts, updates and deletes are then
+ * applied in one batch.
+ */
+public class ChannelSync {
+    // The gap left between the weights given, so a program can later go in between.
+    private static final int WEIGHT_STEP = 1024;
+
+    private static final String[] PROJECTION = {
+            PreviewPrograms._ID,
+            PreviewPrograms.COLUMN_INTERNAL_PROVIDER_ID,
+            PreviewPrograms.COLUMN_INTERNAL_PROVIDER_FLAG1,
+            PreviewPrograms.COLUMN_WEIGHT
+    };
+
+    private final ContentResolver mContentResolver;
+
+    public ChannelSync(ContentResolver contentResolver) {
+        mContentResolver = contentResolver;
+    }
+
+    /**
+     * Syncs the programs of a channel.
+     *
+     * @param channelId The channel to sync.
+     * @param programs The programs that should be in the channel, first shown first, each with an
+     *                 internal provider id that is unique in the channel. Their weights are
+     *                 replaced by ones that keep this order.
+     * @return The number of operations that were applied.
+     */
+    public int sync(long channelId, List<ContentValues> programs)
+            throws RemoteException, OperationApplicationException {
+        Map<String, PublishedProgram> published = new HashMap<>();
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+
+        Cursor cursor = mContentResolver.query(
+                TvContractCompat.buildPreviewProgramsUriForChannel(channelId),
+                PROJECTION,
+                null,
+                null,
+                null);
+        if (cursor != null) {
+            try {
+                while (cursor.moveToNext()) {
+                    long programId = cursor.getLong(0);
+                    String internalId = cursor.getString(1);
+                    if (internalId == null || published.containsKey(internalId)) {
+                        // Left over from an interrupted sync, or not ours.
+                        operations.add(ContentProviderOperation.newDelete(
+                                TvContractCompat.buildPreviewProgramUri(programId)).build());
+                        continue;
+                    }
+                    published.put(internalId, new PublishedProgram(programId, cursor.getInt(2),
+                            cursor.isNull(3) ? null : cursor.getInt(3)));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        int size = programs.size();
+        PublishedProgram[] existing = new PublishedProgram[size];
+        Integer[] publishedWeights = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            existing[i] = published.remove(programs.get(i)
+                    .getAsString(PreviewPrograms.COLUMN_INTERNAL_PROVIDER_ID));
+            if (existing[i] != null) {
+                publishedWeights[i] = existing[i].weight;
+            }
+        }
+        int[] weights = assignWeights(publishedWeights);
+
+        for (int i = 0; i < size; i++) {
+            ContentValues values = new ContentValues(programs.get(i));
+            values.put(PreviewPrograms.COLUMN_CHANNEL_ID, channelId);
+            values.remove(PreviewPrograms.COLUMN_WEIGHT);
+            int hash = contentHash(values);
+            values.put(PreviewPrograms.COLUMN_INTERNAL_PROVIDER_FLAG1, hash);
+            values.put(PreviewPrograms.COLUMN_WEIGHT, weights[i]);
+
+            if (existing[i] == null) {
+                operations.add(ContentProviderOperation.newInsert(PreviewPrograms.CONTENT_URI)
+                        .withValues(values)
+                        .build());
+            } else if (existing[i].hash != hash
+                    || !Integer.valueOf(weights[i]).equals(existing[i].weight)) {
+                operations.add(ContentProviderOperation.newUpdate(
+                        TvContractCompat.buildPreviewProgramUri(existing[i].programId))
+                        .withValues(values)
+                        .build());
+            }
+        }
+
+        // What is left is no longer wanted.
+        for (PublishedProgram program : published.values()) {
+            operations.add(ContentProviderOperation.newDelete(
+                    TvContractCompat.buildPreviewProgramUri(program.programId)).build());
+        }
+
+        if (!operations.isEmpty()) {
+            mContentResolver.applyBatch(TvContractCompat.AUTHORITY, operations);
+        }
+        return operations.size();
+    }
+
+    // Returns a hash of the values that does not depend on their order.
+    static int contentHash(ContentValues values) {
+        int hash = 0;
+        for (String key : values.keySet()) {
+            Object value = values.get(key);
+            int valueHash = value instanceof byte[]
+                    ? Arrays.hashCode((byte[]) value)
+                    : Objects.hashCode(value);
+            hash += key.hashCode() * 31 + valueHash;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns decreasing weights for programs in the order they are shown, keeping the published
+     * weights of the longest run of programs that are still in that order.
+     *
+     * @param published The published weight of each program, null for the ones to insert.
+     */
+    static int[] assignWeights(Integer[] published) {
+        int size = published.length;
+
+        // The longest run with decreasing published weights, found by patience sorting: the
+        // tail of each length is the program ending such a run with the highest weight.
+        int[] tails = new int[size];
+        int[] parents = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            if (published[i] == null) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (published[tails[middle]] > published[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            parents[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] kept = new boolean[size];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = parents[i]) {
+            kept[i] = true;
+        }
+
+        // The other programs are spread between the kept ones around them.
+        int[] weights = new int[size];
+        int start = 0;
+        while (start < size) {
+            if (kept[start]) {
+                weights[start] = published[start];
+                start++;
+                continue;
+            }
+            int end = start;
+            while (end < size && !kept[end]) {
+                end++;
+            }
+            long gaps = end - start + 1;
+            long above;
+            long below;
+            if (start > 0) {
+                above = weights[start - 1];
+                below = end < size ? published[end] : above - gaps * WEIGHT_STEP;
+            } else {
+                below = end < size ? published[end] : 0;
+                above = below + gaps * WEIGHT_STEP;
+            }
+            long step = (above - below) / gaps;
+            if (step == 0 || above > Integer.MAX_VALUE || below < Integer.MIN_VALUE) {
+                // No room left in between, every program gets a new weight.
+                for (int i = 0; i < size; i++) {
+                    weights[i] = (size - i) * WEIGHT_STEP;
+                }
+                return weights;
+            }
+            for (int i = start; i < end; i++) {
+                weights[i] = (int) (above - step * (i - start + 1));
+            }
+            start = end;
+        }
+        return weights;
+    }
+
+    private static final class PublishedProgram {
+        final long programId;
+        final int hash;
+        final Integer weight;
+
+        PublishedProgram(long programId, int hash, Integer weight) {
+            this.programId = programId;
+            this.hash = hash;
+            this.weight = weight;
+        }
+    }
+}
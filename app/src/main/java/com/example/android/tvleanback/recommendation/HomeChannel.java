@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.recommendation;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.Intent;
+import android.content.OperationApplicationException;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.os.RemoteException;
+import android.util.Log;
+import androidx.annotation.RequiresApi;
+import androidx.tvprovider.media.tv.Channel;
+import androidx.tvprovider.media.tv.ChannelLogoUtils;
+import androidx.tvprovider.media.tv.PreviewProgram;
+import androidx.tvprovider.media.tv.TvContractCompat;
+
+import com.example.android.tvleanback.BuildConfig;
+import com.example.android.tvleanback.R;
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.model.Video;
+import com.example.android.tvleanback.ui.MainActivity;
+import com.example.android.tvleanback.ui.VideoDetailsActivity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The "For you" channel of the home screen, which shows the best ranked videos from Android O on.
+ * The channel is created the first time videos are published, and its programs are synced with
+ * {@link ChannelSync} after that.
+ */
+@RequiresApi(api = Build.VERSION_CODES.O)
+class HomeChannel {
+    private static final String TAG = "HomeChannel";
+    private static final String PREFERENCES_NAME = "home_channel";
+    private static final String KEY_CHANNEL_ID = "channel_id";
+    private static final String CHANNEL_INTERNAL_ID = "for_you";
+
+    private final Context mContext;
+    private final ContentResolver mContentResolver;
+    private final SharedPreferences mSharedPreferences;
+    private final ChannelSync mChannelSync;
+
+    HomeChannel(Context context) {
+        mContext = context.getApplicationContext();
+        mContentResolver = mContext.getContentResolver();
+        mSharedPreferences = mContext.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        mChannelSync = new ChannelSync(mContentResolver);
+    }
+
+    /** Shows the videos in the channel, best first. */
+    void publish(List<Video> videos) {
+        long channelId = getOrCreateChannel();
+        if (channelId == -1) {
+            return;
+        }
+
+        // The sync weighs the programs in this order.
+        List<ContentValues> programs = new ArrayList<>(videos.size());
+        for (Video video : videos) {
+            programs.add(new PreviewProgram.Builder()
+                    .setChannelId(channelId)
+                    .setType(TvContractCompat.PreviewPrograms.TYPE_CLIP)
+                    .setTitle(video.title)
+                    .setDescription(video.description)
+                    .setPosterArtUri(Uri.parse(video.cardImageUrl))
+                    .setPosterArtAspectRatio(TvContractCompat.PreviewPrograms.ASPECT_RATIO_16_9)
+                    .setIntentUri(buildDetailsUri(video))
+                    .setInternalProviderId(video.videoUrl)
+                    .build()
+                    .toContentValues());
+        }
+
+        try {
+            int operations = mChannelSync.sync(channelId, programs);
+            if (BuildConfig.DEBUG) Log.d(TAG, "Synced channel with " + operations + " operations");
+        } catch (RemoteException | OperationApplicationException e) {
+            Log.e(TAG, "Could not sync channel", e);
+        }
+    }
+
+    /** Removes the channel and its programs from the home screen. */
+    void remove() {
+        long channelId = mSharedPreferences.getLong(KEY_CHANNEL_ID, -1);
+        if (channelId != -1) {
+            mContentResolver.delete(TvContractCompat.buildChannelUri(channelId), null, null);
+            mSharedPreferences.edit().remove(KEY_CHANNEL_ID).apply();
+        }
+    }
+
+    private long getOrCreateChannel() {
+        long channelId = mSharedPreferences.getLong(KEY_CHANNEL_ID, -1);
+        if (channelId != -1 && channelExists(channelId)) {
+            return channelId;
+        }
+
+        Channel channel = new Channel.Builder()
+                .setType(TvContractCompat.Channels.TYPE_PREVIEW)
+                .setDisplayName(mContext.getString(R.string.for_you))
+                .setAppLinkIntentUri(Uri.parse(new Intent(mContext, MainActivity.class)
+                        .toUri(Intent.URI_INTENT_SCHEME)))
+                .setInternalProviderId(CHANNEL_INTERNAL_ID)
+                .build();
+        Uri channelUri = mContentResolver.insert(
+                TvContractCompat.Channels.CONTENT_URI, channel.toContentValues());
+        if (channelUri == null) {
+            Log.e(TAG, "Could not create channel");
+            return -1;
+        }
+        channelId = ContentUris.parseId(channelUri);
+        mSharedPreferences.edit().putLong(KEY_CHANNEL_ID, channelId).apply();
+
+        ChannelLogoUtils.storeChannelLogo(mContext, channelId,
+                BitmapFactory.decodeResource(mContext.getResources(),
+                        R.drawable.videos_by_google_icon));
+        // The first channel of an app is shown right away, the others need the user to agree.
+        TvContractCompat.requestChannelBrowsable(mContext, channelId);
+        return channelId;
+    }
+
+    private boolean channelExists(long channelId) {
+        Cursor cursor = mContentResolver.query(TvContractCompat.buildChannelUri(channelId),
+                new String[]{TvContractCompat.Channels._ID}, null, null, null);
+        if (cursor == null) {
+            return false;
+        }
+        try {
+            return cursor.getCount() > 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Opens the details of the video through the same path as global search, since a program can
+    // only carry an intent that fits in a uri.
+    private Uri buildDetailsUri(Video video) {
+        Intent intent = new Intent(mContext, VideoDetailsActivity.class)
+                .setAction(mContext.getString(R.string.global_search))
+                .setData(VideoContract.VideoEntry.buildVideoUri(video.id));
+        return Uri.parse(intent.toUri(Intent.URI_INTENT_SCHEME));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.recommendation;
+
+import android.content.SharedPreferences;
+
+import com.example.android.tvleanback.model.Video;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers which recommendations are posted, and what they showed, so that publishing again
+ * only touches the cards that changed.
+ * <p>
+ * Cards are identified by the url of their video, which unlike its id survives the catalog being
+ * fetched again.
+ */
+public class PostedRecommendations {
+    private static final String KEY_POSTED = "posted";
+    private static final String KEY_PUBLISHED_AT = "published_at";
+    // Separates the content hash of a card from the url of its video.
+    private static final char SEPARATOR = ' ';
+
+    private final SharedPreferences mSharedPreferences;
+
+    public PostedRecommendations(SharedPreferences sharedPreferences) {
+        mSharedPreferences = sharedPreferences;
+    }
+
+    /** Returns the content hash of each posted card, by video url. */
+    public Map<String, Integer> getPosted() {
+        Map<String, Integer> posted = new HashMap<>();
+        for (String entry : mSharedPreferences.getStringSet(KEY_POSTED, new HashSet<String>())) {
+            int separator = entry.indexOf(SEPARATOR);
+            posted.put(entry.substring(separator + 1),
+                    Integer.parseInt(entry.substring(0, separator)));
+        }
+        return posted;
+    }
+
+    /** Returns when cards were last published, or 0 if they never were. */
+    public long getPublishedAt() {
+        return mSharedPreferences.getLong(KEY_PUBLISHED_AT, 0);
+    }
+
+    /** Replaces the posted cards. */
+    public void setPosted(Map<String, Integer> posted, long publishedAtMs) {
+        Set<String> entries = new HashSet<>();
+        for (Map.Entry<String, Integer> card : posted.entrySet()) {
+            entries.add(card.getValue() + String.valueOf(SEPARATOR) + card.getKey());
+        }
+        mSharedPreferences.edit()
+                .putStringSet(KEY_POSTED, entries)
+                .putLong(KEY_PUBLISHED_AT, publishedAtMs)
+                .apply();
+    }
+
+    /** Forgets every card, for when they were all cancelled. */
+    public void clear() {
+        mSharedPreferences.edit().clear().apply();
+    }
+
+    /** Returns a hash of everything a card shows about a video. */
+    public static int contentHash(Video video) {
+        return Arrays.hashCode(new Object[]{video.title, video.cardImageUrl, video.id});
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.recommendation;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.FutureTarget;
+import com.bumptech.glide.request.RequestOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads the images of recommendation cards all at once through Glide, which keeps them in its disk
+ * cache once rendered at card size, so recommending the same video again does not download
+ * anything.
+ * <p>
+ * A card whose image cannot be downloaded in time gets no image, rather than holding up the
+ * others.
+ */
+public class RecommendationCardLoader {
+    private static final String TAG = "RecommendationCards";
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final Context mContext;
+    private final int mWidth;
+    private final int mHeight;
+    private final List<FutureTarget<Bitmap>> mTargets = new ArrayList<>();
+
+    public RecommendationCardLoader(Context context, int width, int height) {
+        mContext = context.getApplicationContext();
+        mWidth = width;
+        mHeight = height;
+    }
+
+    /** Options used to load the image of a card, keeping the image rendered at card size too. */
+    public static RequestOptions cardOptions() {
+        return new RequestOptions().diskCacheStrategy(DiskCacheStrategy.ALL);
+    }
+
+    /** Starts loading the image of a card. */
+    public Future<Bitmap> load(String imageUrl) {
+        FutureTarget<Bitmap> target = Glide.with(mContext)
+                .asBitmap()
+                .load(imageUrl)
+                .apply(cardOptions())
+                .submit(mWidth, mHeight);
+        mTargets.add(target);
+        return target;
+    }
+
+    /**
+     * Waits for an image started with {@link #load(String)}, and returns it or null if it could
+     * not be loaded in time.
+     */
+    public Bitmap get(Future<Bitmap> card) {
+        try {
+            // Every image started loading together, so later cards have already had their time.
+            return card.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Could not load recommendation card", e);
+            card.cancel(true);
+            return null;
+        }
+    }
+
+    /** Stops the loads still going on, and gives the images back to Glide once cards are posted. */
+    public void clear() {
+        for (FutureTarget<Bitmap> target : mTargets) {
+            Glide.with(mContext).clear(target);
+        }
+        mTargets.clear();
+    }
+}
@@ -16,18 +16,16 @@
 
 package com.example.android.tvleanback.recommendation;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 
+import com.example.android.tvleanback.job.BackgroundJobs;
+
 /*
  * This class extends BroadcastReceiver and publishes Recommendations when received.
  */
 public class RecommendationReceiver extends BroadcastReceiver {
-    private static final long INITIAL_DELAY = 5000;
-
     @Override
     public void onReceive(Context context, Intent intent) {
         if (intent.getAction().equals(Intent.ACTION_BOOT_COMPLETED)) {
@@ -36,11 +34,12 @@ public class RecommendationReceiver extends BroadcastReceiver {
     }
 
     private void scheduleRecommendationUpdate(Context context) {
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        Intent recommendationIntent = new Intent(context, UpdateRecommendationsService.class);
-        PendingIntent alarmIntent = PendingIntent.getService(context, 0, recommendationIntent, 0);
+        // Recommendations are published when the catalog or the watch history change, the
+        // periodic jobs only rotate them now and then. They survive reboots on their own, this is
+        // for installs that never scheduled them.
+        BackgroundJobs.schedulePeriodic(context);
 
-        alarmManager.setInexactRepeating(AlarmManager.ELAPSED_REALTIME_WAKEUP, INITIAL_DELAY,
-                AlarmManager.INTERVAL_HALF_HOUR, alarmIntent);
+        // Publish now if the cards are missing or stale.
+        BackgroundJobs.schedule(context, BackgroundJobs.RECOMMENDATIONS);
     }
 }
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.recommendation;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.res.Resources;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.preference.PreferenceManager;
+import androidx.recommendation.app.ContentRecommendation;
+import android.util.Log;
+
+import com.example.android.tvleanback.BuildConfig;
+import com.example.android.tvleanback.R;
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.job.BackgroundJob;
+import com.example.android.tvleanback.model.Video;
+import com.example.android.tvleanback.model.VideoCursorMapper;
+import com.example.android.tvleanback.ui.VideoDetailsActivity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * This class builds up to MAX_RECOMMENDATIONS of ContentRecommendations and defines what happens
+ * when they're selected from Recommendations section on the Home screen by creating an Intent.
+ *
+ * Recommendations are only published when something changed: the catalog was fetched again,
+ * videos were watched or rated, or the cards have been up for a long time. The best ranked
+ * videos that were never watched are recommended. Publishing keeps the cards that are still good,
+ * only notifies the ones that changed, and cancels the ones that are gone.
+ *
+ * From Android O on, the home screen shows channels instead, and the best ranked videos are
+ * published as the programs of a {@link HomeChannel}.
+ */
+public class UpdateRecommendationsJob extends ContextWrapper implements BackgroundJob {
+    private static final String TAG = "RecommendationsJob";
+    private static final int MAX_RECOMMENDATIONS = 3;
+    // The number of videos in the home screen channel.
+    private static final int MAX_PROGRAMS = 50;
+    private static final String PREFERENCES_NAME = "recommendations";
+    private static final VideoCursorMapper mVideoCursorMapper = new VideoCursorMapper();
+
+    /** The catalog was fetched again, cards of videos no longer in it are replaced. */
+    public static final String REASON_CATALOG_CHANGED = "catalog_changed";
+
+    /** Videos were watched or rated, their cards are replaced. */
+    public static final String REASON_WATCH_ACTIVITY = "watch_activity";
+
+    /** The cards have been up long enough, all of them are replaced. */
+    public static final String REASON_REFRESH = "refresh";
+
+    // Any other reason only publishes if the cards are older than this, or there are none.
+    private static final long MAX_STALENESS_MS = TimeUnit.DAYS.toMillis(1);
+
+    private NotificationManager mNotifManager;
+    private PostedRecommendations mPosted;
+    private HomeChannel mHomeChannel;
+
+    public UpdateRecommendationsJob(Context context) {
+        super(context.getApplicationContext());
+
+        mNotifManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        mPosted = new PostedRecommendations(
+                getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            mHomeChannel = new HomeChannel(this);
+        }
+    }
+
+    @Override
+    public boolean run(String reason) {
+        // Generate recommendations, but only if recommendations are enabled
+        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(this);
+        if (!sharedPreferences.getBoolean(getString(R.string.pref_key_recommendations), true)) {
+            Log.d(TAG, "Recommendations disabled");
+            mNotifManager.cancelAll();
+            mPosted.clear();
+            if (mHomeChannel != null) {
+                mHomeChannel.remove();
+            }
+            return true;
+        }
+
+        if (mHomeChannel != null) {
+            // The home screen shows channels instead of notifications. Syncing only touches the
+            // programs that changed, so it is cheap enough to do on every request.
+            List<Video> videos = query(
+                    VideoContract.RecommendedEntry.buildRecommendedUri(MAX_PROGRAMS), null, null);
+            // Until the videos are first ranked, the channel is left as it is.
+            if (!videos.isEmpty()) {
+                mHomeChannel.publish(videos);
+            }
+            return true;
+        }
+
+        Map<String, Integer> posted = mPosted.getPosted();
+        long publishedAt = mPosted.getPublishedAt();
+        long now = System.currentTimeMillis();
+        boolean stale = posted.isEmpty() || now - publishedAt > MAX_STALENESS_MS;
+        if (!stale && !REASON_CATALOG_CHANGED.equals(reason)
+                && !REASON_WATCH_ACTIVITY.equals(reason) && !REASON_REFRESH.equals(reason)) {
+            if (BuildConfig.DEBUG) Log.d(TAG, "Recommendations are up to date");
+            return true;
+        }
+
+        // Keep the cards of videos still in the catalog and not watched yet, unless all of them
+        // are being replaced.
+        boolean replaceAll = stale || REASON_REFRESH.equals(reason);
+        List<Video> videos = new ArrayList<>(MAX_RECOMMENDATIONS);
+        if (!replaceAll) {
+            videos.addAll(queryVideos(posted.keySet()));
+            removeWatched(videos);
+        }
+        addRankedVideos(videos, posted.keySet());
+
+        publish(videos, posted);
+        Map<String, Integer> nowPosted = new HashMap<>();
+        for (Video video : videos) {
+            nowPosted.put(video.videoUrl, PostedRecommendations.contentHash(video));
+        }
+        mPosted.setPosted(nowPosted, replaceAll ? now : publishedAt);
+        return true;
+    }
+
+    // Notifies the cards that are new or changed, and cancels the ones that are gone.
+    private void publish(List<Video> videos, Map<String, Integer> posted) {
+        Resources res = getResources();
+        int cardWidth = res.getDimensionPixelSize(R.dimen.card_width);
+        int cardHeight = res.getDimensionPixelSize(R.dimen.card_height);
+        ContentRecommendation.Builder builder = new ContentRecommendation.Builder()
+                .setBadgeIcon(R.drawable.videos_by_google_icon);
+
+        List<Video> changed = new ArrayList<>();
+        Set<String> urls = new HashSet<>();
+        for (Video video : videos) {
+            urls.add(video.videoUrl);
+            Integer hash = posted.get(video.videoUrl);
+            if (hash == null || hash != PostedRecommendations.contentHash(video)) {
+                changed.add(video);
+            }
+        }
+        for (String url : posted.keySet()) {
+            if (!urls.contains(url)) {
+                mNotifManager.cancel(url.hashCode());
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // Start loading every card image at once, so one slow image does not hold up the others.
+        RecommendationCardLoader cardLoader =
+                new RecommendationCardLoader(this, cardWidth, cardHeight);
+        List<Future<Bitmap>> cards = new ArrayList<>(changed.size());
+        for (Video video : changed) {
+            cards.add(cardLoader.load(video.cardImageUrl));
+        }
+
+        Bitmap badge = null;
+        try {
+            for (int i = 0; i < changed.size(); i++) {
+                Video video = changed.get(i);
+                int id = video.videoUrl.hashCode();
+
+                builder.setIdTag("Video" + id)
+                        .setTitle(video.title)
+                        .setText(getString(R.string.popular_header))
+                        .setContentIntentData(ContentRecommendation.INTENT_TYPE_ACTIVITY,
+                                buildPendingIntent(video, id), 0, null);
+
+                Bitmap bitmap = cardLoader.get(cards.get(i));
+                if (bitmap == null) {
+                    // Recommend the video anyway, with the badge as its image.
+                    if (badge == null) {
+                        badge = BitmapFactory.decodeResource(res, R.drawable.videos_by_google_icon);
+                    }
+                    bitmap = badge;
+                }
+                builder.setContentImage(bitmap);
+
+                // Create an object holding all the information used to recommend the content.
+                ContentRecommendation rec = builder.build();
+                Notification notification = rec.getNotificationObject(getApplicationContext());
+
+                if (BuildConfig.DEBUG) Log.d(TAG, "Recommending video " + video.title);
+
+                // Recommend the content by publishing the notification.
+                mNotifManager.notify(id, notification);
+            }
+        } finally {
+            cardLoader.clear();
+        }
+    }
+
+    // Tops the videos up with the best ranked ones, skipping the excluded ones.
+    private void addRankedVideos(List<Video> videos, Set<String> excludedUrls) {
+        int missing = MAX_RECOMMENDATIONS - videos.size();
+        if (missing <= 0) {
+            return;
+        }
+        Set<String> urls = new HashSet<>(excludedUrls);
+        for (Video video : videos) {
+            urls.add(video.videoUrl);
+        }
+
+        // Read from the top of the precomputed ranking. Ask for more in case some are excluded.
+        addVideos(videos, urls, query(VideoContract.RecommendedEntry.buildRecommendedUri(
+                missing + urls.size()), null, null));
+
+        // Until the videos are first ranked, pick random ones from different categories instead,
+        // no more than are missing since there are only a few categories.
+        missing = MAX_RECOMMENDATIONS - videos.size();
+        if (missing > 0) {
+            addVideos(videos, urls, query(VideoContract.VideoEntry.buildSampleUri(missing, true),
+                    null, null));
+        }
+
+        // Top up from any category, if some of those were excluded. Ask for more in case some
+        // are excluded again.
+        missing = MAX_RECOMMENDATIONS - videos.size();
+        if (missing > 0) {
+            addVideos(videos, urls, query(VideoContract.VideoEntry.buildSampleUri(
+                    missing + urls.size(), false), null, null));
+        }
+    }
+
+    private static void addVideos(List<Video> videos, Set<String> urls, List<Video> candidates) {
+        for (Video video : candidates) {
+            if (videos.size() == MAX_RECOMMENDATIONS) {
+                return;
+            }
+            if (urls.add(video.videoUrl)) {
+                videos.add(video);
+            }
+        }
+    }
+
+    private List<Video> queryVideos(Set<String> urls) {
+        if (urls.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return query(VideoContract.VideoEntry.CONTENT_URI,
+                VideoContract.VideoEntry.COLUMN_VIDEO_URL + " IN (" + placeholders(urls.size())
+                        + ")",
+                urls.toArray(new String[urls.size()]));
+    }
+
+    // Removes the videos that are in the watch history.
+    private void removeWatched(List<Video> videos) {
+        if (videos.isEmpty()) {
+            return;
+        }
+        String[] urls = new String[videos.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = videos.get(i).videoUrl;
+        }
+        Set<String> watched = new HashSet<>();
+        Cursor cursor = getContentResolver().query(
+                VideoContract.WatchHistoryEntry.CONTENT_URI,
+                new String[]{VideoContract.WatchHistoryEntry.COLUMN_VIDEO_URL},
+                VideoContract.WatchHistoryEntry.COLUMN_VIDEO_URL + " IN ("
+                        + placeholders(urls.length) + ")",
+                urls,
+                null);
+        if (cursor != null) {
+            try {
+                while (cursor.moveToNext()) {
+                    watched.add(cursor.getString(0));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        for (Iterator<Video> iterator = videos.iterator(); iterator.hasNext(); ) {
+            if (watched.contains(iterator.next().videoUrl)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private List<Video> query(Uri uri, String selection, String[] selectionArgs) {
+        List<Video> videos = new ArrayList<>();
+        Cursor cursor = getContentResolver().query(uri, null, selection, selectionArgs, null);
+        if (cursor == null) {
+            return videos;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                videos.add((Video) mVideoCursorMapper.convert(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return videos;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+        }
+        return placeholders.toString();
+    }
+
+    private Intent buildPendingIntent(Video video, int id) {
+        Intent detailsIntent = new Intent(this, VideoDetailsActivity.class);
+        detailsIntent.putExtra(VideoDetailsActivity.VIDEO, video);
+        detailsIntent.putExtra(VideoDetailsActivity.NOTIFICATION_ID, id);
+        detailsIntent.setAction(Long.toString(video.id));
+
+        return detailsIntent;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.ui;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+import android.view.WindowManager;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.RequestOptions;
+import com.example.android.tvleanback.R;
+import com.example.android.tvleanback.data.VideoRepository;
+import com.example.android.tvleanback.model.Video;
+
+/**
+ * Warms what {@link VideoDetailsFragment} needs before its activity is started: the related
+ * videos, the poster at overview size and the background at screen size.
+ * <p>
+ * Related videos go into {@link VideoRepository}. Images go into Glide's memory cache, so they
+ * are only hit when requested with the same size and options, which is why both sides build their
+ * requests through this class.
+ */
+final class DetailsPrefetcher {
+
+    private static DetailsPrefetcher sInstance;
+
+    private final Context mContext;
+
+    static synchronized DetailsPrefetcher getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DetailsPrefetcher(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private DetailsPrefetcher(Context context) {
+        mContext = context;
+    }
+
+    /** Options used to load the poster of the details overview row. */
+    static RequestOptions posterOptions() {
+        return new RequestOptions()
+                .error(R.drawable.default_background)
+                .dontAnimate();
+    }
+
+    /** Options used to load the details background. */
+    static RequestOptions backgroundOptions() {
+        return new RequestOptions()
+                .centerCrop()
+                .error(R.drawable.default_background);
+    }
+
+    static int posterWidth(Resources res) {
+        return res.getDimensionPixelSize(R.dimen.detail_thumb_width);
+    }
+
+    static int posterHeight(Resources res) {
+        return res.getDimensionPixelSize(R.dimen.detail_thumb_height);
+    }
+
+    /** Starts loading everything the details page of the video will ask for. */
+    void prefetch(Video video) {
+        Resources res = mContext.getResources();
+        DisplayMetrics metrics = new DisplayMetrics();
+        WindowManager windowManager =
+                (WindowManager) mContext.getSystemService(Context.WINDOW_SERVICE);
+        windowManager.getDefaultDisplay().getMetrics(metrics);
+
+        Glide.with(mContext)
+                .asBitmap()
+                .load(video.cardImageUrl)
+                .apply(posterOptions())
+                .preload(posterWidth(res), posterHeight(res));
+        Glide.with(mContext)
+                .asBitmap()
+                .load(video.bgImageUrl)
+                .apply(backgroundOptions())
+                .preload(metrics.widthPixels, metrics.heightPixels);
+
+        VideoRepository.getInstance(mContext).prefetch(VideoRepository.relatedVideos(video.id));
+    }
+}
@@ -52,14 +52,13 @@ import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.SimpleTarget;
 import com.bumptech.glide.request.transition.Transition;
 import com.example.android.tvleanback.R;
-import com.example.android.tvleanback.data.FetchVideoService;
 import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.job.BackgroundJobs;
 import com.example.android.tvleanback.model.Video;
 import com.example.android.tvleanback.model.VideoCursorMapper;
 import com.example.android.tvleanback.presenter.CardPresenter;
 import com.example.android.tvleanback.presenter.GridItemPresenter;
 import com.example.android.tvleanback.presenter.IconHeaderItemPresenter;
-import com.example.android.tvleanback.recommendation.UpdateRecommendationsService;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -78,8 +77,20 @@ public class MainFragment extends BrowseSupportFragment
     private Runnable mBackgroundTask;
     private Uri mBackgroundURI;
     private BackgroundManager mBackgroundManager;
+    private Runnable mPrefetchTask;
+    private Video mPrefetchVideo;
     private LoaderManager mLoaderManager;
     private static final int CATEGORY_LOADER = 123; // Unique ID for Category Loader.
+    private static final int CONTINUE_WATCHING_LOADER = 124;
+    private static final int FOR_YOU_LOADER = 125;
+
+    // The number of videos in the "For you" row.
+    private static final int FOR_YOU_SIZE = 20;
+
+    // Shown above the categories while there are unfinished videos.
+    private ListRow mContinueWatchingRow;
+    // Shown above the categories, below continue watching, once videos are ranked.
+    private ListRow mForYouRow;
 
     // Maps a Loader Id to its CursorObjectAdapter.
     private Map<Integer, CursorObjectAdapter> mVideoCursorAdapters;
@@ -95,6 +106,8 @@ public class MainFragment extends BrowseSupportFragment
         // Start loading the categories from the database.
         mLoaderManager = LoaderManager.getInstance(this);
         mLoaderManager.initLoader(CATEGORY_LOADER, null, this);
+        mLoaderManager.initLoader(CONTINUE_WATCHING_LOADER, null, this);
+        mLoaderManager.initLoader(FOR_YOU_LOADER, null, this);
     }
 
     @Override
@@ -120,6 +133,7 @@ public class MainFragment extends BrowseSupportFragment
     @Override
     public void onDestroy() {
         mHandler.removeCallbacks(mBackgroundTask);
+        mHandler.removeCallbacks(mPrefetchTask);
         mBackgroundManager = null;
         super.onDestroy();
     }
@@ -135,6 +149,7 @@ public class MainFragment extends BrowseSupportFragment
         mBackgroundManager.attach(getActivity().getWindow());
         mDefaultBackground = getResources().getDrawable(R.drawable.default_background, null);
         mBackgroundTask = new UpdateBackgroundTask();
+        mPrefetchTask = new PrefetchDetailsTask();
         mMetrics = new DisplayMetrics();
         getActivity().getWindowManager().getDefaultDisplay().getMetrics(mMetrics);
     }
@@ -201,9 +216,15 @@ public class MainFragment extends BrowseSupportFragment
         mHandler.postDelayed(mBackgroundTask, BACKGROUND_UPDATE_DELAY);
     }
 
+    private void startPrefetchTimer() {
+        mHandler.removeCallbacks(mPrefetchTask);
+        mHandler.postDelayed(mPrefetchTask,
+                getResources().getInteger(R.integer.details_prefetch_dwell));
+    }
+
     private void updateRecommendations() {
-        Intent recommendationIntent = new Intent(getActivity(), UpdateRecommendationsService.class);
-        getActivity().startService(recommendationIntent);
+        BackgroundJobs.schedule(getActivity(), BackgroundJobs.RECOMMENDATIONS);
+        BackgroundJobs.schedulePeriodic(getActivity());
     }
 
     @Override
@@ -218,6 +239,26 @@ public class MainFragment extends BrowseSupportFragment
                     null, // No selection arguments
                     null  // Default sort order
             );
+        } else if (id == CONTINUE_WATCHING_LOADER) {
+            // Most recently watched first.
+            return new CursorLoader(
+                    getContext(),
+                    VideoContract.WatchHistoryEntry.CONTINUE_WATCHING_URI,
+                    null,
+                    null,
+                    null,
+                    null
+            );
+        } else if (id == FOR_YOU_LOADER) {
+            // Best first, from the precomputed ranking.
+            return new CursorLoader(
+                    getContext(),
+                    VideoContract.RecommendedEntry.buildRecommendedUri(FOR_YOU_SIZE),
+                    null,
+                    null,
+                    null,
+                    null
+            );
         } else {
             // Assume it is for a video.
             String category = args.getString(VideoContract.VideoEntry.COLUMN_CATEGORY);
@@ -236,6 +277,14 @@ public class MainFragment extends BrowseSupportFragment
 
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
+        if (loader.getId() == CONTINUE_WATCHING_LOADER) {
+            updateContinueWatchingRow(data);
+            return;
+        }
+        if (loader.getId() == FOR_YOU_LOADER) {
+            updateForYouRow(data);
+            return;
+        }
         if (data != null && data.moveToFirst()) {
             final int loaderId = loader.getId();
 
@@ -243,6 +292,13 @@ public class MainFragment extends BrowseSupportFragment
 
                 // Every time we have to re-get the category loader, we must re-create the sidebar.
                 mCategoryRowAdapter.clear();
+                if (mContinueWatchingRow != null
+                        && mContinueWatchingRow.getAdapter().size() > 0) {
+                    mCategoryRowAdapter.add(mContinueWatchingRow);
+                }
+                if (mForYouRow != null && mForYouRow.getAdapter().size() > 0) {
+                    mCategoryRowAdapter.add(mForYouRow);
+                }
 
                 // Iterate through each category entry and add it to the ArrayAdapter.
                 while (!data.isAfterLast()) {
@@ -297,16 +353,57 @@ public class MainFragment extends BrowseSupportFragment
                 mVideoCursorAdapters.get(loaderId).changeCursor(data);
             }
         } else {
-            // Start an Intent to fetch the videos.
-            Intent serviceIntent = new Intent(getActivity(), FetchVideoService.class);
-            getActivity().startService(serviceIntent);
+            // Fetch the videos once the network is up.
+            BackgroundJobs.schedule(getActivity(), BackgroundJobs.CATALOG_SYNC);
+        }
+    }
+
+    private void updateContinueWatchingRow(Cursor data) {
+        if (mContinueWatchingRow == null) {
+            mContinueWatchingRow = createVideoRow(R.string.continue_watching);
+        }
+        ((CursorObjectAdapter) mContinueWatchingRow.getAdapter()).changeCursor(data);
+        showVideoRow(mContinueWatchingRow, 0);
+    }
+
+    private void updateForYouRow(Cursor data) {
+        if (mForYouRow == null) {
+            mForYouRow = createVideoRow(R.string.for_you);
+        }
+        ((CursorObjectAdapter) mForYouRow.getAdapter()).changeCursor(data);
+        showVideoRow(mForYouRow,
+                mCategoryRowAdapter.indexOf(mContinueWatchingRow) >= 0 ? 1 : 0);
+    }
+
+    private ListRow createVideoRow(int titleResId) {
+        CursorObjectAdapter adapter = new CursorObjectAdapter(new CardPresenter());
+        adapter.setMapper(new VideoCursorMapper());
+        return new ListRow(new HeaderItem(getString(titleResId)), adapter);
+    }
+
+    // Shows a row at the given position while it has videos, and hides it otherwise.
+    private void showVideoRow(ListRow row, int position) {
+        int index = mCategoryRowAdapter.indexOf(row);
+        boolean empty = row.getAdapter().size() == 0;
+        if (empty && index >= 0) {
+            mCategoryRowAdapter.removeItems(index, 1);
+        } else if (!empty && index < 0) {
+            mCategoryRowAdapter.add(position, row);
         }
     }
 
     @Override
     public void onLoaderReset(Loader<Cursor> loader) {
         int loaderId = loader.getId();
-        if (loaderId != CATEGORY_LOADER) {
+        if (loaderId == CONTINUE_WATCHING_LOADER) {
+            if (mContinueWatchingRow != null) {
+                ((CursorObjectAdapter) mContinueWatchingRow.getAdapter()).changeCursor(null);
+            }
+        } else if (loaderId == FOR_YOU_LOADER) {
+            if (mForYouRow != null) {
+                ((CursorObjectAdapter) mForYouRow.getAdapter()).changeCursor(null);
+            }
+        } else if (loaderId != CATEGORY_LOADER) {
             mVideoCursorAdapters.get(loaderId).changeCursor(null);
         } else {
             mCategoryRowAdapter.clear();
@@ -323,6 +420,16 @@ public class MainFragment extends BrowseSupportFragment
         }
     }
 
+    private class PrefetchDetailsTask implements Runnable {
+
+        @Override
+        public void run() {
+            if (mPrefetchVideo != null) {
+                DetailsPrefetcher.getInstance(getActivity()).prefetch(mPrefetchVideo);
+            }
+        }
+    }
+
     private final class ItemViewClickedListener implements OnItemViewClickedListener {
         @Override
         public void onItemClicked(Presenter.ViewHolder itemViewHolder, Object item,
@@ -376,6 +483,13 @@ public class MainFragment extends BrowseSupportFragment
             if (item instanceof Video) {
                 mBackgroundURI = Uri.parse(((Video) item).bgImageUrl);
                 startBackgroundTimer();
+
+                // Prefetch the details page if the card keeps focus long enough.
+                mPrefetchVideo = (Video) item;
+                startPrefetchTimer();
+            } else {
+                mPrefetchVideo = null;
+                mHandler.removeCallbacks(mPrefetchTask);
             }
 
         }
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.tvleanback.ui;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import androidx.leanback.widget.ObjectAdapter;
+import androidx.leanback.widget.Presenter;
+
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.model.Video;
+import com.example.android.tvleanback.model.VideoCursorMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An adapter of the videos of a sorted Uri that loads them a page at a time as the grid scrolls,
+ * instead of reading the whole catalog into one cursor.
+ * <p>
+ * Pages are fetched by keyset, right after the last video of the page before, so every page costs
+ * the same to fetch in any sort order. Until a page is loaded its items are null, which the
+ * presenter shows as placeholder cards. The adapter only knows about the pages up to one after the
+ * last loaded, and grows as the grid scrolls towards its end, so the first page shows as fast in a
+ * large catalog as in a small one. Only a few pages are kept in memory, the ones furthest from
+ * where the grid is are dropped and loaded again if needed.
+ * <p>
+ * All methods must be called on the main thread.
+ */
+class PagedVideoAdapter extends ObjectAdapter {
+
+    // The most pages kept in memory.
+    private static final int MAX_PAGES = 6;
+
+    // The columns the cards are made from.
+    private static final String[] PROJECTION = {
+            VideoContract.VideoEntry._ID,
+            VideoContract.VideoEntry.COLUMN_NAME,
+            VideoContract.VideoEntry.COLUMN_DESC,
+            VideoContract.VideoEntry.COLUMN_VIDEO_URL,
+            VideoContract.VideoEntry.COLUMN_BG_IMAGE_URL,
+            VideoContract.VideoEntry.COLUMN_CARD_IMG,
+            VideoContract.VideoEntry.COLUMN_STUDIO,
+            VideoContract.VideoEntry.COLUMN_CATEGORY,
+            VideoContract.VideoEntry.COLUMN_CONTENT_TYPE
+    };
+
+    private final int mPageSize;
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    // The sort order and filter of the videos, see VideoContract.VideoEntry#buildSortedUri.
+    private Uri mSortedUri;
+
+    // The loaded pages, by index.
+    private final SparseArray<List<Video>> mPages = new SparseArray<>();
+    // The pages being loaded.
+    private final SparseBooleanArray mLoading = new SparseBooleanArray();
+    // The id each page starts after, known for every page once the one before it was loaded.
+    private final List<Long> mPageKeys = new ArrayList<>();
+    // The number of videos in the pages known to be full, and in the last page once it is loaded.
+    private int mLoadedSize;
+    private boolean mEndReached;
+    // Where the grid was last bound, pages furthest from it are dropped first.
+    private int mLastPage;
+    // Increased whenever the videos change, so that pages loaded before are ignored.
+    private int mGeneration;
+
+    private final ContentObserver mObserver = new ContentObserver(mHandler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            reset();
+        }
+    };
+
+    PagedVideoAdapter(Context context, Presenter presenter, Uri sortedUri, int pageSize) {
+        super(presenter);
+        mSortedUri = sortedUri;
+        mPageSize = pageSize;
+        mContentResolver = context.getApplicationContext().getContentResolver();
+        mPageKeys.add(0L);
+        mContentResolver.registerContentObserver(
+                VideoContract.VideoEntry.CONTENT_URI, true, mObserver);
+    }
+
+    /** Shows the videos of another sorted Uri, from its first page. */
+    void setSortedUri(Uri sortedUri) {
+        mSortedUri = sortedUri;
+        reset();
+    }
+
+    /** Stops loading pages and watching the videos, once the grid is gone. */
+    void close() {
+        mContentResolver.unregisterContentObserver(mObserver);
+        mExecutor.shutdownNow();
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
+    @Override
+    public int size() {
+        // Until the end is reached, the next page is shown as placeholders.
+        return mEndReached ? mLoadedSize : mLoadedSize + mPageSize;
+    }
+
+    /** Returns the video at a position, or null if its page is not loaded yet. */
+    @Override
+    public Object get(int position) {
+        int page = position / mPageSize;
+        mLastPage = page;
+        // Load the next page before it is scrolled to.
+        if (position % mPageSize >= mPageSize / 2) {
+            load(page + 1);
+        }
+
+        List<Video> videos = mPages.get(page);
+        if (videos == null) {
+            load(page);
+            return null;
+        }
+        int index = position % mPageSize;
+        return index < videos.size() ? videos.get(index) : null;
+    }
+
+    private void load(final int page) {
+        if (page >= mPageKeys.size() || mPages.get(page) != null || mLoading.get(page)) {
+            return;
+        }
+        mLoading.put(page, true);
+
+        final Uri pageUri = VideoContract.VideoEntry.buildPageUri(
+                mSortedUri, mPageKeys.get(page), mPageSize);
+        final int generation = mGeneration;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Video> videos = queryPage(pageUri);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            onPageLoaded(page, videos);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private List<Video> queryPage(Uri pageUri) {
+        List<Video> videos = new ArrayList<>(mPageSize);
+        Cursor cursor = mContentResolver.query(
+                pageUri,
+                PROJECTION,
+                null,
+                null,
+                null);
+        if (cursor == null) {
+            return videos;
+        }
+        try {
+            VideoCursorMapper mapper = new VideoCursorMapper();
+            while (cursor.moveToNext()) {
+                videos.add((Video) mapper.convert(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return videos;
+    }
+
+    private void onPageLoaded(int page, List<Video> videos) {
+        mLoading.delete(page);
+        mPages.put(page, videos);
+        int start = page * mPageSize;
+
+        if (page == mPageKeys.size() - 1 && !mEndReached) {
+            // The last page known so far, the next one starts after its last video.
+            if (videos.size() == mPageSize) {
+                mPageKeys.add(videos.get(videos.size() - 1).id);
+                mLoadedSize = start + mPageSize;
+                notifyItemRangeChanged(start, mPageSize);
+                notifyItemRangeInserted(mLoadedSize, mPageSize);
+            } else {
+                mEndReached = true;
+                mLoadedSize = start + videos.size();
+                notifyItemRangeChanged(start, videos.size());
+                notifyItemRangeRemoved(mLoadedSize, mPageSize - videos.size());
+            }
+        } else {
+            notifyItemRangeChanged(start, videos.size());
+        }
+
+        evict();
+    }
+
+    // Drops the pages furthest from where the grid is, down to the most kept in memory.
+    private void evict() {
+        while (mPages.size() > MAX_PAGES) {
+            int furthest = 0;
+            for (int i = 1; i < mPages.size(); i++) {
+                if (Math.abs(mPages.keyAt(i) - mLastPage)
+                        > Math.abs(mPages.keyAt(furthest) - mLastPage)) {
+                    furthest = i;
+                }
+            }
+            int page = mPages.keyAt(furthest);
+            int count = mPages.valueAt(furthest).size();
+            mPages.removeAt(furthest);
+            // Cards still bound to it show placeholders, and load it again when shown.
+            notifyItemRangeChanged(page * mPageSize, count);
+        }
+    }
+
+    // Starts over from the first page, for when the videos or their order changed.
+    private void reset() {
+        mGeneration++;
+        mPages.clear();
+        mLoading.clear();
+        mPageKeys.clear();
+        mPageKeys.add(0L);
+        mLoadedSize = 0;
+        mEndReached = false;
+        notifyChanged();
+    }
+}
@@ -30,6 +30,9 @@ import com.example.android.tvleanback.R;
  * <a href="https://developer.android.com/training/game-controllers/controller-input.html">docs</href>.
  */
 public class PlaybackActivity extends LeanbackActivity {
+    /** When the user asked for the video, in {@link android.os.SystemClock#elapsedRealtime()}. */
+    public static final String REQUEST_TIME = "RequestTime";
+
     private static final float GAMEPAD_TRIGGER_INTENSITY_ON = 0.5f;
     // Off-condition slightly smaller for button debouncing.
     private static final float GAMEPAD_TRIGGER_INTENSITY_OFF = 0.45f;
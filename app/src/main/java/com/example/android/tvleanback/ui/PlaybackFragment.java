@@ -18,10 +18,10 @@ package com.example.android.tvleanback.ui;
 
 import android.annotation.TargetApi;
 import android.content.Intent;
-import android.database.Cursor;
-import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
 import androidx.leanback.app.VideoFragment;
 import androidx.leanback.app.VideoFragmentGlueHost;
 import androidx.leanback.app.VideoSupportFragment;
@@ -29,43 +29,42 @@ import androidx.leanback.app.VideoSupportFragmentGlueHost;
 import androidx.leanback.media.PlaybackGlue;
 import androidx.leanback.widget.ArrayObjectAdapter;
 import androidx.leanback.widget.ClassPresenterSelector;
-import androidx.leanback.widget.CursorObjectAdapter;
 import androidx.leanback.widget.HeaderItem;
 import androidx.leanback.widget.ImageCardView;
 import androidx.leanback.widget.ListRow;
 import androidx.leanback.widget.ListRowPresenter;
 import androidx.leanback.widget.OnItemViewClickedListener;
+import androidx.leanback.widget.PlaybackControlsRow;
 import androidx.leanback.widget.Presenter;
 import androidx.leanback.widget.Row;
 import androidx.leanback.widget.RowPresenter;
 import androidx.core.app.ActivityOptionsCompat;
-import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
-import androidx.loader.content.Loader;
 
 import com.example.android.tvleanback.R;
+import com.example.android.tvleanback.data.Ratings;
 import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoRepository;
+import com.example.android.tvleanback.data.WatchHistory;
 import com.example.android.tvleanback.model.Playlist;
 import com.example.android.tvleanback.model.Video;
-import com.example.android.tvleanback.model.VideoCursorMapper;
+import com.example.android.tvleanback.player.MediaCache;
+import com.example.android.tvleanback.player.PlaybackAnalytics;
+import com.example.android.tvleanback.player.PlaybackSessionStore;
+import com.example.android.tvleanback.player.PlayerPool;
+import com.example.android.tvleanback.player.PlaylistMediaQueue;
+import com.example.android.tvleanback.player.ThumbnailSeekDataProvider;
+import com.example.android.tvleanback.player.VideoMediaSourceBuilder;
 import com.example.android.tvleanback.player.VideoPlayerGlue;
 import com.example.android.tvleanback.presenter.CardPresenter;
-import com.google.android.exoplayer2.ExoPlayerFactory;
+import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.ext.leanback.LeanbackPlayerAdapter;
-import com.google.android.exoplayer2.extractor.DefaultExtractorsFactory;
-import com.google.android.exoplayer2.source.ExtractorMediaSource;
-import com.google.android.exoplayer2.source.MediaSource;
-import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
-import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
-import com.google.android.exoplayer2.trackselection.TrackSelection;
 import com.google.android.exoplayer2.trackselection.TrackSelector;
-import com.google.android.exoplayer2.upstream.BandwidthMeter;
-import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
-import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
 import com.google.android.exoplayer2.util.Util;
 
-import static com.example.android.tvleanback.ui.PlaybackFragment.VideoLoaderCallbacks.RELATED_VIDEOS_LOADER;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Plays selected video, loads playlist and related videos, and delegates playback to {@link
@@ -73,35 +72,91 @@ import static com.example.android.tvleanback.ui.PlaybackFragment.VideoLoaderCall
  */
 public class PlaybackFragment extends VideoSupportFragment {
 
+    // Progress is only updated this often while the controls are visible, and not at all otherwise.
     private static final int UPDATE_DELAY = 16;
+    /** The directory of the cache holding the seek thumbnails. */
+    public static final String THUMBNAILS_DIRECTORY = "thumbnails";
+    // How often the position is recorded in the watch history.
+    private static final long RECORD_INTERVAL_MS = 10 * 1000;
+
+    private final Handler mHandler = new Handler();
 
     private VideoPlayerGlue mPlayerGlue;
     private LeanbackPlayerAdapter mPlayerAdapter;
+    private PlayerPool.PooledPlayer mPooledPlayer;
     private SimpleExoPlayer mPlayer;
     private TrackSelector mTrackSelector;
     private PlaylistActionListener mPlaylistActionListener;
+    private PlaylistMediaQueue mMediaQueue;
+    private PlaybackAnalytics mAnalytics;
+    private ThumbnailSeekDataProvider mSeekDataProvider;
+    // When the user asked for the next video to play, or -1.
+    private long mRequestTimeMs;
+    private WatchHistory mWatchHistory;
+    private Ratings mRatings;
+    // The duration of the video, as last recorded.
+    private long mRecordedDurationMs;
+    // Whether the video is being changed by the user, rather than because it ended.
+    private boolean mSkipping;
 
     private Video mVideo;
     private Playlist mPlaylist;
-    private VideoLoaderCallbacks mVideoLoaderCallbacks;
-    private CursorObjectAdapter mVideoCursorAdapter;
+    private ArrayObjectAdapter mRelatedVideosAdapter;
+    private VideoRepository.Subscription mPlaylistSubscription;
+    private VideoRepository.Subscription mPlaylistVideosSubscription;
+    // The repeat mode, as an index of RepeatAction.
+    private int mRepeatIndex = PlaybackControlsRow.RepeatAction.INDEX_NONE;
+    private VideoRepository.Subscription mRelatedVideosSubscription;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
         mVideo = getActivity().getIntent().getParcelableExtra(VideoDetailsActivity.VIDEO);
+        mRequestTimeMs = getActivity().getIntent().getLongExtra(PlaybackActivity.REQUEST_TIME, -1);
         mPlaylist = new Playlist();
+        mWatchHistory = WatchHistory.getInstance(getActivity());
+        mRatings = Ratings.getInstance(getActivity());
+
+        // Loads the playlist. Only the ids of the videos are loaded, the videos themselves are
+        // loaded around the one being played.
+        VideoRepository repository = VideoRepository.getInstance(getActivity());
+        mPlaylistSubscription = repository.observe(
+                VideoRepository.videoIdsInCategory(mVideo.category),
+                new PlaylistObserver(mPlaylist));
 
-        mVideoLoaderCallbacks = new VideoLoaderCallbacks(mPlaylist);
+        mRelatedVideosAdapter = setupRelatedVideos(repository);
+    }
 
-        // Loads the playlist.
-        Bundle args = new Bundle();
-        args.putString(VideoContract.VideoEntry.COLUMN_CATEGORY, mVideo.category);
-        getLoaderManager()
-                .initLoader(VideoLoaderCallbacks.QUEUE_VIDEOS_LOADER, args, mVideoLoaderCallbacks);
+    @Override
+    public void showControlsOverlay(boolean runAnimation) {
+        // Start updating as the controls start to fade in, so they do not appear out of date.
+        setProgressUpdating(true);
+        super.showControlsOverlay(runAnimation);
+    }
 
-        mVideoCursorAdapter = setupRelatedVideosCursor();
+    @Override
+    public void hideControlsOverlay(boolean runAnimation) {
+        // Also called when the controls fade out by themselves, once input has stopped for a
+        // while, so no scrub is left. The progress stays as it is while they fade.
+        setProgressUpdating(false);
+        super.hideControlsOverlay(runAnimation);
+    }
+
+    @Override
+    public void tickle() {
+        setProgressUpdating(true);
+        super.tickle();
+    }
+
+    @Override
+    public void onDestroy() {
+        mPlaylistSubscription.release();
+        if (mPlaylistVideosSubscription != null) {
+            mPlaylistVideosSubscription.release();
+        }
+        mRelatedVideosSubscription.release();
+        super.onDestroy();
     }
 
     @Override
@@ -129,6 +184,8 @@ public class PlaybackFragment extends VideoSupportFragment {
         if (mPlayerGlue != null && mPlayerGlue.isPlaying()) {
             mPlayerGlue.pause();
         }
+        recordPosition();
+        mWatchHistory.flush();
         if (Util.SDK_INT <= 23) {
             releasePlayer();
         }
@@ -143,15 +200,28 @@ public class PlaybackFragment extends VideoSupportFragment {
     }
 
     private void initializePlayer() {
-        BandwidthMeter bandwidthMeter = new DefaultBandwidthMeter();
-        TrackSelection.Factory videoTrackSelectionFactory =
-                new AdaptiveTrackSelection.Factory(bandwidthMeter);
-        mTrackSelector = new DefaultTrackSelector(videoTrackSelectionFactory);
+        // Reuse the player of a previous session if it is still warm.
+        mPooledPlayer = PlayerPool.getInstance(getActivity()).acquire();
+        mTrackSelector = mPooledPlayer.trackSelector;
+        mPlayer = mPooledPlayer.player;
 
-        mPlayer = ExoPlayerFactory.newSimpleInstance(getActivity(), mTrackSelector);
         mPlayerAdapter = new LeanbackPlayerAdapter(getActivity(), mPlayer, UPDATE_DELAY);
-        mPlaylistActionListener = new PlaylistActionListener(mPlaylist);
+        // Attached before the queue, so it hears of transitions before the queue moves on.
+        mAnalytics = new PlaybackAnalytics(
+                mPlayer,
+                PlayerPool.getInstance(getActivity()).getBandwidthMeter(),
+                PlaybackSessionStore.getInstance(getActivity()));
+        mMediaQueue = new PlaylistMediaQueue(
+                mPlayer,
+                mPlaylist,
+                new VideoMediaSourceBuilder(getActivity()),
+                new VideoChangedListener(),
+                true);
+        mPlaylistActionListener = new PlaylistActionListener(mMediaQueue);
         mPlayerGlue = new VideoPlayerGlue(getActivity(), mPlayerAdapter, mPlaylistActionListener);
+        mPlayerGlue.setRepeatIndex(mRepeatIndex);
+        mPlayerGlue.setShuffled(mPlaylist.isShuffled());
+        updateRepeatMode();
         mPlayerGlue.setHost(new VideoSupportFragmentGlueHost(this));
         mPlayerGlue.playWhenPrepared();
 
@@ -159,11 +229,32 @@ public class PlaybackFragment extends VideoSupportFragment {
 
         ArrayObjectAdapter mRowsAdapter = initializeRelatedVideosRow();
         setAdapter(mRowsAdapter);
+
+        mHandler.postDelayed(mRecordPosition, RECORD_INTERVAL_MS);
+
+        // The glue turns updates on when the host starts, whether the controls are shown or not.
+        setProgressUpdating(isControlsOverlayVisible());
     }
 
     private void releasePlayer() {
         if (mPlayer != null) {
-            mPlayer.release();
+            mHandler.removeCallbacks(mRecordPosition);
+            recordPosition();
+            mWatchHistory.flush();
+            // Detach the glue first, so the pooled player is not left with our surface and
+            // listeners.
+            mPlayerGlue.setHost(null);
+            mPlayer.setRepeatMode(Player.REPEAT_MODE_OFF);
+            mMediaQueue.release();
+            mMediaQueue = null;
+            mAnalytics.release();
+            mAnalytics = null;
+            if (mSeekDataProvider != null) {
+                mSeekDataProvider.release();
+                mSeekDataProvider = null;
+            }
+            PlayerPool.getInstance(getActivity()).release(mPooledPlayer);
+            mPooledPlayer = null;
             mPlayer = null;
             mTrackSelector = null;
             mPlayerGlue = null;
@@ -172,24 +263,112 @@ public class PlaybackFragment extends VideoSupportFragment {
         }
     }
 
-    private void play(Video video) {
-        mPlayerGlue.setTitle(video.title);
-        mPlayerGlue.setSubtitle(video.description);
-        prepareMediaForPlaying(Uri.parse(video.videoUrl));
-        mPlayerGlue.play();
+    private final Runnable mRecordPosition = new Runnable() {
+        @Override
+        public void run() {
+            recordPosition();
+            mHandler.postDelayed(this, RECORD_INTERVAL_MS);
+        }
+    };
+
+    /** Records how far the video being played has been watched. */
+    private void recordPosition() {
+        if (mPlayer == null || mVideo == null) {
+            return;
+        }
+        long durationMs = mPlayer.getDuration();
+        if (durationMs > 0) {
+            mRecordedDurationMs = durationMs;
+            mWatchHistory.record(mVideo.videoUrl, mPlayer.getCurrentPosition(), durationMs);
+        }
+    }
+
+    /** Loads the videos around the current one in the playlist that are not loaded yet. */
+    private void loadPlaylistVideos() {
+        if (mPlaylistVideosSubscription != null) {
+            mPlaylistVideosSubscription.release();
+            mPlaylistVideosSubscription = null;
+        }
+        long[] ids = mPlaylist.getMissingIds();
+        if (ids.length == 0) {
+            return;
+        }
+        mPlaylistVideosSubscription = VideoRepository.getInstance(getActivity()).observe(
+                VideoRepository.videos(ids),
+                new VideoRepository.Observer<List<Video>>() {
+                    @Override
+                    public void onChanged(List<Video> videos) {
+                        mPlaylist.putVideos(videos);
+                        if (mMediaQueue != null) {
+                            mMediaQueue.onPlaylistChanged();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Repeats the playlist through the playlist itself, so the queue preloads across its end, and
+     * the current video through the player.
+     */
+    private void updateRepeatMode() {
+        mPlaylist.setRepeating(mRepeatIndex == PlaybackControlsRow.RepeatAction.INDEX_ALL);
+        mPlayer.setRepeatMode(mRepeatIndex == PlaybackControlsRow.RepeatAction.INDEX_ONE
+                ? Player.REPEAT_MODE_ONE
+                : Player.REPEAT_MODE_OFF);
+    }
+
+    /** Preloads the videos next to the current one again, after the playlist order changed. */
+    private void onPlaylistOrderChanged() {
+        loadPlaylistVideos();
+        if (mMediaQueue != null) {
+            mMediaQueue.onPlaylistChanged();
+        }
+    }
+
+    /** Seeks to where the video was left the last time it was watched, if anywhere. */
+    private void resume(final Video video) {
+        mWatchHistory.getResumePosition(video.videoUrl, new WatchHistory.Callback() {
+            @Override
+            public void onResumePosition(long positionMs) {
+                // Unless the video changed or was seeked past the position in the meantime.
+                if (positionMs > 0 && mPlayer != null && video.equals(mVideo)
+                        && mPlayer.getCurrentPosition() < positionMs) {
+                    mPlayer.seekTo(positionMs);
+                }
+            }
+        });
     }
 
-    private void prepareMediaForPlaying(Uri mediaSourceUri) {
-        String userAgent = Util.getUserAgent(getActivity(), "VideoPlayerGlue");
-        MediaSource mediaSource =
-                new ExtractorMediaSource(
-                        mediaSourceUri,
-                        new DefaultDataSourceFactory(getActivity(), userAgent),
-                        new DefaultExtractorsFactory(),
-                        null,
-                        null);
-
-        mPlayer.prepare(mediaSource);
+    /** Shows the thumbs up or down given to the video, if any. */
+    private void showRating(final Video video) {
+        mPlayerGlue.setRating(VideoContract.RatingEntry.RATING_NONE);
+        mRatings.getRating(video.videoUrl, new Ratings.Callback() {
+            @Override
+            public void onRating(int rating) {
+                // Unless the video changed in the meantime.
+                if (mPlayerGlue != null && video.equals(mVideo)) {
+                    mPlayerGlue.setRating(rating);
+                }
+            }
+        });
+    }
+
+    /**
+     * Turns the progress updates of the player adapter on or off. Each update wakes the main
+     * thread, which is wasted while nothing shows the progress.
+     */
+    private void setProgressUpdating(boolean enabled) {
+        // The glue turns updates on and off by itself too, so they are set every time rather than
+        // only when they seem to change. Turning updates on posts one right away.
+        if (mPlayerAdapter != null) {
+            mPlayerAdapter.setProgressUpdatingEnabled(enabled);
+        }
+    }
+
+    private void play(Video video) {
+        // The queue prepares the player with the video and preloads its neighbours.
+        mMediaQueue.play(video);
+        mPlayerGlue.play();
     }
 
     private ArrayObjectAdapter initializeRelatedVideosRow() {
@@ -210,7 +389,7 @@ public class PlaybackFragment extends VideoSupportFragment {
         rowsAdapter.add(mPlayerGlue.getControlsRow());
 
         HeaderItem header = new HeaderItem(getString(R.string.related_movies));
-        ListRow row = new ListRow(header, mVideoCursorAdapter);
+        ListRow row = new ListRow(header, mRelatedVideosAdapter);
         rowsAdapter.add(row);
 
         setOnItemViewClickedListener(new ItemViewClickedListener());
@@ -218,15 +397,40 @@ public class PlaybackFragment extends VideoSupportFragment {
         return rowsAdapter;
     }
 
-    private CursorObjectAdapter setupRelatedVideosCursor() {
-        CursorObjectAdapter videoCursorAdapter = new CursorObjectAdapter(new CardPresenter());
-        videoCursorAdapter.setMapper(new VideoCursorMapper());
+    private ArrayObjectAdapter setupRelatedVideos(VideoRepository repository) {
+        final ArrayObjectAdapter relatedVideosAdapter = new ArrayObjectAdapter(new CardPresenter());
+
+        // The details screen usually still observes the same related videos.
+        mRelatedVideosSubscription = repository.observe(
+                VideoRepository.relatedVideos(mVideo.id),
+                new VideoRepository.Observer<List<Video>>() {
+                    @Override
+                    public void onChanged(List<Video> videos) {
+                        relatedVideosAdapter.clear();
+                        relatedVideosAdapter.addAll(0, videos);
+                    }
+                });
 
-        Bundle args = new Bundle();
-        args.putString(VideoContract.VideoEntry.COLUMN_CATEGORY, mVideo.category);
-        getLoaderManager().initLoader(RELATED_VIDEOS_LOADER, args, mVideoLoaderCallbacks);
+        return relatedVideosAdapter;
+    }
 
-        return videoCursorAdapter;
+    /**
+     * Shows thumbnails while scrubbing, generated from the video when it is on the device and
+     * downloaded otherwise. The glue only seeks once a scrub ends when it has thumbnails to show.
+     */
+    private void updateSeekDataProvider(Video video) {
+        if (mSeekDataProvider != null) {
+            mSeekDataProvider.release();
+        }
+        mSeekDataProvider = new ThumbnailSeekDataProvider(
+                mPlayerAdapter,
+                ThumbnailSeekDataProvider.createSource(
+                        new File(getActivity().getCacheDir(), THUMBNAILS_DIRECTORY),
+                        MediaCache.getInstance(getActivity()),
+                        video.videoUrl,
+                        VideoContract.VideoEntry.CONTENT_TYPE_PROGRESSIVE.equals(
+                                VideoMediaSourceBuilder.getContentType(video))));
+        mPlayerGlue.setSeekProvider(mSeekDataProvider);
     }
 
     public void skipToNext() {
@@ -271,79 +475,102 @@ public class PlaybackFragment extends VideoSupportFragment {
         }
     }
 
-    /** Loads a playlist with videos from a cursor and also updates the related videos cursor. */
-    protected class VideoLoaderCallbacks implements LoaderManager.LoaderCallbacks<Cursor> {
-
-        static final int RELATED_VIDEOS_LOADER = 1;
-        static final int QUEUE_VIDEOS_LOADER = 2;
-
-        private final VideoCursorMapper mVideoCursorMapper = new VideoCursorMapper();
+    /** Loads a playlist with the ids of the videos of the category of the selected video. */
+    private class PlaylistObserver implements VideoRepository.Observer<long[]> {
 
         private final Playlist playlist;
 
-        private VideoLoaderCallbacks(Playlist playlist) {
+        private PlaylistObserver(Playlist playlist) {
             this.playlist = playlist;
         }
 
         @Override
-        public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-            // When loading related videos or videos for the playlist, query by category.
-            String category = args.getString(VideoContract.VideoEntry.COLUMN_CATEGORY);
-            return new CursorLoader(
-                    getActivity(),
-                    VideoContract.VideoEntry.CONTENT_URI,
-                    null,
-                    VideoContract.VideoEntry.COLUMN_CATEGORY + " = ?",
-                    new String[] {category},
-                    null);
+        public void onChanged(long[] ids) {
+            // Keep the position on the video being played, which is already loaded.
+            playlist.setIds(ids, mVideo.id);
+            playlist.putVideos(Collections.singletonList(mVideo));
+            onPlaylistOrderChanged();
         }
+    }
 
+    /** Shows the video being played, which changes on its own when the previous one ends. */
+    private class VideoChangedListener implements PlaylistMediaQueue.OnVideoChangedListener {
         @Override
-        public void onLoadFinished(Loader<Cursor> loader, Cursor cursor) {
-            if (cursor == null || !cursor.moveToFirst()) {
-                return;
-            }
-            int id = loader.getId();
-            if (id == QUEUE_VIDEOS_LOADER) {
-                playlist.clear();
-                do {
-                    Video video = (Video) mVideoCursorMapper.convert(cursor);
-
-                    // Set the current position to the selected video.
-                    if (video.id == mVideo.id) {
-                        playlist.setCurrentPosition(playlist.size());
-                    }
-
-                    playlist.add(video);
-
-                } while (cursor.moveToNext());
-            } else if (id == RELATED_VIDEOS_LOADER) {
-                mVideoCursorAdapter.changeCursor(cursor);
+        public void onVideoChanged(Video video) {
+            if (mVideo != null && !video.equals(mVideo) && !mSkipping
+                    && mRecordedDurationMs > 0) {
+                // Nobody asked for the change, so the previous video played to the end.
+                mWatchHistory.record(mVideo.videoUrl, mRecordedDurationMs, mRecordedDurationMs);
             }
-        }
-
-        @Override
-        public void onLoaderReset(Loader<Cursor> loader) {
-            mVideoCursorAdapter.changeCursor(null);
+            mRecordedDurationMs = 0;
+            mAnalytics.startSession(video.videoUrl,
+                    mRequestTimeMs >= 0 ? mRequestTimeMs : SystemClock.elapsedRealtime());
+            mRequestTimeMs = -1;
+
+            mVideo = video;
+            mPlayerGlue.setTitle(video.title);
+            mPlayerGlue.setSubtitle(video.description);
+            updateSeekDataProvider(video);
+            resume(video);
+            showRating(video);
+            loadPlaylistVideos();
         }
     }
 
     class PlaylistActionListener implements VideoPlayerGlue.OnActionClickedListener {
 
-        private Playlist mPlaylist;
+        private PlaylistMediaQueue mMediaQueue;
 
-        PlaylistActionListener(Playlist playlist) {
-            this.mPlaylist = playlist;
+        PlaylistActionListener(PlaylistMediaQueue mediaQueue) {
+            this.mMediaQueue = mediaQueue;
         }
 
         @Override
         public void onPrevious() {
-            play(mPlaylist.previous());
+            recordPosition();
+            // The video changed listener is called from within the skip, and takes the time.
+            mRequestTimeMs = SystemClock.elapsedRealtime();
+            mSkipping = true;
+            try {
+                if (!mMediaQueue.skipToPrevious()) {
+                    // Nothing to skip to, the next change is not one asked for.
+                    mRequestTimeMs = -1;
+                }
+            } finally {
+                mSkipping = false;
+            }
         }
 
         @Override
         public void onNext() {
-            play(mPlaylist.next());
+            recordPosition();
+            mRequestTimeMs = SystemClock.elapsedRealtime();
+            mSkipping = true;
+            try {
+                if (!mMediaQueue.skipToNext()) {
+                    mRequestTimeMs = -1;
+                }
+            } finally {
+                mSkipping = false;
+            }
+        }
+
+        @Override
+        public void onRepeatModeChanged(int repeatIndex) {
+            mRepeatIndex = repeatIndex;
+            updateRepeatMode();
+            onPlaylistOrderChanged();
+        }
+
+        @Override
+        public void onShuffleChanged(boolean shuffled) {
+            mPlaylist.setShuffled(shuffled);
+            onPlaylistOrderChanged();
+        }
+
+        @Override
+        public void onRatingChanged(int rating) {
+            mRatings.rate(mVideo.videoUrl, rating);
         }
     }
 }
@@ -17,11 +17,13 @@
 package com.example.android.tvleanback.ui;
 
 import android.os.Bundle;
+import android.view.KeyEvent;
 
 import com.example.android.tvleanback.R;
 
 /*
- * VerticalGridActivity that loads VerticalGridFragment
+ * VerticalGridActivity that loads VerticalGridFragment. The menu key and the right shoulder button
+ * change the sort order of the grid, the left shoulder button changes its filter.
  */
 public class VerticalGridActivity extends LeanbackActivity {
     /**
@@ -33,4 +35,18 @@ public class VerticalGridActivity extends LeanbackActivity {
         setContentView(R.layout.vertical_grid);
         getWindow().setBackgroundDrawableResource(R.drawable.grid_bg);
     }
+
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event) {
+        VerticalGridFragment fragment = (VerticalGridFragment)
+                getSupportFragmentManager().findFragmentById(R.id.vertical_grid_fragment);
+        if (keyCode == KeyEvent.KEYCODE_MENU || keyCode == KeyEvent.KEYCODE_BUTTON_R1) {
+            fragment.nextSort();
+            return true;
+        } else if (keyCode == KeyEvent.KEYCODE_BUTTON_L1) {
+            fragment.nextFilter();
+            return true;
+        }
+        return super.onKeyDown(keyCode, event);
+    }
 }
@@ -17,11 +17,9 @@
 package com.example.android.tvleanback.ui;
 
 import android.content.Intent;
-import android.database.Cursor;
 import android.os.Bundle;
 import android.os.Handler;
 import androidx.leanback.app.VerticalGridSupportFragment;
-import androidx.leanback.widget.CursorObjectAdapter;
 import androidx.leanback.widget.ImageCardView;
 import androidx.leanback.widget.OnItemViewClickedListener;
 import androidx.leanback.widget.OnItemViewSelectedListener;
@@ -30,36 +28,47 @@ import androidx.leanback.widget.Row;
 import androidx.leanback.widget.RowPresenter;
 import androidx.leanback.widget.VerticalGridPresenter;
 import androidx.core.app.ActivityOptionsCompat;
-import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
-import androidx.loader.content.Loader;
 import android.view.View;
 
 import com.example.android.tvleanback.R;
-import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoContract.VideoEntry;
 import com.example.android.tvleanback.model.Video;
-import com.example.android.tvleanback.model.VideoCursorMapper;
 import com.example.android.tvleanback.presenter.CardPresenter;
 
 /*
- * VerticalGridFragment shows a grid of videos that can be scrolled vertically.
+ * VerticalGridFragment shows a grid of videos that can be scrolled vertically. The videos are
+ * loaded a page at a time as the grid scrolls, in one of a few sort orders, and can be narrowed
+ * to the category or studio of the selected video, or to live videos.
  */
-public class VerticalGridFragment extends VerticalGridSupportFragment
-        implements LoaderManager.LoaderCallbacks<Cursor> {
+public class VerticalGridFragment extends VerticalGridSupportFragment {
 
     private static final int NUM_COLUMNS = 5;
-    private final CursorObjectAdapter mVideoCursorAdapter =
-            new CursorObjectAdapter(new CardPresenter());
-    private static final int ALL_VIDEOS_LOADER = 1;
+    // The rows of cards loaded at a time, a few screens worth.
+    private static final int ROWS_PER_PAGE = 8;
+    private static final String[] SORTS = {
+            VideoEntry.SORT_TITLE, VideoEntry.SORT_YEAR, VideoEntry.SORT_RATING,
+            VideoEntry.SORT_ADDED
+    };
+    private static final int[] SORT_TITLES = {
+            R.string.grid_sort_title, R.string.grid_sort_year, R.string.grid_sort_rating,
+            R.string.grid_sort_added
+    };
+    private PagedVideoAdapter mVideoAdapter;
+    private int mSort;
+    // The column the videos are filtered on and the value it must have, or null for all videos.
+    private String mFilter;
+    private String mFilterValue;
+    private Video mSelectedVideo;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        mVideoCursorAdapter.setMapper(new VideoCursorMapper());
-        setAdapter(mVideoCursorAdapter);
+        mVideoAdapter = new PagedVideoAdapter(getActivity(), new CardPresenter(),
+                VideoEntry.buildSortedUri(SORTS[mSort], null, null), NUM_COLUMNS * ROWS_PER_PAGE);
+        setAdapter(mVideoAdapter);
 
-        setTitle(getString(R.string.vertical_grid_title));
+        updateTitle();
 
         if (savedInstanceState == null) {
             prepareEntranceTransition();
@@ -72,8 +81,6 @@ public class VerticalGridFragment extends VerticalGridSupportFragment
         gridPresenter.setNumberOfColumns(NUM_COLUMNS);
         setGridPresenter(gridPresenter);
 
-        getLoaderManager().initLoader(ALL_VIDEOS_LOADER, null, this);
-
         // After 500ms, start the animation to transition the cards into view.
         new Handler().postDelayed(new Runnable() {
             public void run() {
@@ -94,27 +101,55 @@ public class VerticalGridFragment extends VerticalGridSupportFragment
     }
 
     @Override
-    public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        return new CursorLoader(
-                getActivity(),
-                VideoContract.VideoEntry.CONTENT_URI,
-                null, // projection
-                null, // selection
-                null, // selection clause
-                null  // sort order
-        );
+    public void onDestroy() {
+        mVideoAdapter.close();
+        super.onDestroy();
     }
 
-    @Override
-    public void onLoadFinished(Loader<Cursor> loader, Cursor cursor) {
-        if (loader.getId() == ALL_VIDEOS_LOADER && cursor != null && cursor.moveToFirst()) {
-            mVideoCursorAdapter.changeCursor(cursor);
+    /** Sorts the videos in the next sort order. */
+    public void nextSort() {
+        mSort = (mSort + 1) % SORTS.length;
+        updateVideos();
+    }
+
+    /**
+     * Narrows the videos to the next filter: the category of the selected video, then its studio,
+     * then live videos, then back to all videos.
+     */
+    public void nextFilter() {
+        if (mFilter == null && mSelectedVideo != null) {
+            setFilter(VideoEntry.FILTER_CATEGORY, mSelectedVideo.category);
+        } else if (VideoEntry.FILTER_CATEGORY.equals(mFilter) && mSelectedVideo != null) {
+            setFilter(VideoEntry.FILTER_STUDIO, mSelectedVideo.studio);
+        } else if (!VideoEntry.FILTER_LIVE.equals(mFilter)) {
+            setFilter(VideoEntry.FILTER_LIVE, "1");
+        } else {
+            setFilter(null, null);
         }
+        updateVideos();
     }
 
-    @Override
-    public void onLoaderReset(Loader<Cursor> loader) {
-        mVideoCursorAdapter.changeCursor(null);
+    private void setFilter(String filter, String value) {
+        mFilter = filter;
+        mFilterValue = value;
+    }
+
+    private void updateVideos() {
+        mVideoAdapter.setSortedUri(
+                VideoEntry.buildSortedUri(SORTS[mSort], mFilter, mFilterValue));
+        setSelectedPosition(0);
+        updateTitle();
+    }
+
+    private void updateTitle() {
+        String sort = getString(SORT_TITLES[mSort]);
+        if (mFilter == null) {
+            setTitle(sort);
+        } else if (VideoEntry.FILTER_LIVE.equals(mFilter)) {
+            setTitle(getString(R.string.grid_title, sort, getString(R.string.grid_filter_live)));
+        } else {
+            setTitle(getString(R.string.grid_title, sort, mFilterValue));
+        }
     }
 
     private final class ItemViewClickedListener implements OnItemViewClickedListener {
@@ -141,6 +176,9 @@ public class VerticalGridFragment extends VerticalGridSupportFragment
         @Override
         public void onItemSelected(Presenter.ViewHolder itemViewHolder, Object item,
                 RowPresenter.ViewHolder rowViewHolder, Row row) {
+            if (item instanceof Video) {
+                mSelectedVideo = (Video) item;
+            }
         }
     }
 }
@@ -25,12 +25,12 @@ import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import androidx.leanback.app.BackgroundManager;
 import androidx.leanback.app.DetailsSupportFragment;
 import androidx.leanback.widget.Action;
 import androidx.leanback.widget.ArrayObjectAdapter;
 import androidx.leanback.widget.ClassPresenterSelector;
-import androidx.leanback.widget.CursorObjectAdapter;
 import androidx.leanback.widget.DetailsOverviewLogoPresenter;
 import androidx.leanback.widget.DetailsOverviewRow;
 import androidx.leanback.widget.FullWidthDetailsOverviewRowPresenter;
@@ -51,6 +51,7 @@ import androidx.core.content.ContextCompat;
 import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.util.DisplayMetrics;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -63,11 +64,14 @@ import com.bumptech.glide.request.target.SimpleTarget;
 import com.bumptech.glide.request.transition.Transition;
 import com.example.android.tvleanback.R;
 import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoRepository;
 import com.example.android.tvleanback.model.Video;
 import com.example.android.tvleanback.model.VideoCursorMapper;
 import com.example.android.tvleanback.presenter.CardPresenter;
 import com.example.android.tvleanback.presenter.DetailsDescriptionPresenter;
 
+import java.util.List;
+
 /*
  * VideoDetailsFragment extends DetailsFragment, a Wrapper fragment for leanback details screens.
  * It shows a detailed view of video and its metadata plus related videos.
@@ -75,16 +79,15 @@ import com.example.android.tvleanback.presenter.DetailsDescriptionPresenter;
 public class VideoDetailsFragment extends DetailsSupportFragment
         implements LoaderManager.LoaderCallbacks<Cursor> {
 
+    private static final String TAG = "VideoDetailsFragment";
+
     private static final int NO_NOTIFICATION = -1;
     private static final int ACTION_WATCH_TRAILER = 1;
     private static final int ACTION_RENT = 2;
     private static final int ACTION_BUY = 3;
 
-    // ID for loader that loads related videos.
-    private static final int RELATED_VIDEO_LOADER = 1;
-
     // ID for loader that loads the video from global search.
-    private int mGlobalSearchVideoId = 2;
+    private static final int GLOBAL_SEARCH_VIDEO_LOADER = 1;
 
     private Video mSelectedVideo;
     private ArrayObjectAdapter mAdapter;
@@ -92,7 +95,8 @@ public class VideoDetailsFragment extends DetailsSupportFragment
     private BackgroundManager mBackgroundManager;
     private Drawable mDefaultBackground;
     private DisplayMetrics mMetrics;
-    private CursorObjectAdapter mVideoCursorAdapter;
+    private ArrayObjectAdapter mRelatedVideosAdapter;
+    private VideoRepository.Subscription mRelatedVideosSubscription;
     private FullWidthDetailsOverviewSharedElementHelper mHelper;
     private final VideoCursorMapper mVideoCursorMapper = new VideoCursorMapper();
 
@@ -101,8 +105,7 @@ public class VideoDetailsFragment extends DetailsSupportFragment
         super.onCreate(savedInstanceState);
 
         prepareBackgroundManager();
-        mVideoCursorAdapter = new CursorObjectAdapter(new CardPresenter());
-        mVideoCursorAdapter.setMapper(mVideoCursorMapper);
+        mRelatedVideosAdapter = new ArrayObjectAdapter(new CardPresenter());
 
         mSelectedVideo = (Video) getActivity().getIntent()
                 .getParcelableExtra(VideoDetailsActivity.VIDEO);
@@ -134,6 +137,15 @@ public class VideoDetailsFragment extends DetailsSupportFragment
         super.onStop();
     }
 
+    @Override
+    public void onDestroy() {
+        if (mRelatedVideosSubscription != null) {
+            mRelatedVideosSubscription.release();
+            mRelatedVideosSubscription = null;
+        }
+        super.onDestroy();
+    }
+
     /**
      * Check if there is a global search intent. If there is, load that video.
      */
@@ -144,11 +156,21 @@ public class VideoDetailsFragment extends DetailsSupportFragment
 
         if (globalSearch.equalsIgnoreCase(intentAction)) {
             Uri intentData = intent.getData();
-            String videoId = intentData.getLastPathSegment();
+            String videoId = intentData != null ? intentData.getLastPathSegment() : null;
+
+            long id;
+            try {
+                id = Long.parseLong(videoId);
+            } catch (NumberFormatException e) {
+                // The link comes from outside the app, treat a malformed one as a video that is
+                // not found: the details stay empty.
+                Log.w(TAG, "Invalid video id in search intent: " + intentData);
+                return true;
+            }
 
             Bundle args = new Bundle();
-            args.putString(VideoContract.VideoEntry._ID, videoId);
-            getLoaderManager().initLoader(mGlobalSearchVideoId++, args, this);
+            args.putLong(VideoContract.VideoEntry._ID, id);
+            getLoaderManager().initLoader(GLOBAL_SEARCH_VIDEO_LOADER, args, this);
             return true;
         }
         return false;
@@ -163,8 +185,7 @@ public class VideoDetailsFragment extends DetailsSupportFragment
     }
 
     private void updateBackground(String uri) {
-        RequestOptions options = new RequestOptions()
-                .centerCrop()
+        RequestOptions options = DetailsPrefetcher.backgroundOptions()
                 .error(mDefaultBackground);
 
         Glide.with(this)
@@ -205,6 +226,7 @@ public class VideoDetailsFragment extends DetailsSupportFragment
                 if (action.getId() == ACTION_WATCH_TRAILER) {
                     Intent intent = new Intent(getActivity(), PlaybackActivity.class);
                     intent.putExtra(VideoDetailsActivity.VIDEO, mSelectedVideo);
+                    intent.putExtra(PlaybackActivity.REQUEST_TIME, SystemClock.elapsedRealtime());
                     startActivity(intent);
                 } else {
                     Toast.makeText(getActivity(), action.toString(), Toast.LENGTH_SHORT).show();
@@ -221,61 +243,36 @@ public class VideoDetailsFragment extends DetailsSupportFragment
 
     @Override
     public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        switch (id) {
-            case RELATED_VIDEO_LOADER: {
-                String category = args.getString(VideoContract.VideoEntry.COLUMN_CATEGORY);
-                return new CursorLoader(
-                        getActivity(),
-                        VideoContract.VideoEntry.CONTENT_URI,
-                        null,
-                        VideoContract.VideoEntry.COLUMN_CATEGORY + " = ?",
-                        new String[]{category},
-                        null
-                );
-            }
-            default: {
-                // Loading video from global search.
-                String videoId = args.getString(VideoContract.VideoEntry._ID);
-                return new CursorLoader(
-                        getActivity(),
-                        VideoContract.VideoEntry.CONTENT_URI,
-                        null,
-                        VideoContract.VideoEntry._ID + " = ?",
-                        new String[]{videoId},
-                        null
-                );
-            }
-        }
-
+        // Loading video from global search, by primary key.
+        long videoId = args.getLong(VideoContract.VideoEntry._ID);
+        return new CursorLoader(
+                getActivity(),
+                VideoContract.VideoEntry.buildVideoUri(videoId),
+                null,
+                null,
+                null,
+                null
+        );
     }
 
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor cursor) {
         if (cursor != null && cursor.moveToNext()) {
-            switch (loader.getId()) {
-                case RELATED_VIDEO_LOADER: {
-                    mVideoCursorAdapter.changeCursor(cursor);
-                    break;
-                }
-                default: {
-                    // Loading video from global search.
-                    mSelectedVideo = (Video) mVideoCursorMapper.convert(cursor);
+            // Loading video from global search.
+            mSelectedVideo = (Video) mVideoCursorMapper.convert(cursor);
 
-                    setupAdapter();
-                    setupDetailsOverviewRow();
-                    setupMovieListRow();
-                    updateBackground(mSelectedVideo.bgImageUrl);
+            setupAdapter();
+            setupDetailsOverviewRow();
+            setupMovieListRow();
+            updateBackground(mSelectedVideo.bgImageUrl);
 
-                    // When a Related Video item is clicked.
-                    setOnItemViewClickedListener(new ItemViewClickedListener());
-                }
-            }
+            // When a Related Video item is clicked.
+            setOnItemViewClickedListener(new ItemViewClickedListener());
         }
     }
 
     @Override
     public void onLoaderReset(Loader<Cursor> loader) {
-        mVideoCursorAdapter.changeCursor(null);
     }
 
     static class MovieDetailsOverviewLogoPresenter extends DetailsOverviewLogoPresenter {
@@ -324,15 +321,14 @@ public class VideoDetailsFragment extends DetailsSupportFragment
     private void setupDetailsOverviewRow() {
         final DetailsOverviewRow row = new DetailsOverviewRow(mSelectedVideo);
 
-        RequestOptions options = new RequestOptions()
-                .error(R.drawable.default_background)
-                .dontAnimate();
-
+        // Load the poster at the size it is shown at, which is also the size it was prefetched at.
+        Resources res = getResources();
         Glide.with(this)
                 .asBitmap()
                 .load(mSelectedVideo.cardImageUrl)
-                .apply(options)
-                .into(new SimpleTarget<Bitmap>() {
+                .apply(DetailsPrefetcher.posterOptions())
+                .into(new SimpleTarget<Bitmap>(
+                        DetailsPrefetcher.posterWidth(res), DetailsPrefetcher.posterHeight(res)) {
                     @Override
                     public void onResourceReady(
                             Bitmap resource,
@@ -359,15 +355,23 @@ public class VideoDetailsFragment extends DetailsSupportFragment
     private void setupMovieListRow() {
         String subcategories[] = {getString(R.string.related_movies)};
 
-        // Generating related video list.
-        String category = mSelectedVideo.category;
-
-        Bundle args = new Bundle();
-        args.putString(VideoContract.VideoEntry.COLUMN_CATEGORY, category);
-        getLoaderManager().initLoader(RELATED_VIDEO_LOADER, args, this);
+        // Loading the precomputed related video list, which is shared with the playback screen and
+        // may already have been prefetched while the card had focus.
+        if (mRelatedVideosSubscription != null) {
+            mRelatedVideosSubscription.release();
+        }
+        mRelatedVideosSubscription = VideoRepository.getInstance(getActivity()).observe(
+                VideoRepository.relatedVideos(mSelectedVideo.id),
+                new VideoRepository.Observer<List<Video>>() {
+                    @Override
+                    public void onChanged(List<Video> videos) {
+                        mRelatedVideosAdapter.clear();
+                        mRelatedVideosAdapter.addAll(0, videos);
+                    }
+                });
 
         HeaderItem header = new HeaderItem(0, subcategories[0]);
-        mAdapter.add(new ListRow(header, mVideoCursorAdapter));
+        mAdapter.add(new ListRow(header, mRelatedVideosAdapter));
     }
 
     private final class ItemViewClickedListener implements OnItemViewClickedListener {
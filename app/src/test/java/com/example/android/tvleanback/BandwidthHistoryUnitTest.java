@@ -0,0 +1,101 @@
+package com.example.android.tvleanback;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.android.tvleanback.player.BandwidthHistory;
+import com.example.android.tvleanback.player.PersistedBandwidthMeter;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelection;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.util.MimeTypes;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class BandwidthHistoryUnitTest {
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    private SharedPreferences mSharedPreferences;
+
+    @Before
+    public void clearHistory() {
+        mSharedPreferences = RuntimeEnvironment.application
+                .getSharedPreferences("bandwidth_history_test", Context.MODE_PRIVATE);
+        mSharedPreferences.edit().clear().commit();
+    }
+
+    @Test
+    public void firstSelectedTrackMatchesPersistedEstimate() {
+        // A previous session measured a 3 Mbps network.
+        long now = System.currentTimeMillis();
+        new BandwidthHistory(mSharedPreferences).addSample(3000000, now);
+
+        // The app restarts with a history read back from disk.
+        PersistedBandwidthMeter meter =
+                new PersistedBandwidthMeter(new BandwidthHistory(mSharedPreferences));
+        TrackSelection selection = new AdaptiveTrackSelection.Factory(meter)
+                .createTrackSelection(buildLadder(), 0, 1, 2, 3);
+
+        // 3 Mbps leaves room for the 2 Mbps rendition, not the 4 Mbps one.
+        Assert.assertEquals(2000000, selection.getSelectedFormat().bitrate);
+    }
+
+    @Test
+    public void withoutHistoryStartsFromDefault() {
+        PersistedBandwidthMeter meter =
+                new PersistedBandwidthMeter(new BandwidthHistory(mSharedPreferences));
+        Assert.assertEquals(BandwidthMeter.NO_ESTIMATE, meter.getBitrateEstimate());
+
+        TrackSelection selection = new AdaptiveTrackSelection.Factory(meter)
+                .createTrackSelection(buildLadder(), 0, 1, 2, 3);
+        Assert.assertEquals(500000, selection.getSelectedFormat().bitrate);
+    }
+
+    @Test
+    public void staleHistoryDecays() {
+        BandwidthHistory history = new BandwidthHistory(mSharedPreferences);
+        history.addSample(10000000, 0);
+        Assert.assertEquals(10000000, history.getEstimate(0));
+
+        // Halfway back to the default after a day, forgotten after a few.
+        long defaultBitrate = AdaptiveTrackSelection.DEFAULT_MAX_INITIAL_BITRATE;
+        Assert.assertEquals((10000000 + defaultBitrate) / 2, history.getEstimate(DAY_MS));
+        Assert.assertEquals(BandwidthMeter.NO_ESTIMATE, history.getEstimate(30 * DAY_MS));
+    }
+
+    @Test
+    public void samplesAreSmoothed() {
+        BandwidthHistory history = new BandwidthHistory(mSharedPreferences);
+        history.addSample(1000000, 0);
+        history.addSample(2000000, 0);
+
+        long estimate = history.getEstimate(0);
+        Assert.assertTrue(estimate > 1000000 && estimate < 2000000);
+        Assert.assertEquals(2, history.getSampleCount());
+    }
+
+    // A bitrate ladder of a simulated adaptive stream.
+    private static TrackGroup buildLadder() {
+        return new TrackGroup(
+                buildFormat("500k", 500000, 640, 360),
+                buildFormat("1m", 1000000, 854, 480),
+                buildFormat("2m", 2000000, 1280, 720),
+                buildFormat("4m", 4000000, 1920, 1080));
+    }
+
+    private static Format buildFormat(String id, int bitrate, int width, int height) {
+        return Format.createVideoSampleFormat(id, MimeTypes.VIDEO_H264, null, bitrate,
+                Format.NO_VALUE, width, height, Format.NO_VALUE, null, null);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Bundle;
+import android.text.TextUtils;
+
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoDbBuilder;
+import com.example.android.tvleanback.data.VideoProvider;
+
+import junit.framework.Assert;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowApplication;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class CatalogSwapUnitTest {
+    private VideoProvider mProvider;
+    private ContentResolver mContentResolver;
+
+    @Before
+    public void setUp() {
+        mProvider = Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY).get();
+        mContentResolver = RuntimeEnvironment.application.getContentResolver();
+        ShadowApplication.getInstance().grantPermissions(accessVideoData());
+    }
+
+    @Test
+    public void syncReplacesTheWholeCatalog() throws JSONException {
+        sync("a", "b", "c");
+        Map<String, Long> before = queryIdsByTitle();
+        Assert.assertEquals(3, before.size());
+
+        sync("b", "c", "d");
+        Map<String, Long> after = queryIdsByTitle();
+        Assert.assertEquals(3, after.size());
+        Assert.assertFalse(after.containsKey("a"));
+
+        // Videos still there keep their id, new ones get an id never used before.
+        Assert.assertEquals(before.get("b"), after.get("b"));
+        Assert.assertEquals(before.get("c"), after.get("c"));
+        for (long id : before.values()) {
+            Assert.assertTrue(after.get("d") > id);
+        }
+    }
+
+    @Test
+    public void emptyCatalogIsRejected() throws JSONException {
+        sync("a", "b");
+        try {
+            mContentResolver.bulkInsert(VideoContract.VideoEntry.CATALOG_URI,
+                    new ContentValues[0]);
+            Assert.fail("An empty catalog was swapped in");
+        } catch (SQLException expected) {
+            // The catalog before stays.
+        }
+        Assert.assertEquals(2, queryIdsByTitle().size());
+    }
+
+    @Test
+    public void rollbackSwapsThePreviousCatalogBackIn() throws JSONException {
+        sync("a", "b");
+        sync("c");
+        Assert.assertTrue(rollback());
+        Assert.assertEquals(2, queryIdsByTitle().size());
+        Assert.assertTrue(queryIdsByTitle().containsKey("a"));
+
+        // Only one catalog is kept to go back to.
+        Assert.assertFalse(rollback());
+        Assert.assertEquals(2, queryIdsByTitle().size());
+    }
+
+    @Test
+    public void rollbackNeedsThePermission() throws JSONException {
+        sync("a", "b");
+        sync("c");
+        ShadowApplication.getInstance().denyPermissions(accessVideoData());
+        try {
+            rollback();
+            Assert.fail("Rolled back without the permission");
+        } catch (SecurityException expected) {
+            // The live catalog stays.
+        }
+        Assert.assertTrue(queryIdsByTitle().containsKey("c"));
+    }
+
+    @Test
+    public void catalogIsReadWhileNextIsBuilt() throws JSONException {
+        sync("a", "b");
+        // A cursor over the live catalog stays valid across a swap.
+        Cursor cursor = mContentResolver.query(VideoContract.VideoEntry.CONTENT_URI,
+                new String[]{VideoContract.VideoEntry.COLUMN_NAME}, null, null, null);
+        try {
+            Assert.assertEquals(2, cursor.getCount());
+            sync("c", "d", "e");
+            Assert.assertTrue(cursor.moveToFirst());
+            Assert.assertEquals("a", cursor.getString(0));
+        } finally {
+            cursor.close();
+        }
+        Assert.assertEquals(3, queryIdsByTitle().size());
+    }
+
+    @Test
+    public void cursorKeepsReadingItsCatalogAfterSwap() throws JSONException {
+        sync("a", "b");
+        Cursor cursor = mContentResolver.query(VideoContract.VideoEntry.CONTENT_URI,
+                new String[]{VideoContract.VideoEntry.COLUMN_NAME}, null, null, null);
+        try {
+            sync("c", "d", "e");
+            // Filled again, like a cursor read past its window.
+            Assert.assertTrue(cursor.requery());
+            Assert.assertEquals(2, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void missingCatalogFallsBackToPrevious() throws JSONException {
+        sync("a", "b");
+        sync("c");
+        // The live catalog is the newest file.
+        long newest = 0;
+        for (String name : RuntimeEnvironment.application.getDatabasePath("leanback.db")
+                .getParentFile().list()) {
+            if (name.matches("catalog-\\d+\\.db")) {
+                newest = Math.max(newest, Long.parseLong(name.replaceAll("\\D", "")));
+            }
+        }
+        Assert.assertTrue(SQLiteDatabase.deleteDatabase(
+                RuntimeEnvironment.application.getDatabasePath("catalog-" + newest + ".db")));
+
+        // Read again when the app starts.
+        Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY);
+        Assert.assertTrue(queryIdsByTitle().containsKey("a"));
+    }
+
+    @Test
+    public void upgradeKeepsVideoIdsAndWatchHistory() throws JSONException {
+        // A database from before the catalog, with a video and how far it was watched.
+        ContentValues video = buildVideos("a")[0];
+        video.put(VideoContract.VideoEntry._ID, 42);
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(
+                RuntimeEnvironment.application.getDatabasePath("leanback.db"), null);
+        db.execSQL("CREATE TABLE " + VideoContract.VideoEntry.TABLE_NAME + " ("
+                + TextUtils.join(", ", video.keySet()) + ")");
+        db.insert(VideoContract.VideoEntry.TABLE_NAME, null, video);
+        db.execSQL("CREATE TABLE " + VideoContract.WatchHistoryEntry.TABLE_NAME + " ("
+                + VideoContract.WatchHistoryEntry.COLUMN_VIDEO_URL + " TEXT PRIMARY KEY, "
+                + VideoContract.WatchHistoryEntry.COLUMN_POSITION + " INTEGER NOT NULL, "
+                + VideoContract.WatchHistoryEntry.COLUMN_DURATION + " INTEGER NOT NULL, "
+                + VideoContract.WatchHistoryEntry.COLUMN_LAST_WATCHED + " INTEGER NOT NULL, "
+                + VideoContract.WatchHistoryEntry.COLUMN_PROGRESS + " REAL NOT NULL DEFAULT 0)");
+        ContentValues watched = new ContentValues();
+        watched.put(VideoContract.WatchHistoryEntry.COLUMN_VIDEO_URL,
+                video.getAsString(VideoContract.VideoEntry.COLUMN_VIDEO_URL));
+        watched.put(VideoContract.WatchHistoryEntry.COLUMN_POSITION, 1000);
+        watched.put(VideoContract.WatchHistoryEntry.COLUMN_DURATION, 5000);
+        watched.put(VideoContract.WatchHistoryEntry.COLUMN_LAST_WATCHED, 1);
+        db.insert(VideoContract.WatchHistoryEntry.TABLE_NAME, null, watched);
+        db.setVersion(9);
+        db.close();
+
+        Assert.assertEquals(Long.valueOf(42), queryIdsByTitle().get("a"));
+        Cursor cursor = mContentResolver.query(VideoContract.WatchHistoryEntry.CONTENT_URI,
+                null, null, null, null);
+        try {
+            Assert.assertEquals(1, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void sync(String... titles) throws JSONException {
+        Assert.assertEquals(titles.length, mContentResolver.bulkInsert(
+                VideoContract.VideoEntry.CATALOG_URI, buildVideos(titles)));
+    }
+
+    private static ContentValues[] buildVideos(String... titles) throws JSONException {
+        JSONArray mediaArray = new JSONArray();
+        for (String title : titles) {
+            mediaArray.put(new JSONObject()
+                    .put(VideoDbBuilder.TAG_TITLE, title)
+                    .put(VideoDbBuilder.TAG_SOURCES,
+                            new JSONArray().put("http://www.example.com/" + title + ".mp4")));
+        }
+        JSONObject myMedia = new JSONObject().put(VideoDbBuilder.TAG_GOOGLE_VIDEOS,
+                new JSONArray().put(new JSONObject()
+                        .put(VideoDbBuilder.TAG_CATEGORY, "Demo")
+                        .put(VideoDbBuilder.TAG_MEDIA, mediaArray)));
+        List<ContentValues> videos =
+                new VideoDbBuilder(RuntimeEnvironment.application).buildMedia(myMedia);
+        return videos.toArray(new ContentValues[videos.size()]);
+    }
+
+    private static String accessVideoData() {
+        return RuntimeEnvironment.application.getPackageName() + ".ACCESS_VIDEO_DATA";
+    }
+
+    private boolean rollback() {
+        Bundle result = mProvider.call(VideoContract.METHOD_ROLLBACK_CATALOG, null, null);
+        return result.getBoolean(VideoContract.EXTRA_ROLLED_BACK);
+    }
+
+    private Map<String, Long> queryIdsByTitle() {
+        Cursor cursor = mContentResolver.query(VideoContract.VideoEntry.CONTENT_URI,
+                new String[]{VideoContract.VideoEntry._ID, VideoContract.VideoEntry.COLUMN_NAME},
+                null, null, null);
+        try {
+            Map<String, Long> ids = new HashMap<>();
+            while (cursor.moveToNext()) {
+                ids.put(cursor.getString(1), cursor.getLong(0));
+            }
+            return ids;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentValues;
+import androidx.tvprovider.media.tv.TvContractCompat;
+import androidx.tvprovider.media.tv.TvContractCompat.PreviewPrograms;
+
+import com.example.android.tvleanback.recommendation.ChannelSync;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class ChannelSyncUnitTest {
+    private static final long CHANNEL_ID = 7;
+    private static final int SIZE = 200;
+
+    private LocalTvProvider mProvider;
+    private ChannelSync mChannelSync;
+
+    @Before
+    public void setUp() {
+        mProvider = Robolectric.buildContentProvider(LocalTvProvider.class)
+                .create(TvContractCompat.AUTHORITY)
+                .get();
+        mChannelSync = new ChannelSync(RuntimeEnvironment.application.getContentResolver());
+    }
+
+    @Test
+    public void firstSyncInsertsEveryProgramInOneBatch() throws Exception {
+        Assert.assertEquals(SIZE, mChannelSync.sync(CHANNEL_ID, programs(0, SIZE)));
+        Assert.assertEquals(1, mProvider.batches);
+        Assert.assertEquals(SIZE, mProvider.inserts);
+        Assert.assertEquals(SIZE, mProvider.getProgramCount());
+    }
+
+    @Test
+    public void unchangedChannelIsNotTouched() throws Exception {
+        mChannelSync.sync(CHANNEL_ID, programs(0, SIZE));
+        mProvider.resetCounts();
+
+        Assert.assertEquals(0, mChannelSync.sync(CHANNEL_ID, programs(0, SIZE)));
+        Assert.assertEquals(0, mProvider.batches);
+    }
+
+    @Test
+    public void threeChangesCostThreeOperations() throws Exception {
+        mChannelSync.sync(CHANNEL_ID, programs(0, SIZE));
+        mProvider.resetCounts();
+
+        // Drop the first program, add one at the end and rename one in the middle.
+        List<ContentValues> programs = programs(1, SIZE + 1);
+        programs.get(SIZE / 2).put(PreviewPrograms.COLUMN_TITLE, "Renamed");
+
+        Assert.assertEquals(3, mChannelSync.sync(CHANNEL_ID, programs));
+        Assert.assertEquals(1, mProvider.batches);
+        Assert.assertEquals(1, mProvider.inserts);
+        Assert.assertEquals(1, mProvider.updates);
+        Assert.assertEquals(1, mProvider.deletes);
+        Assert.assertEquals(SIZE, mProvider.getProgramCount());
+
+        // The program that was renamed keeps its id.
+        Assert.assertEquals("Renamed",
+                mProvider.getProgram(SIZE / 2 + 2).getAsString(PreviewPrograms.COLUMN_TITLE));
+    }
+
+    @Test
+    public void programAtTheTopCostsOneOperation() throws Exception {
+        mChannelSync.sync(CHANNEL_ID, programs(1, SIZE + 1));
+        mProvider.resetCounts();
+
+        // Every program moves down one rank, and comes with a new rank weight.
+        Assert.assertEquals(1, mChannelSync.sync(CHANNEL_ID, programs(0, SIZE + 1)));
+        Assert.assertEquals(1, mProvider.inserts);
+        Assert.assertEquals(0, mProvider.updates);
+
+        // The new program is shown first.
+        for (long programId = 1; programId <= SIZE; programId++) {
+            Assert.assertTrue(weight(SIZE + 1) > weight(programId));
+        }
+    }
+
+    @Test
+    public void movedProgramIsTheOnlyOneUpdated() throws Exception {
+        mChannelSync.sync(CHANNEL_ID, programs(0, SIZE));
+        mProvider.resetCounts();
+
+        List<ContentValues> programs = programs(0, SIZE);
+        programs.add(SIZE / 2, programs.remove(SIZE - 1));
+        Assert.assertEquals(1, mChannelSync.sync(CHANNEL_ID, programs));
+        Assert.assertEquals(1, mProvider.updates);
+
+        int above = weight(SIZE / 2);
+        int moved = weight(SIZE);
+        int below = weight(SIZE / 2 + 1);
+        Assert.assertTrue(above > moved && moved > below);
+    }
+
+    @Test
+    public void otherChannelsAreLeftAlone() throws Exception {
+        mChannelSync.sync(CHANNEL_ID, programs(0, 10));
+        mChannelSync.sync(CHANNEL_ID + 1, programs(0, 10));
+        mProvider.resetCounts();
+
+        Assert.assertEquals(10, mChannelSync.sync(CHANNEL_ID, new ArrayList<ContentValues>()));
+        Assert.assertEquals(10, mProvider.deletes);
+        Assert.assertEquals(10, mProvider.getProgramCount());
+    }
+
+    private int weight(long programId) {
+        return mProvider.getProgram(programId).getAsInteger(PreviewPrograms.COLUMN_WEIGHT);
+    }
+
+    private static List<ContentValues> programs(int from, int to) {
+        List<ContentValues> programs = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ContentValues values = new ContentValues();
+            values.put(PreviewPrograms.COLUMN_INTERNAL_PROVIDER_ID,
+                    "http://www.example.com/" + i + ".mp4");
+            values.put(PreviewPrograms.COLUMN_TITLE, "Video " + i);
+            values.put(PreviewPrograms.COLUMN_TYPE, PreviewPrograms.TYPE_CLIP);
+            // Ranked like the home channel does, higher first.
+            values.put(PreviewPrograms.COLUMN_WEIGHT, to - i);
+            programs.add(values);
+        }
+        return programs;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.android.tvleanback;
+
+import com.example.android.tvleanback.job.JobMetrics;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class JobMetricsUnitTest {
+    private JobMetrics mMetrics;
+
+    @Before
+    public void setUp() {
+        mMetrics = new JobMetrics(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void neverRunJobHasNoMetrics() {
+        Assert.assertEquals(0, mMetrics.getRuns("sync"));
+        Assert.assertEquals(0, mMetrics.getAverageMs("sync"));
+        Assert.assertNull(mMetrics.getLastOutcome("sync"));
+    }
+
+    @Test
+    public void runsAreAveragedAndFailuresCounted() {
+        mMetrics.record("sync", 100, JobMetrics.OUTCOME_SUCCESS);
+        mMetrics.record("sync", 300, JobMetrics.OUTCOME_FAILURE);
+        mMetrics.record("sync", 200, JobMetrics.OUTCOME_STOPPED);
+
+        Assert.assertEquals(3, mMetrics.getRuns("sync"));
+        Assert.assertEquals(1, mMetrics.getFailures("sync"));
+        Assert.assertEquals(200, mMetrics.getAverageMs("sync"));
+        Assert.assertEquals(JobMetrics.OUTCOME_STOPPED, mMetrics.getLastOutcome("sync"));
+    }
+
+    @Test
+    public void jobsAreRecordedApart() {
+        mMetrics.record("sync", 100, JobMetrics.OUTCOME_SUCCESS);
+        mMetrics.record("trim", 10, JobMetrics.OUTCOME_FAILURE);
+
+        Assert.assertEquals(1, mMetrics.getRuns("sync"));
+        Assert.assertEquals(0, mMetrics.getFailures("sync"));
+        Assert.assertEquals(1, mMetrics.getFailures("trim"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.android.tvleanback;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for a web server. Answers every request with the same body and remembers the
+ * paths and bodies of the requests it received.
+ */
+public class LocalHttpServer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] mResponseBody;
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+    private final List<String> mRequestPaths =
+            Collections.synchronizedList(new ArrayList<String>());
+    private final List<byte[]> mRequestBodies =
+            Collections.synchronizedList(new ArrayList<byte[]>());
+    private ServerSocket mServerSocket;
+    private Thread mThread;
+
+    public LocalHttpServer(byte[] responseBody) {
+        mResponseBody = responseBody;
+    }
+
+    public void start() throws IOException {
+        mServerSocket = new ServerSocket(0, 0, InetAddress.getByName("127.0.0.1"));
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!mServerSocket.isClosed()) {
+                    try (Socket socket = mServerSocket.accept()) {
+                        serve(socket);
+                    } catch (IOException e) {
+                        // Closed by shutdown().
+                    }
+                }
+            }
+        });
+        mThread.start();
+    }
+
+    public void shutdown() throws IOException, InterruptedException {
+        mServerSocket.close();
+        mThread.join();
+    }
+
+    public String getUrl(String path) {
+        return "http://127.0.0.1:" + mServerSocket.getLocalPort() + "/" + path;
+    }
+
+    public int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    public List<String> getRequestPaths() {
+        return mRequestPaths;
+    }
+
+    public List<byte[]> getRequestBodies() {
+        return mRequestBodies;
+    }
+
+    private void serve(Socket socket) throws IOException {
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+        String requestLine = reader.readLine();
+        if (requestLine == null) {
+            return;
+        }
+        mRequestCount.incrementAndGet();
+        String[] request = requestLine.split(" ");
+        mRequestPaths.add(request.length > 1 ? request[1] : "");
+
+        int contentLength = 0;
+        String header;
+        while ((header = reader.readLine()) != null && !header.isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                contentLength = Integer.parseInt(header.substring(colon + 1).trim());
+            }
+        }
+        // Request bodies are only expected to hold text.
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (int i = 0; i < contentLength; i++) {
+            body.write(reader.read());
+        }
+        mRequestBodies.add(body.toByteArray());
+
+        OutputStream out = socket.getOutputStream();
+        out.write(("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Length: " + mResponseBody.length + "\r\n"
+                + "Connection: close\r\n"
+                + "\r\n").getBytes(UTF_8));
+        out.write(mResponseBody);
+        out.flush();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import androidx.tvprovider.media.tv.TvContractCompat.PreviewPrograms;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A local stand-in for the preview programs of the TV provider. Keeps the programs in memory and
+ * counts the operations it receives.
+ */
+public class LocalTvProvider extends ContentProvider {
+    private final Map<Long, ContentValues> mPrograms = new TreeMap<>();
+    private long mNextId = 1;
+
+    int batches;
+    int inserts;
+    int updates;
+    int deletes;
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    /** Forgets the operations counted so far. */
+    void resetCounts() {
+        batches = 0;
+        inserts = 0;
+        updates = 0;
+        deletes = 0;
+    }
+
+    ContentValues getProgram(long programId) {
+        return mPrograms.get(programId);
+    }
+
+    int getProgramCount() {
+        return mPrograms.size();
+    }
+
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(
+            @NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        batches++;
+        return super.applyBatch(operations);
+    }
+
+    @Override
+    public Cursor query(@NonNull Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder) {
+        // The channel of the programs, as set by buildPreviewProgramsUriForChannel.
+        String channel = uri.getQueryParameter("channel");
+        MatrixCursor cursor = new MatrixCursor(projection);
+        for (Map.Entry<Long, ContentValues> program : mPrograms.entrySet()) {
+            ContentValues values = program.getValue();
+            if (channel != null && !channel.equals(
+                    values.getAsString(PreviewPrograms.COLUMN_CHANNEL_ID))) {
+                continue;
+            }
+            Object[] row = new Object[projection.length];
+            for (int i = 0; i < projection.length; i++) {
+                row[i] = PreviewPrograms._ID.equals(projection[i])
+                        ? program.getKey()
+                        : values.get(projection[i]);
+            }
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    @Override
+    public Uri insert(@NonNull Uri uri, ContentValues values) {
+        inserts++;
+        long programId = mNextId++;
+        mPrograms.put(programId, new ContentValues(values));
+        return ContentUris.withAppendedId(PreviewPrograms.CONTENT_URI, programId);
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, ContentValues values, String selection,
+            String[] selectionArgs) {
+        updates++;
+        ContentValues program = mPrograms.get(ContentUris.parseId(uri));
+        if (program == null) {
+            return 0;
+        }
+        program.putAll(values);
+        return 1;
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, String selection, String[] selectionArgs) {
+        deletes++;
+        return mPrograms.remove(ContentUris.parseId(uri)) != null ? 1 : 0;
+    }
+
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.android.tvleanback;
+
+import android.net.Uri;
+
+import com.example.android.tvleanback.player.MediaCache;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class MediaCacheUnitTest {
+    private static final int MEDIA_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private byte[] mMedia;
+    private LocalHttpServer mServer;
+
+    @Before
+    public void startServer() throws IOException {
+        mMedia = new byte[MEDIA_SIZE];
+        new Random(0).nextBytes(mMedia);
+        mServer = new LocalHttpServer(mMedia);
+        mServer.start();
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void replayIsServedFromDisk() throws IOException {
+        MediaCache cache = new MediaCache(mFolder.newFolder(), 1024 * 1024);
+        DataSource.Factory factory =
+                cache.buildDataSourceFactory(new DefaultHttpDataSourceFactory("test"));
+        String url = mServer.getUrl("trailer.mp4");
+
+        Assert.assertTrue(Arrays.equals(mMedia, readFully(factory, url)));
+        Assert.assertEquals(1, mServer.getRequestCount());
+
+        // The second play must not touch the network.
+        Assert.assertTrue(Arrays.equals(mMedia, readFully(factory, url)));
+        Assert.assertEquals(1, mServer.getRequestCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(MEDIA_SIZE, cache.getBytesSaved());
+    }
+
+    @Test
+    public void shrinkingTheBudgetEvicts() throws IOException {
+        MediaCache cache = new MediaCache(mFolder.newFolder(), 1024 * 1024);
+        DataSource.Factory factory =
+                cache.buildDataSourceFactory(new DefaultHttpDataSourceFactory("test"));
+        readFully(factory, mServer.getUrl("trailer.mp4"));
+        Assert.assertEquals(MEDIA_SIZE, cache.getCacheSpace());
+
+        cache.setMaxBytes(MEDIA_SIZE / 2);
+        Assert.assertEquals(0, cache.getCacheSpace());
+    }
+
+    @Test
+    public void cachedVideoIsReadWithoutTheNetwork() throws IOException {
+        MediaCache cache = new MediaCache(mFolder.newFolder(), 1024 * 1024);
+        DataSource.Factory factory =
+                cache.buildDataSourceFactory(new DefaultHttpDataSourceFactory("test"));
+        String url = mServer.getUrl("trailer.mp4");
+        Assert.assertEquals(-1, cache.getCachedLength(url));
+        readFully(factory, url);
+        Assert.assertEquals(MEDIA_SIZE, cache.getCachedLength(url));
+
+        // Read from the middle, as the sprite sheets are generated.
+        byte[] buffer = new byte[1024];
+        int read = cache.readCached(url, MEDIA_SIZE / 2, buffer, 0, buffer.length);
+        Assert.assertTrue(read > 0);
+        Assert.assertTrue(Arrays.equals(
+                Arrays.copyOfRange(mMedia, MEDIA_SIZE / 2, MEDIA_SIZE / 2 + read),
+                Arrays.copyOf(buffer, read)));
+        Assert.assertEquals(-1, cache.readCached(url, MEDIA_SIZE, buffer, 0, buffer.length));
+        Assert.assertEquals(1, mServer.getRequestCount());
+    }
+
+    // Reads a whole video the way the player does on its first load.
+    private static byte[] readFully(DataSource.Factory factory, String url) throws IOException {
+        DataSource dataSource = factory.createDataSource();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            dataSource.open(new DataSpec(Uri.parse(url), 0, C.LENGTH_UNSET, url));
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            dataSource.close();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.android.tvleanback;
+
+import com.example.android.tvleanback.player.HttpSessionUploader;
+import com.example.android.tvleanback.player.PlaybackSession;
+import com.example.android.tvleanback.player.PlaybackSessionStore;
+
+import junit.framework.Assert;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class PlaybackSessionStoreUnitTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void keepsOnlyTheNewestSessions() throws IOException, JSONException {
+        File file = new File(mFolder.getRoot(), "sessions.json");
+        PlaybackSessionStore store = new PlaybackSessionStore(file, 3);
+        for (int i = 0; i < 5; i++) {
+            store.add(buildSession(i));
+        }
+
+        // Read back from disk, as after a restart.
+        JSONArray sessions = new PlaybackSessionStore(file, 3).export();
+        Assert.assertEquals(3, sessions.length());
+        Assert.assertEquals(2, PlaybackSession.fromJson(sessions.getJSONObject(0)).rebufferCount);
+        Assert.assertEquals(4, PlaybackSession.fromJson(sessions.getJSONObject(2)).rebufferCount);
+    }
+
+    @Test
+    public void uploadsBatchesToServer() throws Exception {
+        LocalHttpServer server = new LocalHttpServer(new byte[0]);
+        server.start();
+        try {
+            PlaybackSessionStore store =
+                    new PlaybackSessionStore(new File(mFolder.getRoot(), "sessions.json"), 10);
+            for (int i = 0; i < 3; i++) {
+                store.add(buildSession(i));
+            }
+
+            HttpSessionUploader uploader = new HttpSessionUploader(server.getUrl("sessions"));
+            Assert.assertTrue(store.upload(uploader, 2));
+            Assert.assertEquals(1, store.size());
+
+            Assert.assertEquals(1, server.getRequestCount());
+            JSONArray received = new JSONArray(
+                    new String(server.getRequestBodies().get(0), Charset.forName("UTF-8")));
+            Assert.assertEquals(2, received.length());
+            PlaybackSession first = PlaybackSession.fromJson(received.getJSONObject(0));
+            Assert.assertEquals("http://www.example.com/0.mp4", first.videoUrl);
+            Assert.assertEquals(1500, first.joinLatency);
+            Assert.assertEquals(3, first.bandwidthSamples.size());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsSessionsWhenUploadFails() throws IOException {
+        PlaybackSessionStore store =
+                new PlaybackSessionStore(new File(mFolder.getRoot(), "sessions.json"), 10);
+        store.add(buildSession(0));
+
+        // Nothing listens on this port.
+        HttpSessionUploader uploader = new HttpSessionUploader("http://127.0.0.1:1/sessions");
+        Assert.assertFalse(store.upload(uploader, 10));
+        Assert.assertEquals(1, store.size());
+    }
+
+    private static PlaybackSession buildSession(int index) {
+        PlaybackSession session = new PlaybackSession();
+        session.videoUrl = "http://www.example.com/" + index + ".mp4";
+        session.startTime = 1000L * index;
+        session.timeToFirstFrame = 800;
+        session.joinLatency = 1500;
+        session.rebufferCount = index;
+        session.rebufferDuration = 250L * index;
+        session.droppedFrames = 12;
+        session.bitrateSwitches = 2;
+        session.bandwidthSamples.add(1000000L);
+        session.bandwidthSamples.add(2000000L);
+        session.bandwidthSamples.add(3000000L);
+        return session;
+    }
+}
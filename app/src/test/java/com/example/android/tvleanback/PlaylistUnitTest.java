@@ -0,0 +1,189 @@
+package com.example.android.tvleanback;
+
+import com.example.android.tvleanback.model.Playlist;
+import com.example.android.tvleanback.model.Video;
+import com.example.android.tvleanback.player.PlaylistMediaQueue;
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.source.MediaSource;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class PlaylistUnitTest {
+    private static final int SIZE = 100;
+
+    private Playlist mPlaylist;
+
+    @Before
+    public void setUp() {
+        mPlaylist = new Playlist();
+        mPlaylist.setIds(ids(1, SIZE), 50);
+    }
+
+    @Test
+    public void onlyVideosAroundCurrentOneAreLoaded() {
+        long[] missing = mPlaylist.getMissingIds();
+        Arrays.sort(missing);
+        Assert.assertTrue(Arrays.equals(new long[]{48, 49, 50, 51, 52}, missing));
+
+        // Not loaded yet, so there is no moving to it.
+        Assert.assertNull(mPlaylist.next());
+        Assert.assertEquals(50, mPlaylist.getCurrentId());
+
+        mPlaylist.putVideos(videos(missing));
+        Assert.assertEquals(0, mPlaylist.getMissingIds().length);
+        Assert.assertEquals(51, mPlaylist.next().id);
+        Assert.assertTrue(Arrays.equals(new long[]{53}, mPlaylist.getMissingIds()));
+    }
+
+    @Test
+    public void repeatingWrapsAround() {
+        mPlaylist.setIds(ids(1, SIZE), SIZE);
+        mPlaylist.putVideos(videos(mPlaylist.getMissingIds()));
+        Assert.assertNull(mPlaylist.peekNext());
+
+        mPlaylist.setRepeating(true);
+        mPlaylist.putVideos(videos(mPlaylist.getMissingIds()));
+        Assert.assertEquals(1, mPlaylist.next().id);
+        Assert.assertEquals(SIZE, mPlaylist.peekPrevious().id);
+    }
+
+    @Test
+    public void shuffleStartsWithCurrentVideoAndPlaysEveryVideoOnce() {
+        mPlaylist.setShuffled(true);
+        Assert.assertEquals(50, mPlaylist.getCurrentId());
+        Assert.assertNull(mPlaylist.peekPrevious());
+
+        Set<Long> played = new HashSet<>();
+        played.add(mPlaylist.getCurrentId());
+        for (int i = 1; i < SIZE; i++) {
+            mPlaylist.putVideos(videos(mPlaylist.getMissingIds()));
+            Video next = mPlaylist.next();
+            Assert.assertNotNull(next);
+            Assert.assertTrue(played.add(next.id));
+        }
+        Assert.assertNull(mPlaylist.peekNext());
+
+        // Back in order, from the video being played.
+        long current = mPlaylist.getCurrentId();
+        mPlaylist.setShuffled(false);
+        Assert.assertEquals(current, mPlaylist.getCurrentId());
+    }
+
+    @Test
+    public void skippingReportsTheVideoSkippedTo() {
+        mPlaylist.putVideos(videos(mPlaylist.getMissingIds()));
+        final List<Long> changes = new ArrayList<>();
+        PlaylistMediaQueue queue = new PlaylistMediaQueue(
+                fakePlayer(),
+                mPlaylist,
+                new PlaylistMediaQueue.MediaSourceBuilder() {
+                    @Override
+                    public MediaSource build(Video video) {
+                        return fake(MediaSource.class, null);
+                    }
+                },
+                new PlaylistMediaQueue.OnVideoChangedListener() {
+                    @Override
+                    public void onVideoChanged(Video video) {
+                        changes.add(video.id);
+                    }
+                },
+                true);
+        queue.play(videos(new long[]{50}).get(0));
+
+        Assert.assertTrue(queue.skipToNext());
+        Assert.assertEquals(Arrays.asList(50L, 51L), changes);
+        Assert.assertEquals(51, mPlaylist.getCurrentId());
+
+        mPlaylist.putVideos(videos(mPlaylist.getMissingIds()));
+        Assert.assertTrue(queue.skipToPrevious());
+        Assert.assertEquals(Arrays.asList(50L, 51L, 50L), changes);
+        Assert.assertEquals(50, mPlaylist.getCurrentId());
+    }
+
+    // A player that only seeks, and reports each seek as a discontinuity right away, as
+    // ExoPlayer does.
+    private static ExoPlayer fakePlayer() {
+        final List<Player.EventListener> listeners = new ArrayList<>();
+        final int[] windowIndex = new int[1];
+        return fake(ExoPlayer.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "addListener":
+                        listeners.add((Player.EventListener) args[0]);
+                        break;
+                    case "removeListener":
+                        listeners.remove(args[0]);
+                        break;
+                    case "getCurrentWindowIndex":
+                        return windowIndex[0];
+                    case "seekTo":
+                        if (args.length == 2) {
+                            windowIndex[0] = (Integer) args[0];
+                            for (Player.EventListener listener : new ArrayList<>(listeners)) {
+                                listener.onPositionDiscontinuity(
+                                        Player.DISCONTINUITY_REASON_SEEK);
+                            }
+                        }
+                        break;
+                }
+                return null;
+            }
+        });
+    }
+
+    // An instance of an interface whose methods do nothing but what the handler given does.
+    private static <T> T fake(Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "fake";
+                        }
+                        return handler != null ? handler.invoke(proxy, method, args) : null;
+                    }
+                }));
+    }
+
+    private static long[] ids(long first, long last) {
+        long[] ids = new long[(int) (last - first + 1)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    private static List<Video> videos(long[] ids) {
+        List<Video> videos = new ArrayList<>();
+        for (long id : ids) {
+            videos.add(new Video.VideoBuilder().id(id).title("Video " + id).build());
+        }
+        return videos;
+    }
+}
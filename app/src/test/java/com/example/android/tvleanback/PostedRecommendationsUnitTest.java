@@ -0,0 +1,64 @@
+package com.example.android.tvleanback;
+
+import android.content.Context;
+
+import com.example.android.tvleanback.model.Video;
+import com.example.android.tvleanback.recommendation.PostedRecommendations;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class PostedRecommendationsUnitTest {
+    private PostedRecommendations mPosted;
+
+    @Before
+    public void setUp() {
+        mPosted = new PostedRecommendations(RuntimeEnvironment.application
+                .getSharedPreferences("recommendations_test", Context.MODE_PRIVATE));
+        mPosted.clear();
+    }
+
+    @Test
+    public void postedCardsAreRemembered() {
+        Assert.assertTrue(mPosted.getPosted().isEmpty());
+        Assert.assertEquals(0, mPosted.getPublishedAt());
+
+        Map<String, Integer> posted = new HashMap<>();
+        // Urls may contain the separator.
+        posted.put("http://www.example.com/a video.mp4", -42);
+        posted.put("http://www.example.com/b.mp4", 7);
+        mPosted.setPosted(posted, 1000);
+
+        Assert.assertEquals(posted, mPosted.getPosted());
+        Assert.assertEquals(1000, mPosted.getPublishedAt());
+
+        mPosted.clear();
+        Assert.assertTrue(mPosted.getPosted().isEmpty());
+    }
+
+    @Test
+    public void contentHashChangesWithWhatCardShows() {
+        Video video = new Video.VideoBuilder().id(1).title("Title")
+                .cardImageUrl("http://www.example.com/card.png").build();
+        Video sameVideo = new Video.VideoBuilder().id(1).title("Title")
+                .cardImageUrl("http://www.example.com/card.png").build();
+        Video renamed = new Video.VideoBuilder().id(1).title("Other title")
+                .cardImageUrl("http://www.example.com/card.png").build();
+
+        Assert.assertEquals(PostedRecommendations.contentHash(video),
+                PostedRecommendations.contentHash(sameVideo));
+        Assert.assertTrue(PostedRecommendations.contentHash(video)
+                != PostedRecommendations.contentHash(renamed));
+    }
+}
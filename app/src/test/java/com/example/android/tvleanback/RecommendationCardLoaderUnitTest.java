@@ -0,0 +1,62 @@
+package com.example.android.tvleanback;
+
+import android.graphics.Bitmap;
+
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.example.android.tvleanback.recommendation.RecommendationCardLoader;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class RecommendationCardLoaderUnitTest {
+    @Test
+    public void cardsAreKeptAtCardSize() {
+        // Glide keys and writes its disk cache safely, so cards need no cache of their own.
+        Assert.assertEquals(DiskCacheStrategy.ALL,
+                RecommendationCardLoader.cardOptions().getDiskCacheStrategy());
+    }
+
+    @Test
+    public void failedCardHasNoImage() {
+        RecommendationCardLoader loader =
+                new RecommendationCardLoader(RuntimeEnvironment.application, 100, 100);
+        FutureTask<Bitmap> card = new FutureTask<>(new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() throws IOException {
+                throw new IOException("Not found");
+            }
+        });
+        card.run();
+        Assert.assertNull(loader.get(card));
+    }
+
+    @Test
+    public void interruptedCardIsCancelled() {
+        RecommendationCardLoader loader =
+                new RecommendationCardLoader(RuntimeEnvironment.application, 100, 100);
+        FutureTask<Bitmap> card = new FutureTask<>(new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return null;
+            }
+        });
+        Thread.currentThread().interrupt();
+        try {
+            Assert.assertNull(loader.get(card));
+        } finally {
+            Thread.interrupted();
+        }
+        Assert.assertTrue(card.isCancelled());
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import com.example.android.tvleanback.data.RecommendationRanker;
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoDbBuilder;
+import com.example.android.tvleanback.data.VideoProvider;
+
+import junit.framework.Assert;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class RecommendationRankerUnitTest {
+    private static final long NOW_MS = TimeUnit.DAYS.toMillis(1000);
+    private static final String[] CATEGORIES = {"Demo", "Google+", "Zeitgeist"};
+
+    @Test
+    public void watchedAndLikedCategoryRanksFirst() {
+        RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+        addVideos(ranker, 10);
+        ranker.addWatched(url("Google+", 0), 1.0f, NOW_MS);
+        ranker.addRating(url("Google+", 1), VideoContract.RatingEntry.RATING_THUMBS_UP, NOW_MS);
+        ranker.addRating(url("Zeitgeist", 0), VideoContract.RatingEntry.RATING_THUMBS_DOWN,
+                NOW_MS);
+
+        Map<Long, Float> scores = scores(ranker.build());
+        // Watched and rated videos are not recommended.
+        Assert.assertEquals(3 * 10 - 3, scores.size());
+        Assert.assertFalse(scores.containsKey(id("Google+", 0)));
+        Assert.assertFalse(scores.containsKey(id("Zeitgeist", 0)));
+
+        Assert.assertTrue(scores.get(id("Google+", 2)) > scores.get(id("Demo", 0)));
+        Assert.assertTrue(scores.get(id("Demo", 0)) > scores.get(id("Zeitgeist", 1)));
+    }
+
+    @Test
+    public void olderSignalsCountLess() {
+        RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+        addVideos(ranker, 10);
+        ranker.addWatched(url("Demo", 0), 1.0f, NOW_MS - TimeUnit.DAYS.toMillis(60));
+        ranker.addWatched(url("Google+", 0), 0.5f, NOW_MS);
+
+        Map<Long, Float> scores = scores(ranker.build());
+        Assert.assertTrue(scores.get(id("Google+", 1)) > scores.get(id("Demo", 1)));
+    }
+
+    @Test
+    public void bestVideosComeFromDifferentCategories() {
+        RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+        addVideos(ranker, 10);
+
+        // Without any signal, the best three are the first of each category.
+        Map<Long, Float> scores = scores(ranker.build());
+        for (String category : CATEGORIES) {
+            for (String other : CATEGORIES) {
+                Assert.assertTrue(scores.get(id(category, 0)) > scores.get(id(other, 1)));
+            }
+        }
+    }
+
+    @Test
+    public void unratedVideoIsRankedAgain() {
+        Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY);
+        ContentResolver contentResolver = RuntimeEnvironment.application.getContentResolver();
+        ContentValues rating = new ContentValues();
+        rating.put(VideoContract.RatingEntry.COLUMN_VIDEO_URL, url("Demo", 0));
+        rating.put(VideoContract.RatingEntry.COLUMN_RATING,
+                VideoContract.RatingEntry.RATING_THUMBS_UP);
+        rating.put(VideoContract.RatingEntry.COLUMN_RATED_AT, NOW_MS);
+        contentResolver.insert(VideoContract.RatingEntry.CONTENT_URI, rating);
+        Assert.assertFalse(scores(rankWithRatings(contentResolver)).containsKey(id("Demo", 0)));
+
+        // Taking the thumb back, as Ratings does.
+        Assert.assertEquals(1, contentResolver.delete(VideoContract.RatingEntry.CONTENT_URI,
+                VideoContract.RatingEntry.COLUMN_VIDEO_URL + " = ?",
+                new String[]{url("Demo", 0)}));
+        Assert.assertTrue(scores(rankWithRatings(contentResolver)).containsKey(id("Demo", 0)));
+
+        // A rating of none left behind counts for nothing either.
+        RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+        addVideos(ranker, 10);
+        ranker.addRating(url("Demo", 0), VideoContract.RatingEntry.RATING_NONE, NOW_MS);
+        Assert.assertTrue(scores(ranker.build()).containsKey(id("Demo", 0)));
+    }
+
+    @Test
+    public void keepsAtMostMaxRanked() {
+        RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+        addVideos(ranker, RecommendationRanker.MAX_RANKED);
+        Assert.assertEquals(RecommendationRanker.MAX_RANKED, ranker.build().size());
+    }
+
+    @Test
+    public void recommendedVideosAreReadBestFirst() throws JSONException {
+        Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY);
+        ContentResolver contentResolver = RuntimeEnvironment.application.getContentResolver();
+        JSONArray mediaArray = new JSONArray();
+        for (int i = 0; i < 5; i++) {
+            mediaArray.put(new JSONObject()
+                    .put(VideoDbBuilder.TAG_TITLE, "Video " + i)
+                    .put(VideoDbBuilder.TAG_SOURCES, new JSONArray().put(url("Demo", i))));
+        }
+        JSONObject myMedia = new JSONObject().put(VideoDbBuilder.TAG_GOOGLE_VIDEOS,
+                new JSONArray().put(new JSONObject()
+                        .put(VideoDbBuilder.TAG_CATEGORY, "Demo")
+                        .put(VideoDbBuilder.TAG_MEDIA, mediaArray)));
+        List<ContentValues> videos =
+                new VideoDbBuilder(RuntimeEnvironment.application).buildMedia(myMedia);
+        contentResolver.bulkInsert(VideoContract.VideoEntry.CONTENT_URI,
+                videos.toArray(new ContentValues[videos.size()]));
+
+        RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+        Cursor cursor = contentResolver.query(VideoContract.VideoEntry.CONTENT_URI,
+                new String[]{VideoContract.VideoEntry._ID,
+                        VideoContract.VideoEntry.COLUMN_VIDEO_URL,
+                        VideoContract.VideoEntry.COLUMN_CATEGORY},
+                null, null, null);
+        try {
+            ranker.addVideos(cursor);
+        } finally {
+            cursor.close();
+        }
+        List<ContentValues> ranked = ranker.build();
+        contentResolver.bulkInsert(VideoContract.RecommendedEntry.CONTENT_URI,
+                ranked.toArray(new ContentValues[ranked.size()]));
+
+        cursor = contentResolver.query(VideoContract.RecommendedEntry.buildRecommendedUri(3),
+                null, null, null, null);
+        try {
+            Assert.assertEquals(3, cursor.getCount());
+            float previous = Float.MAX_VALUE;
+            int scoreIndex = cursor.getColumnIndex(VideoContract.RecommendedEntry.COLUMN_SCORE);
+            while (cursor.moveToNext()) {
+                Assert.assertTrue(cursor.getFloat(scoreIndex) <= previous);
+                previous = cursor.getFloat(scoreIndex);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void scoringManyCandidatesIsFast() {
+        int candidates = 10000;
+        int runs = 10;
+        long totalNs = 0;
+        for (int run = 0; run <= runs; run++) {
+            RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+            for (int i = 0; i < candidates; i++) {
+                ranker.addVideo(i, "http://www.example.com/" + i + ".mp4", "Category " + i % 40);
+            }
+            // A long watch history and a few ratings.
+            for (int i = 0; i < 500; i++) {
+                ranker.addWatched("http://www.example.com/" + i * 7 + ".mp4", 0.5f,
+                        NOW_MS - TimeUnit.HOURS.toMillis(i));
+            }
+            for (int i = 0; i < 50; i++) {
+                ranker.addRating("http://www.example.com/" + i * 13 + ".mp4",
+                        i % 3 == 0 ? VideoContract.RatingEntry.RATING_THUMBS_DOWN
+                                : VideoContract.RatingEntry.RATING_THUMBS_UP,
+                        NOW_MS - TimeUnit.HOURS.toMillis(i));
+            }
+
+            long startNs = System.nanoTime();
+            List<ContentValues> ranked = ranker.build();
+            long elapsedNs = System.nanoTime() - startNs;
+            Assert.assertEquals(RecommendationRanker.MAX_RANKED, ranked.size());
+            // The first run warms up.
+            if (run > 0) {
+                totalNs += elapsedNs;
+            }
+        }
+
+        long perRunMs = TimeUnit.NANOSECONDS.toMillis(totalNs / runs);
+        // Generous, so that a slow machine does not fail the build.
+        Assert.assertTrue("Scoring " + candidates + " candidates took " + perRunMs + " ms",
+                perRunMs < 1000);
+    }
+
+    private static void addVideos(RecommendationRanker ranker, int perCategory) {
+        for (String category : CATEGORIES) {
+            for (int i = 0; i < perCategory; i++) {
+                ranker.addVideo(id(category, i), url(category, i), category);
+            }
+        }
+    }
+
+    private static List<ContentValues> rankWithRatings(ContentResolver contentResolver) {
+        RecommendationRanker ranker = new RecommendationRanker(NOW_MS);
+        addVideos(ranker, 10);
+        Cursor cursor = contentResolver.query(VideoContract.RatingEntry.CONTENT_URI,
+                new String[]{VideoContract.RatingEntry.COLUMN_VIDEO_URL,
+                        VideoContract.RatingEntry.COLUMN_RATING,
+                        VideoContract.RatingEntry.COLUMN_RATED_AT},
+                null, null, null);
+        try {
+            ranker.addRatings(cursor);
+        } finally {
+            cursor.close();
+        }
+        return ranker.build();
+    }
+
+    private static Map<Long, Float> scores(List<ContentValues> ranked) {
+        Map<Long, Float> scores = new HashMap<>();
+        for (ContentValues values : ranked) {
+            scores.put(values.getAsLong(VideoContract.RecommendedEntry.COLUMN_VIDEO_ID),
+                    values.getAsFloat(VideoContract.RecommendedEntry.COLUMN_SCORE));
+        }
+        return scores;
+    }
+
+    private static long id(String category, int index) {
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(category)) {
+                return i * 1000 + index;
+            }
+        }
+        throw new IllegalArgumentException(category);
+    }
+
+    private static String url(String category, int index) {
+        return "http://www.example.com/" + category + "/" + index + ".mp4";
+    }
+}
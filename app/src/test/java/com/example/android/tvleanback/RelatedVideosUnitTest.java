@@ -0,0 +1,61 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentValues;
+
+import com.example.android.tvleanback.data.RelatedVideosBuilder;
+import com.example.android.tvleanback.data.VideoContract;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class RelatedVideosUnitTest {
+
+    @Test
+    public void relatesVideosSharingFeatures() {
+        RelatedVideosBuilder builder = new RelatedVideosBuilder();
+        builder.add(1, "Demo Slam", "Google+", "Dragon Movie");
+        builder.add(2, "Demo Slam", "Google+", "Dragon Movie Returns");
+        builder.add(3, "Demo Slam", "Other", "Cooking Show");
+        builder.add(4, "Epic Stuff", "Another", "Unrelated Title");
+
+        List<ContentValues> related = builder.build();
+
+        float bestScore = -1;
+        long bestId = -1;
+        for (ContentValues values : related) {
+            long videoId = values.getAsLong(VideoContract.RelatedEntry.COLUMN_VIDEO_ID);
+            long relatedId = values.getAsLong(VideoContract.RelatedEntry.COLUMN_RELATED_ID);
+            Assert.assertTrue(videoId != relatedId);
+            // Nothing shares a feature with the last video.
+            Assert.assertTrue(videoId != 4 && relatedId != 4);
+
+            float score = values.getAsFloat(VideoContract.RelatedEntry.COLUMN_SCORE);
+            if (videoId == 1 && score > bestScore) {
+                bestScore = score;
+                bestId = relatedId;
+            }
+        }
+        // Same category, studio and title words beat same category only.
+        Assert.assertEquals(2, bestId);
+    }
+
+    @Test
+    public void keepsAtMostMaxRelatedPerVideo() {
+        RelatedVideosBuilder builder = new RelatedVideosBuilder();
+        int count = RelatedVideosBuilder.MAX_RELATED * 3;
+        for (int i = 0; i < count; i++) {
+            builder.add(i, "Demo Slam", "Google+", "Video " + i);
+        }
+
+        List<ContentValues> related = builder.build();
+        Assert.assertEquals(count * RelatedVideosBuilder.MAX_RELATED, related.size());
+    }
+}
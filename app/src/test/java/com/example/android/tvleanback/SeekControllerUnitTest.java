@@ -0,0 +1,90 @@
+package com.example.android.tvleanback;
+
+import com.example.android.tvleanback.player.SeekController;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class SeekControllerUnitTest {
+    private static final long DURATION_MS = 2 * 60 * 60 * 1000;
+
+    private final List<Long> mSeeks = new ArrayList<>();
+    private long mPositionMs;
+    private SeekController mSeekController;
+
+    @Before
+    public void setUp() {
+        mPositionMs = 60 * 1000;
+        mSeekController = new SeekController(new SeekController.Target() {
+            @Override
+            public long getCurrentPosition() {
+                return mPositionMs;
+            }
+
+            @Override
+            public long getDuration() {
+                return DURATION_MS;
+            }
+
+            @Override
+            public void seekTo(long positionMs) {
+                mSeeks.add(positionMs);
+                mPositionMs = positionMs;
+            }
+        });
+    }
+
+    @Test
+    public void burstOfPressesIssuesOneSeek() {
+        for (int i = 0; i < 20; i++) {
+            mSeekController.fastForward();
+            ShadowLooper.idleMainLooper(100);
+        }
+        Assert.assertTrue(mSeeks.isEmpty());
+        Assert.assertTrue(mSeekController.isSeekPending());
+
+        ShadowLooper.idleMainLooper(1000);
+        Assert.assertEquals(1, mSeeks.size());
+        Assert.assertFalse(mSeekController.isSeekPending());
+
+        // Held presses accelerate past twenty fixed 10 second steps.
+        Assert.assertTrue(mSeeks.get(0) > 60 * 1000 + 20 * 10 * 1000);
+    }
+
+    @Test
+    public void seeksStayWithinTheVideo() {
+        for (int i = 0; i < 50; i++) {
+            mSeekController.rewind();
+            ShadowLooper.idleMainLooper(100);
+        }
+        ShadowLooper.idleMainLooper(1000);
+        Assert.assertEquals(Long.valueOf(0), mSeeks.get(0));
+
+        for (int i = 0; i < 200; i++) {
+            mSeekController.fastForward();
+            ShadowLooper.idleMainLooper(100);
+        }
+        ShadowLooper.idleMainLooper(1000);
+        Assert.assertEquals(Long.valueOf(DURATION_MS), mSeeks.get(1));
+    }
+
+    @Test
+    public void snapsToKeyframeInterval() {
+        mPositionMs = 61 * 1000;
+        mSeekController.setSnapInterval(4000);
+        mSeekController.fastForward();
+        mSeekController.commit();
+        Assert.assertEquals(Long.valueOf(72 * 1000), mSeeks.get(0));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.android.tvleanback;
+
+import com.example.android.tvleanback.player.GeneratedSpriteSheetSource;
+import com.example.android.tvleanback.player.MediaCache;
+import com.example.android.tvleanback.player.RemoteSpriteSheetSource;
+import com.example.android.tvleanback.player.ThumbnailSeekDataProvider;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class ThumbnailSeekDataProviderUnitTest {
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mThumbnails;
+    private MediaCache mMediaCache;
+    private LocalHttpServer mServer;
+
+    @Before
+    public void setUp() throws IOException {
+        mThumbnails = mFolder.newFolder();
+        mMediaCache = new MediaCache(mFolder.newFolder(), 1024 * 1024);
+        mServer = new LocalHttpServer(new byte[]{1, 2, 3});
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void videoOnTheDeviceIsGeneratedFrom() {
+        Assert.assertTrue(ThumbnailSeekDataProvider.createSource(mThumbnails, mMediaCache,
+                "file:///sdcard/Movies/trailer.mp4", true) instanceof GeneratedSpriteSheetSource);
+    }
+
+    @Test
+    public void streamedVideoDownloadsPublishedSheets() throws IOException {
+        ThumbnailSeekDataProvider.SpriteSheetSource source =
+                ThumbnailSeekDataProvider.createSource(mThumbnails, mMediaCache,
+                        mServer.getUrl("Sample%20videos/trailer.mp4?quality=hd"), true);
+        Assert.assertTrue(source instanceof RemoteSpriteSheetSource);
+
+        // One small download per sheet, never the video itself.
+        Assert.assertNotNull(source.loadSheet(2));
+        Assert.assertEquals(Collections.singletonList("/Sample%20videos/trailer_sprites_2.jpg"),
+                mServer.getRequestPaths());
+    }
+
+    @Test
+    public void adaptiveVideoIsNeverGeneratedFrom() {
+        Assert.assertTrue(ThumbnailSeekDataProvider.createSource(mThumbnails, mMediaCache,
+                "file:///sdcard/Movies/trailer.m3u8", false) instanceof RemoteSpriteSheetSource);
+    }
+}
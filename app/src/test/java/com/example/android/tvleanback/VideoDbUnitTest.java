@@ -94,4 +94,36 @@ public class VideoDbUnitTest {
         Assert.assertTrue(!contentValuesList.get(0)
             .getAsString(VideoContract.VideoEntry.COLUMN_NAME).isEmpty());
     }
+
+    @Test
+    public void persistContentTypeFromJson() throws JSONException {
+        JSONArray mediaArray = new JSONArray();
+        mediaArray.put(new JSONObject()
+                .put(VideoDbBuilder.TAG_TITLE, "Live Stream")
+                .put(VideoDbBuilder.TAG_CONTENT_TYPE, VideoContract.VideoEntry.CONTENT_TYPE_HLS)
+                .put(VideoDbBuilder.TAG_SOURCES,
+                    new JSONArray().put("http://www.example.com/live")));
+        mediaArray.put(new JSONObject()
+                .put(VideoDbBuilder.TAG_TITLE, "Dash Demo")
+                .put(VideoDbBuilder.TAG_SOURCES,
+                    new JSONArray().put("http://www.example.com/demo/manifest.MPD?token=1")));
+        mediaArray.put(new JSONObject()
+                .put(VideoDbBuilder.TAG_TITLE, "Pet Dog")
+                .put(VideoDbBuilder.TAG_SOURCES,
+                    new JSONArray().put("http://www.example.com/pet_dog.mp4")));
+
+        JSONObject myMedia = new JSONObject().put(VideoDbBuilder.TAG_GOOGLE_VIDEOS,
+                new JSONArray().put(new JSONObject()
+                        .put(VideoDbBuilder.TAG_CATEGORY, "Streams")
+                        .put(VideoDbBuilder.TAG_MEDIA, mediaArray)));
+
+        List<ContentValues> contentValuesList = new VideoDbBuilder().buildMedia(myMedia);
+        Assert.assertEquals(VideoContract.VideoEntry.CONTENT_TYPE_HLS, contentValuesList.get(0)
+                .getAsString(VideoContract.VideoEntry.COLUMN_CONTENT_TYPE));
+        Assert.assertEquals(VideoContract.VideoEntry.CONTENT_TYPE_DASH, contentValuesList.get(1)
+                .getAsString(VideoContract.VideoEntry.COLUMN_CONTENT_TYPE));
+        Assert.assertEquals(VideoContract.VideoEntry.CONTENT_TYPE_PROGRESSIVE,
+                contentValuesList.get(2)
+                        .getAsString(VideoContract.VideoEntry.COLUMN_CONTENT_TYPE));
+    }
 }
@@ -0,0 +1,288 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoDbBuilder;
+import com.example.android.tvleanback.data.VideoDbHelper;
+import com.example.android.tvleanback.data.VideoPageQuery;
+import com.example.android.tvleanback.data.VideoProvider;
+
+import junit.framework.Assert;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class VideoPageUnitTest {
+    private static final String[] CATEGORIES = {"Demo", "Zeitgeist"};
+    private static final int VIDEOS = 120;
+    private static final int PAGE_SIZE = 50;
+    private static final String[] SORTS = {
+            VideoContract.VideoEntry.SORT_TITLE, VideoContract.VideoEntry.SORT_YEAR,
+            VideoContract.VideoEntry.SORT_RATING, VideoContract.VideoEntry.SORT_ADDED
+    };
+
+    private ContentResolver mContentResolver;
+
+    @Before
+    public void setUp() throws JSONException {
+        Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY);
+        mContentResolver = RuntimeEnvironment.application.getContentResolver();
+
+        // Titles differ in case, and every video has the same year and rating.
+        JSONArray categories = new JSONArray();
+        for (String category : CATEGORIES) {
+            JSONArray mediaArray = new JSONArray();
+            for (int i = 0; i < VIDEOS / CATEGORIES.length; i++) {
+                String url = "http://www.example.com/" + category + "/" + i + ".mp4";
+                String title = (i % 2 == 0 ? "video " : "Video ") + i;
+                mediaArray.put(new JSONObject()
+                        .put(VideoDbBuilder.TAG_TITLE, title)
+                        .put(VideoDbBuilder.TAG_SOURCES, new JSONArray().put(url)));
+            }
+            categories.put(new JSONObject()
+                    .put(VideoDbBuilder.TAG_CATEGORY, category)
+                    .put(VideoDbBuilder.TAG_MEDIA, mediaArray));
+        }
+        JSONObject myMedia = new JSONObject().put(VideoDbBuilder.TAG_GOOGLE_VIDEOS, categories);
+        List<ContentValues> videos =
+                new VideoDbBuilder(RuntimeEnvironment.application).buildMedia(myMedia);
+        mContentResolver.bulkInsert(VideoContract.VideoEntry.CONTENT_URI,
+                videos.toArray(new ContentValues[videos.size()]));
+    }
+
+    @Test
+    public void pagesCoverEveryVideoOnceInOrder() {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            List<Long> page = queryIds(VideoContract.VideoEntry.buildPageUri(afterId, PAGE_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            pageSizes.add(page.size());
+            ids.addAll(page);
+            afterId = page.get(page.size() - 1);
+        }
+
+        Assert.assertEquals(3, pageSizes.size());
+        Assert.assertEquals(PAGE_SIZE, (int) pageSizes.get(0));
+        Assert.assertEquals(PAGE_SIZE, (int) pageSizes.get(1));
+        Assert.assertEquals(VIDEOS - 2 * PAGE_SIZE, (int) pageSizes.get(2));
+        Assert.assertEquals(VIDEOS, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            Assert.assertTrue(ids.get(i) > ids.get(i - 1));
+        }
+    }
+
+    @Test
+    public void pageStartsAfterItsKey() {
+        List<Long> all = queryIds(VideoContract.VideoEntry.buildPageUri(0, VIDEOS));
+        long key = all.get(70);
+
+        List<Long> page = queryIds(VideoContract.VideoEntry.buildPageUri(key, 10));
+        Assert.assertEquals(all.subList(71, 81), page);
+    }
+
+    @Test
+    public void sortedPagesCoverEveryVideoOnce() {
+        for (String sort : SORTS) {
+            List<Long> ids = queryAllIds(VideoContract.VideoEntry.buildSortedUri(sort, null, null));
+            Assert.assertEquals(sort, VIDEOS, ids.size());
+            Assert.assertEquals(sort, VIDEOS, new HashSet<>(ids).size());
+        }
+    }
+
+    @Test
+    public void titlesSortIgnoringCase() {
+        Uri sortedUri = VideoContract.VideoEntry.buildSortedUri(
+                VideoContract.VideoEntry.SORT_TITLE, null, null);
+        List<String> titles = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            Cursor cursor = mContentResolver.query(
+                    VideoContract.VideoEntry.buildPageUri(sortedUri, afterId, PAGE_SIZE),
+                    new String[]{VideoContract.VideoEntry._ID,
+                            VideoContract.VideoEntry.COLUMN_NAME},
+                    null, null, null);
+            try {
+                if (!cursor.moveToFirst()) {
+                    break;
+                }
+                do {
+                    afterId = cursor.getLong(0);
+                    titles.add(cursor.getString(1));
+                } while (cursor.moveToNext());
+            } finally {
+                cursor.close();
+            }
+        }
+
+        Assert.assertEquals(VIDEOS, titles.size());
+        for (int i = 1; i < titles.size(); i++) {
+            Assert.assertTrue(titles.get(i - 1).compareToIgnoreCase(titles.get(i)) <= 0);
+        }
+    }
+
+    @Test
+    public void tiedKeysPageByDescendingId() {
+        List<Long> ids = queryAllIds(VideoContract.VideoEntry.buildSortedUri(
+                VideoContract.VideoEntry.SORT_YEAR, null, null));
+        for (int i = 1; i < ids.size(); i++) {
+            Assert.assertTrue(ids.get(i) < ids.get(i - 1));
+        }
+    }
+
+    @Test
+    public void filteredPagesOnlyHaveTheFilteredVideos() {
+        Uri sortedUri = VideoContract.VideoEntry.buildSortedUri(
+                VideoContract.VideoEntry.SORT_RATING, VideoContract.VideoEntry.FILTER_CATEGORY,
+                CATEGORIES[1]);
+        List<Long> ids = queryAllIds(sortedUri);
+        Assert.assertEquals(VIDEOS / CATEGORIES.length, ids.size());
+
+        Set<Long> categoryIds = new HashSet<>();
+        Cursor cursor = mContentResolver.query(VideoContract.VideoEntry.CONTENT_URI,
+                new String[]{VideoContract.VideoEntry._ID},
+                VideoContract.VideoEntry.COLUMN_CATEGORY + " = ?",
+                new String[]{CATEGORIES[1]}, null);
+        try {
+            while (cursor.moveToNext()) {
+                categoryIds.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        Assert.assertEquals(categoryIds, new HashSet<>(ids));
+
+        Assert.assertTrue(queryAllIds(VideoContract.VideoEntry.buildSortedUri(
+                VideoContract.VideoEntry.SORT_TITLE, VideoContract.VideoEntry.FILTER_LIVE, "1"))
+                .isEmpty());
+    }
+
+    @Test
+    public void noPageIsSorted() {
+        VideoDbHelper helper = new VideoDbHelper(RuntimeEnvironment.application);
+        SQLiteDatabase db = helper.getReadableDatabase();
+        String[] filters = {null, VideoContract.VideoEntry.FILTER_CATEGORY,
+                VideoContract.VideoEntry.FILTER_STUDIO, VideoContract.VideoEntry.FILTER_LIVE};
+        for (String sort : SORTS) {
+            for (String filter : filters) {
+                Uri sortedUri = VideoContract.VideoEntry.buildSortedUri(sort, filter, "1");
+                // The first page, and one further on.
+                for (long afterId : new long[]{0, VIDEOS / 2}) {
+                    String sql = VideoPageQuery.buildSql(
+                            VideoContract.VideoEntry.buildPageUri(sortedUri, afterId, PAGE_SIZE),
+                            null, helper.getVideoTable());
+                    String plan = explain(db, sql);
+                    Assert.assertFalse(sql + "\n" + plan, plan.contains("TEMP B-TREE"));
+                    String index = "video_" + sort;
+                    if (VideoContract.VideoEntry.FILTER_CATEGORY.equals(filter)) {
+                        index = "video_category_" + sort;
+                    } else if (VideoContract.VideoEntry.FILTER_STUDIO.equals(filter)) {
+                        index = "video_studio_" + sort;
+                    } else if (VideoContract.VideoEntry.FILTER_LIVE.equals(filter)) {
+                        index = "video_live_" + sort;
+                    }
+                    Assert.assertTrue(sql + "\n" + plan, plan.contains("INDEX " + index + " "));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void batchIsInIdOrder() {
+        List<Long> ids = queryAllIds(VideoContract.VideoEntry.buildSortedUri(
+                VideoContract.VideoEntry.SORT_TITLE, null, null)).subList(0, PAGE_SIZE);
+        long[] batch = new long[ids.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = ids.get(i);
+        }
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        Assert.assertEquals(sorted, queryIds(VideoContract.VideoEntry.buildVideosUri(batch)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void filteredPageWithoutSortIsRejected() {
+        VideoPageQuery.buildSql(VideoContract.VideoEntry.CONTENT_URI.buildUpon()
+                .appendPath(VideoContract.PATH_PAGE)
+                .appendQueryParameter(VideoContract.VideoEntry.QUERY_PARAMETER_FILTER,
+                        VideoContract.VideoEntry.FILTER_CATEGORY)
+                .appendQueryParameter(VideoContract.VideoEntry.QUERY_PARAMETER_AFTER, "0")
+                .appendQueryParameter(VideoContract.VideoEntry.QUERY_PARAMETER_LIMIT, "10")
+                .build(), null, VideoContract.VideoEntry.TABLE_NAME);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPageIsRejected() {
+        mContentResolver.query(VideoContract.VideoEntry.CONTENT_URI.buildUpon()
+                .appendPath(VideoContract.PATH_PAGE)
+                .appendQueryParameter(VideoContract.VideoEntry.QUERY_PARAMETER_AFTER, "0")
+                .build(), null, null, null, null);
+    }
+
+    private List<Long> queryAllIds(Uri sortedUri) {
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            List<Long> page = queryIds(
+                    VideoContract.VideoEntry.buildPageUri(sortedUri, afterId, PAGE_SIZE));
+            if (page.isEmpty()) {
+                return ids;
+            }
+            ids.addAll(page);
+            afterId = page.get(page.size() - 1);
+        }
+    }
+
+    private static String explain(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+        try {
+            StringBuilder plan = new StringBuilder();
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+            return plan.toString();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private List<Long> queryIds(Uri uri) {
+        Cursor cursor = mContentResolver.query(uri,
+                new String[]{VideoContract.VideoEntry._ID}, null, null, null);
+        try {
+            List<Long> ids = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+            return ids;
+        } finally {
+            cursor.close();
+        }
+    }
+}
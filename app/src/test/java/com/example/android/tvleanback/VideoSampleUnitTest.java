@@ -0,0 +1,129 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoDbBuilder;
+import com.example.android.tvleanback.data.VideoProvider;
+
+import junit.framework.Assert;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class VideoSampleUnitTest {
+    private static final String[] CATEGORIES = {"Demo", "Google+", "Zeitgeist"};
+    private static final int VIDEOS_PER_CATEGORY = 50;
+
+    private ContentResolver mContentResolver;
+
+    @Before
+    public void setUp() throws JSONException {
+        Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY);
+        mContentResolver = RuntimeEnvironment.application.getContentResolver();
+
+        // Categories are stored one after the other, like the catalog is.
+        JSONArray categories = new JSONArray();
+        for (String category : CATEGORIES) {
+            JSONArray mediaArray = new JSONArray();
+            for (int i = 0; i < VIDEOS_PER_CATEGORY; i++) {
+                String url = "http://www.example.com/" + category + "/" + i + ".mp4";
+                mediaArray.put(new JSONObject()
+                        .put(VideoDbBuilder.TAG_TITLE, category + " " + i)
+                        .put(VideoDbBuilder.TAG_SOURCES, new JSONArray().put(url)));
+            }
+            categories.put(new JSONObject()
+                    .put(VideoDbBuilder.TAG_CATEGORY, category)
+                    .put(VideoDbBuilder.TAG_MEDIA, mediaArray));
+        }
+        JSONObject myMedia = new JSONObject().put(VideoDbBuilder.TAG_GOOGLE_VIDEOS, categories);
+        List<ContentValues> videos =
+                new VideoDbBuilder(RuntimeEnvironment.application).buildMedia(myMedia);
+        mContentResolver.bulkInsert(VideoContract.VideoEntry.CONTENT_URI,
+                videos.toArray(new ContentValues[videos.size()]));
+    }
+
+    @Test
+    public void sampleHasDistinctVideos() {
+        for (int run = 0; run < 20; run++) {
+            Set<Long> ids = new HashSet<>();
+            Cursor cursor = query(VideoContract.VideoEntry.buildSampleUri(10, false));
+            try {
+                Assert.assertEquals(10, cursor.getCount());
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getLong(
+                            cursor.getColumnIndex(VideoContract.VideoEntry._ID)));
+                }
+            } finally {
+                cursor.close();
+            }
+            Assert.assertEquals(10, ids.size());
+        }
+    }
+
+    @Test
+    public void sampleByCategoryCoversCategories() {
+        for (int run = 0; run < 20; run++) {
+            Set<String> categories = new HashSet<>();
+            Cursor cursor = query(
+                    VideoContract.VideoEntry.buildSampleUri(CATEGORIES.length, true));
+            try {
+                while (cursor.moveToNext()) {
+                    categories.add(cursor.getString(
+                            cursor.getColumnIndex(VideoContract.VideoEntry.COLUMN_CATEGORY)));
+                }
+            } finally {
+                cursor.close();
+            }
+            Assert.assertEquals(CATEGORIES.length, categories.size());
+        }
+    }
+
+    @Test
+    public void sampleByCategoryLargerThanCategoriesIsFilled() {
+        // Only three categories, the videos past them are any not picked yet.
+        Set<Long> ids = new HashSet<>();
+        Cursor cursor = query(VideoContract.VideoEntry.buildSampleUri(10, true));
+        try {
+            Assert.assertEquals(10, cursor.getCount());
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(cursor.getColumnIndex(VideoContract.VideoEntry._ID)));
+            }
+        } finally {
+            cursor.close();
+        }
+        Assert.assertEquals(10, ids.size());
+    }
+
+    @Test
+    public void sampleLargerThanCatalogReturnsCatalog() {
+        Cursor cursor = query(VideoContract.VideoEntry.buildSampleUri(1000, true));
+        try {
+            Assert.assertEquals(CATEGORIES.length * VIDEOS_PER_CATEGORY, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private Cursor query(Uri uri) {
+        return mContentResolver.query(uri, null, null, null, null);
+    }
+}
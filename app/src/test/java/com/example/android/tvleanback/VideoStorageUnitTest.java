@@ -0,0 +1,229 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoDbBuilder;
+import com.example.android.tvleanback.data.VideoDbHelper;
+import com.example.android.tvleanback.data.VideoProvider;
+
+import junit.framework.Assert;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class VideoStorageUnitTest {
+    private static final int VIDEOS = 200;
+    private static final String BASE_URL =
+            "https://storage.googleapis.com/android-tv/Sample videos/";
+
+    // The video table as it was before its numbers were typed and its strings put in the
+    // dictionary, to measure against.
+    private static final String LEGACY_VIDEO_TABLE = "CREATE TABLE legacy.video (" +
+            VideoContract.VideoEntry._ID + " INTEGER PRIMARY KEY," +
+            VideoContract.VideoEntry.COLUMN_CATEGORY + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_VIDEO_URL + " TEXT UNIQUE NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_NAME + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_DESC + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_BG_IMAGE_URL + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_STUDIO + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_CARD_IMG + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_CONTENT_TYPE + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_IS_LIVE + " INTEGER NOT NULL DEFAULT 0, " +
+            VideoContract.VideoEntry.COLUMN_VIDEO_WIDTH + " INTEGER NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_VIDEO_HEIGHT + " INTEGER NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_AUDIO_CHANNEL_CONFIG + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_PURCHASE_PRICE + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_RENTAL_PRICE + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_RATING_STYLE + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_RATING_SCORE + " REAL NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_PRODUCTION_YEAR + " INTEGER NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_DURATION + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_ACTION + " TEXT NOT NULL, " +
+            VideoContract.VideoEntry.COLUMN_ADDED_AT + " INTEGER NOT NULL DEFAULT 0" +
+            " );";
+
+    private ContentResolver mContentResolver;
+    private ContentValues[] mVideos;
+
+    @Before
+    public void setUp() throws JSONException {
+        Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY);
+        mContentResolver = RuntimeEnvironment.application.getContentResolver();
+
+        JSONArray mediaArray = new JSONArray();
+        for (int i = 0; i < VIDEOS; i++) {
+            mediaArray.put(new JSONObject()
+                    .put(VideoDbBuilder.TAG_TITLE, "Video " + i)
+                    .put(VideoDbBuilder.TAG_DESCRIPTION, "The description of video " + i)
+                    .put(VideoDbBuilder.TAG_STUDIO, "Studio " + (i % 4))
+                    .put(VideoDbBuilder.TAG_CARD_THUMB, BASE_URL + i + "/card.jpg")
+                    .put(VideoDbBuilder.TAG_BACKGROUND, BASE_URL + i + "/bg.jpg")
+                    .put(VideoDbBuilder.TAG_SOURCES, new JSONArray().put(BASE_URL + i + ".mp4")));
+        }
+        JSONObject myMedia = new JSONObject().put(VideoDbBuilder.TAG_GOOGLE_VIDEOS,
+                new JSONArray().put(new JSONObject()
+                        .put(VideoDbBuilder.TAG_CATEGORY, "Demo")
+                        .put(VideoDbBuilder.TAG_MEDIA, mediaArray)));
+        List<ContentValues> videos =
+                new VideoDbBuilder(RuntimeEnvironment.application).buildMedia(myMedia);
+        mVideos = videos.toArray(new ContentValues[videos.size()]);
+        mContentResolver.bulkInsert(VideoContract.VideoEntry.CONTENT_URI, mVideos);
+    }
+
+    @Test
+    public void videosReadAsWritten() {
+        String[] columns = {
+                VideoContract.VideoEntry.COLUMN_CONTENT_TYPE,
+                VideoContract.VideoEntry.COLUMN_AUDIO_CHANNEL_CONFIG,
+                VideoContract.VideoEntry.COLUMN_PURCHASE_PRICE,
+                VideoContract.VideoEntry.COLUMN_RENTAL_PRICE,
+                VideoContract.VideoEntry.COLUMN_ACTION,
+                VideoContract.VideoEntry.COLUMN_STUDIO
+        };
+        Cursor cursor = queryByUrl(mVideos[7], columns);
+        try {
+            Assert.assertTrue(cursor.moveToFirst());
+            for (int i = 0; i < columns.length; i++) {
+                Assert.assertEquals(columns[i], mVideos[7].getAsString(columns[i]),
+                        cursor.getString(i));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void numbersAreStoredAsNumbers() {
+        Cursor cursor = queryByUrl(mVideos[0], new String[]{
+                VideoContract.VideoEntry.COLUMN_DURATION,
+                VideoContract.VideoEntry.COLUMN_RATING_STYLE,
+                VideoContract.VideoEntry.COLUMN_PRODUCTION_YEAR,
+                VideoContract.VideoEntry.COLUMN_RATING_SCORE
+        });
+        try {
+            Assert.assertTrue(cursor.moveToFirst());
+            Assert.assertEquals(Cursor.FIELD_TYPE_INTEGER, cursor.getType(0));
+            Assert.assertEquals(Cursor.FIELD_TYPE_INTEGER, cursor.getType(1));
+            Assert.assertEquals(Cursor.FIELD_TYPE_INTEGER, cursor.getType(2));
+            Assert.assertEquals(Cursor.FIELD_TYPE_FLOAT, cursor.getType(3));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void durationsSortByValue() {
+        // As text, "90000" would sort before "600".
+        updateByUrl(mVideos[0], VideoContract.VideoEntry.COLUMN_DURATION, 90000);
+        updateByUrl(mVideos[1], VideoContract.VideoEntry.COLUMN_DURATION, 600);
+
+        Cursor cursor = mContentResolver.query(VideoContract.VideoEntry.CONTENT_URI,
+                new String[]{VideoContract.VideoEntry.COLUMN_DURATION},
+                VideoContract.VideoEntry.COLUMN_DURATION + " > 0", null,
+                VideoContract.VideoEntry.COLUMN_DURATION);
+        try {
+            Assert.assertTrue(cursor.moveToFirst());
+            Assert.assertEquals(600, cursor.getLong(0));
+            Assert.assertTrue(cursor.moveToNext());
+            Assert.assertEquals(90000, cursor.getLong(0));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void repeatedStringsAreStoredOnce() {
+        // The content type, audio channels, both prices and the search action.
+        Assert.assertEquals(5, countDictionary());
+
+        // Syncing the same catalog again adds nothing.
+        mContentResolver.bulkInsert(VideoContract.VideoEntry.CONTENT_URI, mVideos);
+        Assert.assertEquals(5, countDictionary());
+
+        ContentValues values = new ContentValues();
+        values.put(VideoContract.VideoEntry.COLUMN_CONTENT_TYPE, "video/webm");
+        mContentResolver.update(VideoContract.VideoEntry.CONTENT_URI, values,
+                VideoContract.VideoEntry.COLUMN_VIDEO_URL + " = ?",
+                new String[]{mVideos[3].getAsString(VideoContract.VideoEntry.COLUMN_VIDEO_URL)});
+        Assert.assertEquals(6, countDictionary());
+
+        Cursor cursor = queryByUrl(mVideos[3],
+                new String[]{VideoContract.VideoEntry.COLUMN_CONTENT_TYPE});
+        try {
+            Assert.assertTrue(cursor.moveToFirst());
+            Assert.assertEquals("video/webm", cursor.getString(0));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void videosTakeFewerPages() {
+        // Copy the same videos into a table of the old layout and into the new tables, each in a
+        // database of its own, and compare how many pages they take.
+        VideoDbHelper helper = new VideoDbHelper(RuntimeEnvironment.application);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        String catalog = helper.getCatalogSchema();
+        db.execSQL("ATTACH DATABASE ':memory:' AS legacy");
+        db.execSQL("ATTACH DATABASE ':memory:' AS compact");
+        try {
+            db.execSQL(LEGACY_VIDEO_TABLE);
+            db.execSQL("INSERT INTO legacy.video SELECT * FROM " + helper.getVideoTable());
+            for (String table : new String[]{VideoContract.DictionaryEntry.TABLE_NAME,
+                    VideoContract.VideoEntry.DATA_TABLE_NAME}) {
+                String sql = DatabaseUtils.stringForQuery(db,
+                        "SELECT sql FROM " + catalog + ".sqlite_master WHERE name = ?",
+                        new String[]{table});
+                db.execSQL(sql.replaceFirst("CREATE TABLE ", "CREATE TABLE compact."));
+                db.execSQL("INSERT INTO compact." + table + " SELECT * FROM " + catalog + "."
+                        + table);
+            }
+
+            long legacyPages = DatabaseUtils.longForQuery(db, "PRAGMA legacy.page_count", null);
+            long compactPages = DatabaseUtils.longForQuery(db, "PRAGMA compact.page_count", null);
+            Assert.assertTrue(compactPages + " pages, was " + legacyPages,
+                    compactPages < legacyPages);
+        } finally {
+            db.execSQL("DETACH DATABASE legacy");
+            db.execSQL("DETACH DATABASE compact");
+        }
+    }
+
+    private Cursor queryByUrl(ContentValues video, String[] projection) {
+        return mContentResolver.query(VideoContract.VideoEntry.CONTENT_URI, projection,
+                VideoContract.VideoEntry.COLUMN_VIDEO_URL + " = ?",
+                new String[]{video.getAsString(VideoContract.VideoEntry.COLUMN_VIDEO_URL)}, null);
+    }
+
+    private void updateByUrl(ContentValues video, String column, long value) {
+        ContentValues values = new ContentValues();
+        values.put(column, value);
+        Assert.assertEquals(1, mContentResolver.update(VideoContract.VideoEntry.CONTENT_URI,
+                values, VideoContract.VideoEntry.COLUMN_VIDEO_URL + " = ?",
+                new String[]{video.getAsString(VideoContract.VideoEntry.COLUMN_VIDEO_URL)}));
+    }
+
+    private long countDictionary() {
+        VideoDbHelper helper = new VideoDbHelper(RuntimeEnvironment.application);
+        return DatabaseUtils.queryNumEntries(helper.getReadableDatabase(),
+                helper.getCatalogSchema() + "." + VideoContract.DictionaryEntry.TABLE_NAME);
+    }
+}
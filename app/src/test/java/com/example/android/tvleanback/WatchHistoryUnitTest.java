@@ -0,0 +1,130 @@
+package com.example.android.tvleanback;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import com.example.android.tvleanback.data.VideoContract;
+import com.example.android.tvleanback.data.VideoDbBuilder;
+import com.example.android.tvleanback.data.VideoProvider;
+import com.example.android.tvleanback.model.Video;
+import com.example.android.tvleanback.model.VideoCursorMapper;
+
+import junit.framework.Assert;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, manifest = "src/main/AndroidManifest.xml")
+public class WatchHistoryUnitTest {
+    private static final String NEW_DAD_URL = "http://www.example.com/new_dad.mp4";
+    private static final String PET_DOG_URL = "http://www.example.com/pet_dog.mp4";
+    private static final String GOOGLE_GLASS_URL = "http://www.example.com/google_glass.mp4";
+
+    private ContentResolver mContentResolver;
+
+    @Before
+    public void setUp() throws JSONException {
+        Robolectric.buildContentProvider(VideoProvider.class)
+                .create(VideoContract.CONTENT_AUTHORITY);
+        mContentResolver = RuntimeEnvironment.application.getContentResolver();
+
+        JSONArray mediaArray = new JSONArray();
+        for (String url : new String[]{NEW_DAD_URL, PET_DOG_URL, GOOGLE_GLASS_URL}) {
+            mediaArray.put(new JSONObject()
+                    .put(VideoDbBuilder.TAG_TITLE, url)
+                    .put(VideoDbBuilder.TAG_SOURCES, new JSONArray().put(url)));
+        }
+        JSONObject myMedia = new JSONObject().put(VideoDbBuilder.TAG_GOOGLE_VIDEOS,
+                new JSONArray().put(new JSONObject()
+                        .put(VideoDbBuilder.TAG_CATEGORY, "Google+")
+                        .put(VideoDbBuilder.TAG_MEDIA, mediaArray)));
+        List<ContentValues> videos =
+                new VideoDbBuilder(RuntimeEnvironment.application).buildMedia(myMedia);
+        mContentResolver.bulkInsert(VideoContract.VideoEntry.CONTENT_URI,
+                videos.toArray(new ContentValues[videos.size()]));
+    }
+
+    @Test
+    public void continueWatchingMostRecentFirst() {
+        mContentResolver.bulkInsert(VideoContract.WatchHistoryEntry.CONTENT_URI,
+                new ContentValues[]{
+                        entry(NEW_DAD_URL, 60000, 1000),
+                        entry(PET_DOG_URL, 30000, 3000),
+                        entry(GOOGLE_GLASS_URL, 45000, 2000)
+                });
+
+        List<Video> videos = queryContinueWatching();
+        Assert.assertEquals(3, videos.size());
+        Assert.assertEquals(PET_DOG_URL, videos.get(0).videoUrl);
+        Assert.assertEquals(GOOGLE_GLASS_URL, videos.get(1).videoUrl);
+        Assert.assertEquals(NEW_DAD_URL, videos.get(2).videoUrl);
+    }
+
+    @Test
+    public void finishedVideosAreNotContinued() {
+        mContentResolver.bulkInsert(VideoContract.WatchHistoryEntry.CONTENT_URI,
+                new ContentValues[]{
+                        entry(NEW_DAD_URL, 60000, 1000),
+                        entry(PET_DOG_URL, 0, 2000)
+                });
+
+        List<Video> videos = queryContinueWatching();
+        Assert.assertEquals(1, videos.size());
+        Assert.assertEquals(NEW_DAD_URL, videos.get(0).videoUrl);
+    }
+
+    @Test
+    public void newerPositionReplacesOlder() {
+        mContentResolver.bulkInsert(VideoContract.WatchHistoryEntry.CONTENT_URI,
+                new ContentValues[]{entry(NEW_DAD_URL, 60000, 1000)});
+        mContentResolver.bulkInsert(VideoContract.WatchHistoryEntry.CONTENT_URI,
+                new ContentValues[]{entry(NEW_DAD_URL, 90000, 2000)});
+
+        Cursor cursor = mContentResolver.query(VideoContract.WatchHistoryEntry.CONTENT_URI,
+                new String[]{VideoContract.WatchHistoryEntry.COLUMN_POSITION}, null, null, null);
+        try {
+            Assert.assertEquals(1, cursor.getCount());
+            cursor.moveToFirst();
+            Assert.assertEquals(90000, cursor.getLong(0));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static ContentValues entry(String videoUrl, long positionMs, long lastWatchedMs) {
+        ContentValues values = new ContentValues();
+        values.put(VideoContract.WatchHistoryEntry.COLUMN_VIDEO_URL, videoUrl);
+        values.put(VideoContract.WatchHistoryEntry.COLUMN_POSITION, positionMs);
+        values.put(VideoContract.WatchHistoryEntry.COLUMN_DURATION, 120000);
+        values.put(VideoContract.WatchHistoryEntry.COLUMN_LAST_WATCHED, lastWatchedMs);
+        return values;
+    }
+
+    private List<Video> queryContinueWatching() {
+        Cursor cursor = mContentResolver.query(
+                VideoContract.WatchHistoryEntry.CONTINUE_WATCHING_URI, null, null, null, null);
+        try {
+            VideoCursorMapper mapper = new VideoCursorMapper();
+            List<Video> videos = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                videos.add((Video) mapper.convert(cursor));
+            }
+            return videos;
+        } finally {
+            cursor.close();
+        }
+    }
+}